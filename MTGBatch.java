@@ -0,0 +1,291 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+   MTGBatch.java
+   
+   Runs a file of saved searches against one loaded catalog, and streams the results as
+   JSON lines, in the same order as the searches.
+   
+   Each line of the query file is either a plain query, such as 'elf druid', or a JSON
+   object with the query in its "q" (or "query") field and an optional "id" field, such as
+   {"id":"nightly-7","q":"rare artifacts that add mana"}. Blank lines and lines starting
+   with '#' are skipped.
+   
+   The cards and the keyword dictionary are loaded once, and the searches are run on a
+   bounded pool of worker threads. Only a limited number of searches are in flight at once,
+   and each result is written as soon as every search before it has been written, so the
+   output is streamed rather than held until the end. Each result line holds:
+   
+   {"line":3,"id":"nightly-7","query":"...","total":12,"tookMs":0.412,"cpuMs":0.398,"cards":[...]}
+   
+   A line that cannot be read, or a search that fails, gives a line with an "error" field
+   instead of the cards, and the rest of the searches still run.
+   
+   A summary of the load time, run time, total search time, result cache hits, and the
+   time taken by each phase of the searches is printed at the end.
+   
+   Usage: java MTGSearch batch <query file> [output file] [threads]
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGSearch.java
+   @see MTGJson.java
+   @see MTGQuery.search( String userInput )
+*/
+public class MTGBatch {
+   
+   //Searches in flight per worker thread, which bounds the memory held by waiting results
+   private static final int IN_FLIGHT_PER_THREAD = 4;
+   
+   private final MTGQuery query;
+   private final int threads;
+   private int limit = -1;
+   
+   /**
+      Create a batch runner for the cards of a query
+      
+      @param query The query holding the loaded cards and indexes
+      @param threads The number of worker threads
+   */
+   public MTGBatch( MTGQuery query, int threads ) {
+      this.query = query;
+      this.threads = Math.max( 1, threads );
+      query.setPrintingPlan( false );
+      query.getDictionary();
+      query.loadAllCards();
+      MTGMetrics.register();
+   }
+   
+   /**
+      Sets the most cards written per result
+      
+      @param limit The most cards to write, or a negative number to write all of them
+   */
+   public void setLimit( int limit ) {
+      this.limit = limit;
+   }
+   
+   /**
+      Runs every search of a query file, writing one JSON line per search to the output
+      
+      @param queryFileName The name of the query file
+      @param out The output to write the JSON lines to
+      @return long[] The total number of searches, and the sum of their CPU times in nanoseconds
+      @throws IOException If the query file cannot be read, or the output cannot be written
+   */
+   public long[] run( String queryFileName, Writer out ) throws IOException {
+      ExecutorService pool = Executors.newFixedThreadPool( threads );
+      ArrayDeque<Future<Result>> inFlight = new ArrayDeque<Future<Result>>();
+      long totalSearches = 0, totalCpuNanos = 0;
+      
+      try( BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( queryFileName ), StandardCharsets.UTF_8 ) ) ) {
+         int lineNumber = 0;
+         String line;
+         while( ( line = reader.readLine() ) != null ) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if( trimmed.isEmpty() || trimmed.startsWith("#") ) continue;
+            
+            final int searchLine = lineNumber;
+            inFlight.add( pool.submit( () -> search( searchLine, trimmed ) ) );
+            totalSearches++;
+            
+            //keep at most a bounded number of searches in flight, writing the oldest first
+            if( inFlight.size() >= threads * IN_FLIGHT_PER_THREAD ) totalCpuNanos += write( inFlight.poll(), out );
+         }
+         
+         while( !inFlight.isEmpty() )
+            totalCpuNanos += write( inFlight.poll(), out );
+      } finally {
+         pool.shutdownNow();
+         out.flush();
+      }
+      
+      return new long[]{ totalSearches, totalCpuNanos };
+   }
+   
+   /**
+      Runs a single search of the query file
+      
+      @param lineNumber The line of the query file
+      @param line The line, either a plain query or a JSON object
+      @return Result The search result, as a JSON line
+   */
+   private Result search( int lineNumber, String line ) {
+      ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      long cpuStart = threadBean.getCurrentThreadCpuTime();
+      long startTime = System.nanoTime();
+      
+      String id = null, userInput = line;
+      StringBuilder json = new StringBuilder();
+      json.append("{\"line\":").append( lineNumber );
+      if( line.startsWith("{") ) {
+         try {
+            id = MTGJson.getString( line, "id" );
+            userInput = MTGJson.getString( line, "q" );
+            if( userInput == null ) userInput = MTGJson.getString( line, "query" );
+         } catch( RuntimeException e ) {
+            json.append(",\"error\":");
+            MTGJson.quote("Could not read the line: " + e.getMessage(), json );
+            return new Result( json.append('}').toString(), 0 );
+         }
+      }
+      
+      if( id != null ) {
+         json.append(",\"id\":");
+         MTGJson.quote( id, json );
+      }
+      
+      if( userInput == null ) {
+         json.append(",\"error\":\"No query in the 'q' field\"}");
+         return new Result( json.toString(), 0 );
+      }
+      
+      try {
+         ArrayList<MTGCard> cards = query.search( userInput );
+         json.append(',');
+         MTGJson.appendResult( userInput, cards, limit, System.nanoTime() - startTime, json );
+      } catch( RuntimeException e ) {
+         json.append(",\"query\":");
+         MTGJson.quote( userInput, json );
+         json.append(",\"error\":");
+         MTGJson.quote( e.toString(), json );
+      }
+      
+      long cpuNanos = threadBean.getCurrentThreadCpuTime() - cpuStart;
+      json.append(",\"cpuMs\":").append( MTGJson.toMillis( cpuNanos ) ).append('}');
+      
+      return new Result( json.toString(), cpuNanos );
+   }
+   
+   /**
+      Waits for a search and writes its result
+      
+      @param future The search
+      @param out The output to write to
+      @return long The CPU time of the search, in nanoseconds
+      @throws IOException If the output cannot be written, or the search was interrupted
+   */
+   private static long write( Future<Result> future, Writer out ) throws IOException {
+      Result result;
+      try {
+         result = future.get();
+      } catch( InterruptedException e ) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while waiting for a search");
+      } catch( ExecutionException e ) {
+         throw new IOException("Search failed: " + e.getCause(), e.getCause() );
+      }
+      
+      out.write( result.json );
+      out.write('\n');
+      return result.cpuNanos;
+   }
+   
+   /**
+      Loads the cards, runs a file of searches, and prints a summary
+      
+      @param args The query file, then optionally the output file ('-' for the console) and
+                  the number of threads
+      @param cardFileName The name of the card file
+   */
+   public static void run( String[] args, String cardFileName ) {
+      if( args.length < 1 ) {
+         SOPln("Usage: java MTGSearch batch <query file> [output file] [threads]");
+         return;
+      }
+      
+      String outputFileName = args.length > 1 ? args[1] : "-";
+      int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+      
+      //the console is kept for the JSON lines, so messages printed while loading go to the error stream
+      PrintStream console = System.out;
+      System.setOut( System.err );
+      
+      long startTime = System.nanoTime();
+      MTGBatch batch = new MTGBatch( new MTGQuery( cardFileName ), threads );
+      long loadNanos = System.nanoTime() - startTime;
+      
+      Writer out = null;
+      try {
+         out = new BufferedWriter( new OutputStreamWriter( outputFileName.equals("-") ? console : new FileOutputStream( outputFileName ), StandardCharsets.UTF_8 ) );
+         long runStart = System.nanoTime();
+         long[] totals = batch.run( args[0], out );
+         long runNanos = System.nanoTime() - runStart;
+         
+         SOPln("Ran " + totals[0] + " searches on " + threads + " threads: load " + MTGJson.toMillis( loadNanos ) +
+               " ms, run " + MTGJson.toMillis( runNanos ) + " ms, search CPU " + MTGJson.toMillis( totals[1] ) + " ms");
+         SOPln("Result cache: " + batch.query.getResultCache() );
+         SOPln( MTGMetrics.get().dump() );
+      } catch( IOException e ) {
+         e.printStackTrace();
+      } finally {
+         //the results written so far are kept, even if the run stopped part way
+         close( out, !outputFileName.equals("-") );
+      }
+   }
+   
+   /**
+      Flushes the output, and closes it if it is a file rather than the console
+      
+      @param out The output, or null if it was never opened
+      @param isFile True if the output is a file, false if it is the console
+   */
+   private static void close( Writer out, boolean isFile ) {
+      if( out == null ) return;
+      
+      try {
+         if( isFile ) out.close();
+         else         out.flush();
+      } catch( IOException e ) {
+         e.printStackTrace();
+      }
+   }
+   
+   /**
+      The JSON line of a search, with its CPU time
+   */
+   private static class Result {
+      
+      private final String json;
+      private final long cpuNanos;
+      
+      /**
+         Create a result
+         
+         @param json The JSON line
+         @param cpuNanos The CPU time of the search, in nanoseconds
+      */
+      private Result( String json, long cpuNanos ) {
+         this.json = json;
+         this.cpuNanos = cpuNanos;
+      }
+   }
+   
+   /**
+      Faster method override. Prints to the error stream, which keeps the console output to
+      just the JSON lines
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.err.println( str );
+   }
+}
@@ -0,0 +1,134 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+   MTGByteInterner.java
+   
+   Turns slices of UTF-8 bytes into Strings, decoding each distinct slice only once.
+   
+   Most fields of the card file repeat from card to card, such as the card types, rarities,
+   set names, 'na', and every keyword property. The interner hashes the bytes of a slice
+   where they lie, and only creates a String the first time a slice is seen, so parsing a
+   field that has been seen before allocates nothing. The table is open-addressed, with the
+   bytes of each String kept alongside it for comparison.
+   
+   An interner is not thread-safe, and is meant to be used by one parser at a time
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCardLoader.java
+*/
+public class MTGByteInterner {
+   
+   private static final int INITIAL_CAPACITY = 1 << 10;
+   
+   private String[] strings;
+   private byte[][] keys;
+   private int[] hashes;
+   private int size = 0;
+   
+   /**
+      Create an empty interner
+   */
+   public MTGByteInterner() {
+      strings = new String[ INITIAL_CAPACITY ];
+      keys = new byte[ INITIAL_CAPACITY ][];
+      hashes = new int[ INITIAL_CAPACITY ];
+   }
+   
+   /**
+      Get the String for a slice of UTF-8 bytes
+      
+      @param bytes The bytes holding the slice
+      @param start The start of the slice
+      @param end The end of the slice, exclusive
+      @return String The decoded slice, which is the same String for every equal slice
+   */
+   public String intern( ByteBuffer bytes, int start, int end ) {
+      int hash = 1;
+      for( int i = start; i < end; i++ )
+         hash = 31 * hash + bytes.get(i);
+      
+      int mask = strings.length - 1;
+      int slot = mix( hash ) & mask;
+      while( strings[ slot ] != null ) {
+         if( hashes[ slot ] == hash && isEqual( keys[ slot ], bytes, start, end ) ) return strings[ slot ];
+         slot = ( slot + 1 ) & mask;
+      }
+      
+      byte[] key = new byte[ end - start ];
+      bytes.get( start, key );
+      String string = new String( key, StandardCharsets.UTF_8 );
+      strings[ slot ] = string;
+      keys[ slot ] = key;
+      hashes[ slot ] = hash;
+      
+      if( ++size * 2 > strings.length ) resize();
+      
+      return string;
+   }
+   
+   /**
+      Returns the total number of distinct Strings in this interner
+      
+      @return int The total number of Strings
+   */
+   public int size() {
+      return size;
+   }
+   
+   /**
+      Compares stored bytes with a slice
+      
+      @param key The stored bytes
+      @param bytes The bytes holding the slice
+      @param start The start of the slice
+      @param end The end of the slice, exclusive
+      @return boolean True if the bytes are equal, false otherwise
+   */
+   private static boolean isEqual( byte[] key, ByteBuffer bytes, int start, int end ) {
+      if( key.length != end - start ) return false;
+      
+      for( int i = 0; i < key.length; i++ )
+         if( key[i] != bytes.get( start + i ) ) return false;
+      
+      return true;
+   }
+   
+   /**
+      Spreads the bits of a hash, so that hashes differing only in their high bits land in
+      different slots
+      
+      @param hash The hash of a slice
+      @return int The spread hash
+   */
+   private static int mix( int hash ) {
+      return hash ^ ( hash >>> 16 );
+   }
+   
+   /**
+      Doubles the size of the table
+   */
+   private void resize() {
+      String[] oldStrings = strings;
+      byte[][] oldKeys = keys;
+      int[] oldHashes = hashes;
+      
+      strings = new String[ oldStrings.length * 2 ];
+      keys = new byte[ oldStrings.length * 2 ][];
+      hashes = new int[ oldStrings.length * 2 ];
+      
+      int mask = strings.length - 1;
+      for( int i = 0; i < oldStrings.length; i++ ) {
+         if( oldStrings[i] == null ) continue;
+         
+         int slot = mix( oldHashes[i] ) & mask;
+         while( strings[ slot ] != null )
+            slot = ( slot + 1 ) & mask;
+         
+         strings[ slot ] = oldStrings[i];
+         keys[ slot ] = oldKeys[i];
+         hashes[ slot ] = oldHashes[i];
+      }
+   }
+}
@@ -1,5 +1,6 @@
 
 import java.util.HashSet;
+import java.util.Collection;
 import java.util.Arrays;
 
 /**
@@ -15,35 +16,49 @@ import java.util.Arrays;
 */
 public class MTGCard {
    
-   private final int BASE_PROPERTIES_SIZE = 16;
+   public static final int BASE_PROPERTIES_SIZE = 16;
    private int propertiesSize;
-   private final int VARIABLE_COST = -1;
+   public static final int VARIABLE_COST = -1;
    
    /* @@@@@@@@@@@@@@@@@@@@@@@@@@@ FIELD PROPERTIES @@@@@@@@@@@@@@@@@@@@@@@@@@@@@ */
    /* @ */                                                                  /* @ */
    /* @ */   //Line number                                                  /* @ */
    /* @ */   private String LINE_NUMBER;                                    /* @ */
    /* @ */                                                                  /* @ */
-   /* @ */   //image name                                                   /* @ */
+   /* @ */   //image name, or null if it is the name followed by .jpg       /* @ */
    /* @ */   private final String IMAGE_NAME;                               /* @ */
    /* @ */                                                                  /* @ */
-   /* @ */   //Base Properties                                              /* @ */
-   /* @ */   private String   NAME, CARD_TYPE, SUBTYPE, MANA_COST, RARITY,  /* @ */
+   /* @ */   //Base Properties. Every field but the name is a code of a     /* @ */
+   /* @ */   //field dictionary, so each distinct value is only held once   /* @ */
+   /* @ */   private String   NAME;                                         /* @ */
+   /* @ */   private int      CARD_TYPE, SUBTYPE, MANA_COST, RARITY,        /* @ */
    /* @ */                    CARD_NUMBER, SET_NAME, ARTIST, YEAR, POWER,   /* @ */
    /* @ */                    TOUGHNESS;                                    /* @ */
-   /* @ */   private String[] SUBTEXT_CHARS;                                /* @ */
-   /* @ */   private String   EQUIP_COST, LOYALTY, QUANTITY;                /* @ */
+   /* @ */   private int[]    SUBTEXT_CHARS;                                /* @ */
+   /* @ */   private int      EQUIP_COST, LOYALTY, QUANTITY;                /* @ */
    /* @ */                                                                  /* @ */
-   /* @ */   //Properties                                                   /* @ */
-   /* @ */   private HashSet<String> baseSet;                               /* @ */
-   /* @ */   private HashSet<String> propertiesSet;                         /* @ */
+   /* @ */   //Properties, as sorted TOKENS and PROPERTIES codes            /* @ */
+   /* @ */   private int[]    baseSet;                                      /* @ */
+   /* @ */   private volatile int[] propertiesSet;                          /* @ */
    /* @ */                                                                  /* @ */
    /* @ */   //Translated Properties                                        /* @ */
-   /* @ */   private String   COLOR_TYPE; //R,U,G,W,B, or multiple, RGW, eg /* @ */
+   /* @ */   private int      COLORS;     //MTGColors mask, eg RED | GREEN  /* @ */
    /* @ */   private int      TOTAL_COST; //Added mana costs together       /* @ */
    /* @ */                                                                  /* @ */
    /* @@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@ */
    
+   //Dictionaries of the fields, shared by every card. The short numeric fields share one
+   private static final MTGFieldDictionary CARD_TYPES  = new MTGFieldDictionary("card type");
+   private static final MTGFieldDictionary SUBTYPES    = new MTGFieldDictionary("subtype");
+   private static final MTGFieldDictionary RARITIES    = new MTGFieldDictionary("rarity");
+   private static final MTGFieldDictionary SET_NAMES   = new MTGFieldDictionary("set name");
+   private static final MTGFieldDictionary ARTISTS     = new MTGFieldDictionary("artist");
+   private static final MTGFieldDictionary VALUES      = new MTGFieldDictionary("value");
+   private static final MTGFieldDictionary TOKENS      = new MTGFieldDictionary("token");
+   private static final MTGFieldDictionary PROPERTIES  = new MTGFieldDictionary("property");
+   private static final MTGFieldDictionary[] DICTIONARIES = { CARD_TYPES, SUBTYPES, RARITIES, SET_NAMES,
+                                                              ARTISTS, VALUES, TOKENS, PROPERTIES };
+   
    /**
       Sets the fields / properties of the MTG card, as well as the image name.
       
@@ -77,7 +92,8 @@ public class MTGCard {
          SOPln( e.getMessage() );
       }
       
-      IMAGE_NAME = imageName;
+      //almost every image is named after its card, so only the others are kept
+      IMAGE_NAME = imageName != null && imageName.equals( NAME + ".jpg" ) ? null : imageName;
       
    }
    
@@ -100,64 +116,113 @@ public class MTGCard {
          throw new MTGCardPropertyException("Line #" + LINE_NUMBER + ": Expected total base properties: " + BASE_PROPERTIES_SIZE + ", Found: " + baseList.length );
       
       NAME          = baseList[1];
-      CARD_TYPE     = baseList[2];
-      SUBTYPE       = baseList[3];
-      MANA_COST     = baseList[4];
-      RARITY        = baseList[5];
-      CARD_NUMBER   = baseList[6];
-      SET_NAME      = baseList[7];
-      ARTIST        = baseList[8];
-      YEAR          = baseList[9];
-      POWER         = baseList[10];
-      TOUGHNESS     = baseList[11];
-      SUBTEXT_CHARS = baseList[12].toUpperCase().split("@");
-      EQUIP_COST    = baseList[13];
-      LOYALTY       = baseList[14];
-      QUANTITY      = baseList[15];
-      
-      //Set COLOR_TYPE and COLOR_COST
-      setColorType( MANA_COST );
-      setColorCost( MANA_COST );
-      
-      /* Set HashSet for base properties */
-      final int TOTAL_STRING_BASE_PROPERTIES_EXCLUDING_SUBLISTS = 5; //don't want to double-count
-      String[] nameList = MTGSearch.removeNonLettersWhitespace( NAME ).toUpperCase().split(" ");
-      String[] typeList = CARD_TYPE.toUpperCase().split(" ");
-      String[] subtypeList = SUBTYPE.toUpperCase().split(" ");
-      String[] artistList = MTGSearch.removeNonLettersWhitespace( ARTIST ).toUpperCase().split(" ");
-      baseSet = new HashSet<String>( TOTAL_STRING_BASE_PROPERTIES_EXCLUDING_SUBLISTS + nameList.length + typeList.length + subtypeList.length + artistList.length + SUBTEXT_CHARS.length );
-      String[][] lists = { nameList, typeList, subtypeList, artistList, SUBTEXT_CHARS };
+      CARD_TYPE     = CARD_TYPES.encode( baseList[2] );
+      SUBTYPE       = SUBTYPES.encode( baseList[3] );
+      MANA_COST     = VALUES.encode( baseList[4] );
+      RARITY        = RARITIES.encode( baseList[5] );
+      CARD_NUMBER   = VALUES.encode( baseList[6] );
+      SET_NAME      = SET_NAMES.encode( baseList[7] );
+      ARTIST        = ARTISTS.encode( baseList[8] );
+      YEAR          = VALUES.encode( baseList[9] );
+      POWER         = VALUES.encode( baseList[10] );
+      TOUGHNESS     = VALUES.encode( baseList[11] );
+      SUBTEXT_CHARS = encodeSubtext( baseList[12] );
+      EQUIP_COST    = VALUES.encode( baseList[13] );
+      LOYALTY       = VALUES.encode( baseList[14] );
+      QUANTITY      = VALUES.encode( baseList[15] );
+      
+      //Set COLORS and COLOR_COST
+      COLORS = MTGColors.maskOf( baseList[4] );
+      setColorCost( baseList[4] );
+      
+      /* Set sorted codes for base properties */
+      baseSet = encodeTokens( getBaseTokens( baseList ) );
+      
+      /* @@@@@@@@@@@@@@@@@@@@@@@@@@@@@@ */
+   }
+   
+   /**
+      Get the tokens of the base properties that are used for hash look-up: the words of
+      the name, card type, subtype, and artist, the subtext characters, the rarity, the
+      set name, and the year, all in uppercase
+      
+      This does not need an MTGCard, so that the tokens can also be gathered straight from
+      a snapshot of the card file
+      
+      @param baseList The list of base properties, starting with the line number
+      @return HashSet<String> The tokens of the base properties
+      @see setBaseProperties( String[] baseList )
+   */
+   public static HashSet<String> getBaseTokens( String[] baseList ) {
+      HashSet<String> baseSet = new HashSet<String>();
       
       //Add sublists
-      for( int i = 0; i < lists.length; i++ ) {
-         for( int j = 0; j < lists[i].length; j++ ) {
-            baseSet.add( lists[i][j] );
-         }
-      }
+      addTokens( baseList[1], ' ', true, baseSet );  //name
+      addTokens( baseList[2], ' ', false, baseSet ); //card type
+      addTokens( baseList[3], ' ', false, baseSet ); //subtype
+      addTokens( baseList[8], ' ', true, baseSet );  //artist
+      addTokens( baseList[12], '@', false, baseSet ); //subtext chars
       
       //Add single-item base properties
-      baseSet.add( RARITY.toUpperCase()   );
-      baseSet.add( SET_NAME.toUpperCase() );
-      baseSet.add( YEAR.toUpperCase()     );
+      baseSet.add( baseList[5].toUpperCase() ); //rarity
+      baseSet.add( baseList[7].toUpperCase() ); //set name
+      baseSet.add( baseList[9].toUpperCase() ); //year
       
       //Note that the base HashSet does not have MANA_COST, CARD_NUMBER, POWER, TOUGHNESS, EQUIP_COST, LOYALTY, or QUANTITY for hash look-up
       
-      /* @@@@@@@@@@@@@@@@@@@@@@@@@@@@@@ */
+      return baseSet;
    }
    
    /**
-      Sets the main color type of this card
+      Get the TOKENS codes of the subtext characters, in the order they are listed, as
+      toUpperCase().split("@") would give them
       
-      @param MANA_COST The mana cost of this card
+      @param subtext The subtext characters base property, separated by '@'
+      @return int[] The code of each subtext character
       @see setBaseProperties( String[] baseList )
    */
-   private void setColorType( String MANA_COST ) {
-      if(      MANA_COST.contains("R") ) COLOR_TYPE = "RED";
-      else if( MANA_COST.contains("U") ) COLOR_TYPE = "BLUE";
-      else if( MANA_COST.contains("G") ) COLOR_TYPE = "GREEN";
-      else if( MANA_COST.contains("W") ) COLOR_TYPE = "WHITE";
-      else if( MANA_COST.contains("B") ) COLOR_TYPE = "BLACK";
-      else                               COLOR_TYPE = "COLORLESS";
+   private static int[] encodeSubtext( String subtext ) {
+      String[] chars = subtext.toUpperCase().split("@");
+      int[] codes = new int[ chars.length ];
+      for( int i = 0; i < chars.length; i++ )
+         codes[i] = TOKENS.encode( chars[i] );
+      
+      return codes;
+   }
+   
+   /**
+      Get the TOKENS codes of a set of tokens, sorted so that a token can be found with a
+      binary search
+      
+      @param tokens The tokens
+      @return int[] The sorted codes of the tokens
+      @see hasBaseProperty( String token )
+   */
+   private static int[] encodeTokens( HashSet<String> tokens ) {
+      int[] codes = new int[ tokens.size() ];
+      int i = 0;
+      for( String token : tokens )
+         codes[ i++ ] = TOKENS.encode( token );
+      
+      Arrays.sort( codes );
+      return codes;
+   }
+   
+   /**
+      Splits a base property into uppercase tokens and adds them to a set, in a single pass
+      over the characters. This takes the place of a regex replaceAll, toUpperCase, and split,
+      which each create a new String or array for every base property of every card
+      
+      @param str The base property to split
+      @param separator The character between tokens, such as ' '
+      @param isLettersOnly True to leave out every character that is not a letter or whitespace,
+                           as MTGSearch.removeNonLettersWhitespace( String str ) does
+      @param tokens The set to add the tokens to. Empty tokens are not added
+      @see getBaseTokens( String[] baseList )
+      @see MTGNormalizer.tokenize( String str, char separator, int classes, Collection<String> tokens )
+   */
+   public static void addTokens( String str, char separator, boolean isLettersOnly, Collection<String> tokens ) {
+      MTGNormalizer.tokenize( str, separator, isLettersOnly ? MTGNormalizer.LETTER | MTGNormalizer.WHITESPACE : MTGNormalizer.ANY, tokens );
    }
    
    /**
@@ -167,17 +232,25 @@ public class MTGCard {
       @see setBaseProperties( String[] baseList )
    */
    private void setColorCost( String MANA_COST ) {
-      MANA_COST = MANA_COST.replaceAll("[^0-9X]+", " ");
       TOTAL_COST = 0;
       
-      if( MANA_COST.contains("X") ) {
-         TOTAL_COST = VARIABLE_COST;
-      } else {
-         String[] splitCost = MANA_COST.split(" ");
-         for( int i = 0; i < splitCost.length; i++ ) {
-            TOTAL_COST += Integer.parseInt( splitCost[i] );
+      //add up each run of digits, such as the 1s of '1N1G1B', in one pass
+      int number = 0;
+      for( int i = 0; i < MANA_COST.length(); i++ ) {
+         char c = MANA_COST.charAt(i);
+         if( c == 'X' ) {
+            TOTAL_COST = VARIABLE_COST;
+            return;
+         }
+         
+         if( c >= '0' && c <= '9' ) {
+            number = number * 10 + ( c - '0' );
+         } else {
+            TOTAL_COST += number;
+            number = 0;
          }
       }
+      TOTAL_COST += number;
    }
    
    /**
@@ -188,20 +261,29 @@ public class MTGCard {
       mtgWordList.xlsx and mtgWordList.txt lists, which can be seen in detail within
       the options menu when running the MTGSearch.java program
       
-      The properties within this list are populated to a HashSet for optimal look-up
-      performance
+      The properties come from the fixed vocabulary of the word list, so each is stored
+      as its PROPERTIES code, in a sorted array, which takes a few bytes per property
+      rather than a node of a HashSet
       
       @param properties The properties of this card. Each card typically varies in
                         their total properties
-      @see HashSet.add( Element e )
+      @see hasProperty( int code )
    */
    private void setProperties( String[] properties ) {
       propertiesSize = properties.length;
-      propertiesSet = new HashSet<String>( propertiesSize );
+      int[] codes = new int[ propertiesSize ];
       
       for( int i = 0; i < propertiesSize; i++ )
-         propertiesSet.add( properties[i] );
+         codes[i] = PROPERTIES.encode( properties[i] );
+      
+      Arrays.sort( codes );
       
+      //drop repeated properties, as the HashSet did
+      int size = 0;
+      for( int i = 0; i < codes.length; i++ )
+         if( size == 0 || codes[i] != codes[ size - 1 ] ) codes[ size++ ] = codes[i];
+      
+      propertiesSet = size == codes.length ? codes : Arrays.copyOf( codes, size );
    }
    
    /**
@@ -210,22 +292,22 @@ public class MTGCard {
       @see Arrays.toString( Object[] list )
    */
    public void printProperties() {
-      SOPln( "#" + LINE_NUMBER + ": "                 + NAME        );
-      SOPln( "\t\tCard Type:   "                      + CARD_TYPE   );
-      SOPln( "\t\tSubtype:     "                      + SUBTYPE     );
-      SOPln( "\t\tMana Cost:   "                      + MANA_COST   );
-      SOPln( "\t\tRarity:      "                      + RARITY      );
-      SOPln( "\t\tCard Number: "                      + CARD_NUMBER );
-      SOPln( "\t\tSet Name:    "                      + SET_NAME    );
-      SOPln( "\t\tArtist:      "                      + ARTIST      );
-      SOPln( "\t\tYear:        "                      + YEAR        );
-      SOPln( "\t\tPower:       "                      + POWER       );
-      SOPln( "\t\tToughness:   "                      + TOUGHNESS   );
-      SOPln( "\t\tSubtext Important Characters: "     + Arrays.toString( SUBTEXT_CHARS ) );
-      SOPln( "\t\tEquip Cost:  "                      + EQUIP_COST  );
-      SOPln( "\t\tLoyalty:     "                      + LOYALTY     );
-      SOPln( "\t\tQuantity:    "                      + QUANTITY    );
-      SOPln( "\t\tProperties:  "                      + propertiesSet + "\n"  );
+      SOPln( "#" + LINE_NUMBER + ": "                 + NAME             );
+      SOPln( "\t\tCard Type:   "                      + getCardType()    );
+      SOPln( "\t\tSubtype:     "                      + getSubtype()     );
+      SOPln( "\t\tMana Cost:   "                      + getManaCost()    );
+      SOPln( "\t\tRarity:      "                      + getRarity()      );
+      SOPln( "\t\tCard Number: "                      + getCardNumber()  );
+      SOPln( "\t\tSet Name:    "                      + getSetName()     );
+      SOPln( "\t\tArtist:      "                      + getArtist()      );
+      SOPln( "\t\tYear:        "                      + getYear()        );
+      SOPln( "\t\tPower:       "                      + getPower()       );
+      SOPln( "\t\tToughness:   "                      + getToughness()   );
+      SOPln( "\t\tSubtext Important Characters: "     + Arrays.toString( getSubtextChars() ) );
+      SOPln( "\t\tEquip Cost:  "                      + getEquipCost()   );
+      SOPln( "\t\tLoyalty:     "                      + getLoyalty()     );
+      SOPln( "\t\tQuantity:    "                      + getQuantity()    );
+      SOPln( "\t\tProperties:  "                      + getProperties() + "\n"  );
       
    }
    
@@ -234,53 +316,127 @@ public class MTGCard {
       
       @param property The String property to check against this card's properties
       @return boolean True if this card has the property, false otherwise
-      @see HashSet.contains( Object o )
+      @see hasProperty( int code )
    */
    public boolean hasProperty( String property ) {
-      if( propertiesSet.contains( property ) )
-         return true;
-         
-      return false;
+      return hasProperty( PROPERTIES.find( property ) );
+   }
+   
+   /**
+      Determines whether the MTGCard has the property with the given code, with a binary
+      search and no hashing, for callers that check the same property on many cards. Most
+      of the time of a check is taken by reading the card from memory rather than by the
+      search, see MTGHeapReport. To check a property against every card, use the BitSets
+      of MTGPropertyIndex instead
+      
+      @param code The code of the property, as given by getPropertyCode( String property )
+      @return boolean True if this card has the property, false otherwise
+   */
+   public boolean hasProperty( int code ) {
+      int[] codes = propertiesSet;
+      return code > MTGFieldDictionary.NULL_CODE && codes != null && Arrays.binarySearch( codes, code ) >= 0;
    }
    
    /**
-      Adds a property to this card
+      Adds a property to this card. The properties are copied on write: a new array is
+      made with the property in place, and then published, so that readers never take a
+      lock and never see a partly updated array
       
       @param The property to add
       @return boolean True if this card did not have this property, false if
                       it did have this property
-      @see HashSet.add( Element e )
    */
-   public boolean addProperty( String property ) {
-      return propertiesSet.add( property );
+   public synchronized boolean addProperty( String property ) {
+      int code = PROPERTIES.encode( property );
+      int[] codes = propertiesSet == null ? new int[0] : propertiesSet;
+      
+      int i = Arrays.binarySearch( codes, code );
+      if( i >= 0 ) return false;
+      
+      int at = -( i + 1 );
+      int[] added = new int[ codes.length + 1 ];
+      System.arraycopy( codes, 0, added, 0, at );
+      added[ at ] = code;
+      System.arraycopy( codes, at, added, at + 1, codes.length - at );
+      
+      propertiesSet = added;
+      return true;
    }
    
    /**
       Returns the total number of properties that this MTGCard contains
       
       @return int The total number of properties of this MTGCard
-      @see HashSet.size()
    */
    public int totalProperties() {
-      return propertiesSet.size();
+      int[] codes = propertiesSet;
+      return codes == null ? 0 : codes.length;
    }
    
    /**
-      Get the HashSet of base properties for this MTGCard
+      Get the HashSet of base properties for this MTGCard. The set is decoded from the
+      codes of the card on each call, so use hasBaseProperty( String token ) to check for
+      a single token
       
       @return HashSet<String> The list of base properties
    */
    public HashSet<String> getBaseProperties() {
-      return baseSet;
+      if( baseSet == null ) return null;
+      
+      HashSet<String> tokens = new HashSet<String>( baseSet.length * 2 );
+      for( int code : baseSet )
+         tokens.add( TOKENS.decode( code ) );
+      
+      return tokens;
+   }
+   
+   /**
+      Determines whether the MTGCard has the given base property token
+      
+      @param token The uppercase token, such as a word of the name
+      @return boolean True if the token is one of the base properties of this card, false otherwise
+      @see getBaseTokens( String[] baseList )
+   */
+   public boolean hasBaseProperty( String token ) {
+      int code = TOKENS.find( token );
+      return code > MTGFieldDictionary.NULL_CODE && baseSet != null && Arrays.binarySearch( baseSet, code ) >= 0;
    }
    
    /**
-      Get the HashSet of properties for this MTGCard
+      Get the HashSet of properties for this MTGCard. The set is decoded from the codes of
+      the card on each call, and changing it does not change the card
       
-      @return HashSet<String> The list of properties
+      @return HashSet<String> The list of properties, or null if the card could not be read
+      @see addProperty( String property )
    */
    public HashSet<String> getProperties() {
-      return propertiesSet;
+      int[] codes = propertiesSet;
+      if( codes == null ) return null;
+      
+      HashSet<String> properties = new HashSet<String>( codes.length * 2 );
+      for( int code : codes )
+         properties.add( PROPERTIES.decode( code ) );
+      
+      return properties;
+   }
+   
+   /**
+      Get the code of a property, to check for it on many cards with hasProperty( int code )
+      
+      @param property The property
+      @return int The code of the property, or -1 if no card has ever had it
+   */
+   public static int getPropertyCode( String property ) {
+      return PROPERTIES.find( property );
+   }
+   
+   /**
+      Gets the line number of this mtg card, as listed in the card file
+      
+      @return String The line number associated with this mtg card
+   */
+   public String getLineNumber() {
+      return LINE_NUMBER;
    }
    
    /**
@@ -289,7 +445,7 @@ public class MTGCard {
       @return String The image name associated with this mtg card
    */
    public String getImageName() {
-      return IMAGE_NAME;
+      return IMAGE_NAME == null && NAME != null ? NAME + ".jpg" : IMAGE_NAME;
    }
    
    /**
@@ -307,7 +463,7 @@ public class MTGCard {
       @return String The card type associated with this mtg card
    */
    public String getCardType() {
-      return CARD_TYPE;
+      return CARD_TYPES.decode( CARD_TYPE );
    }
    
    /**
@@ -316,7 +472,7 @@ public class MTGCard {
       @return String The subtype associated with this mtg card
    */
    public String getSubtype() {
-      return SUBTYPE;
+      return SUBTYPES.decode( SUBTYPE );
    }
    
    /**
@@ -325,7 +481,7 @@ public class MTGCard {
       @return String The mana cost associated with this mtg card
    */
    public String getManaCost() {
-      return MANA_COST;
+      return VALUES.decode( MANA_COST );
    }
    
    /**
@@ -334,7 +490,7 @@ public class MTGCard {
       @return String The rarity associated with this mtg card
    */
    public String getRarity() {
-      return RARITY;
+      return RARITIES.decode( RARITY );
    }
    
    /**
@@ -343,7 +499,7 @@ public class MTGCard {
       @return String The card number associated with this mtg card
    */
    public String getCardNumber() {
-      return CARD_NUMBER;
+      return VALUES.decode( CARD_NUMBER );
    }
    
    /**
@@ -352,7 +508,7 @@ public class MTGCard {
       @return String The set name associated with this mtg card
    */
    public String getSetName() {
-      return SET_NAME;
+      return SET_NAMES.decode( SET_NAME );
    }
    
    /**
@@ -361,7 +517,7 @@ public class MTGCard {
       @return String The artist associated with this mtg card
    */
    public String getArtist() {
-      return ARTIST;
+      return ARTISTS.decode( ARTIST );
    }
    
    /**
@@ -370,7 +526,7 @@ public class MTGCard {
       @return String The date associated with this mtg card
    */
    public String getYear() {
-      return YEAR;
+      return VALUES.decode( YEAR );
    }
    
    /**
@@ -379,7 +535,7 @@ public class MTGCard {
       @return String The power associated with this mtg card
    */
    public String getPower() {
-      return POWER;
+      return VALUES.decode( POWER );
    }
    
    /**
@@ -388,7 +544,7 @@ public class MTGCard {
       @return String The toughness associated with this mtg card
    */
    public String getToughness() {
-      return TOUGHNESS;
+      return VALUES.decode( TOUGHNESS );
    }
    
    /**
@@ -397,7 +553,13 @@ public class MTGCard {
       @return String[] The subtext characters associated with this mtg card
    */
    public String[] getSubtextChars() {
-      return SUBTEXT_CHARS;
+      if( SUBTEXT_CHARS == null ) return null;
+      
+      String[] chars = new String[ SUBTEXT_CHARS.length ];
+      for( int i = 0; i < chars.length; i++ )
+         chars[i] = TOKENS.decode( SUBTEXT_CHARS[i] );
+      
+      return chars;
    }
    
    /**
@@ -406,7 +568,7 @@ public class MTGCard {
       @return String The equip cost associated with this mtg card
    */
    public String getEquipCost() {
-      return EQUIP_COST;
+      return VALUES.decode( EQUIP_COST );
    }
    
    /**
@@ -415,7 +577,7 @@ public class MTGCard {
       @return String The loyalty associated with this mtg card
    */
    public String getLoyalty() {
-      return LOYALTY;
+      return VALUES.decode( LOYALTY );
    }
    
    /**
@@ -424,7 +586,67 @@ public class MTGCard {
       @return String The quantity associated with this mtg card
    */
    public String getQuantity() {
-      return QUANTITY;
+      return VALUES.decode( QUANTITY );
+   }
+   
+   /**
+      Gets the color type of this mtg card
+      
+      @return String The main color of this mtg card, such as RED, or COLORLESS
+      @see getColors()
+   */
+   public String getColorType() {
+      return COLORS == 0 ? null : MTGColors.mainColorOf( COLORS );
+   }
+   
+   /**
+      Gets every color of this mtg card
+      
+      @return int The colors of the mana cost, such as MTGColors.GREEN | MTGColors.BLACK,
+                  MTGColors.COLORLESS, or 0 if the card could not be read
+      @see MTGColors.java
+   */
+   public int getColors() {
+      return COLORS;
+   }
+   
+   /**
+      Gets the total mana cost of this mtg card
+      
+      @return int The mana costs added together, or VARIABLE_COST if the cost has an X
+   */
+   public int getTotalCost() {
+      return TOTAL_COST;
+   }
+   
+   /**
+      Get the dictionaries of the fields of the cards, for reports of their size
+      
+      @return MTGFieldDictionary[] The dictionaries, which are shared by every card
+      @see MTGHeapReport.java
+   */
+   public static MTGFieldDictionary[] getFieldDictionaries() {
+      return DICTIONARIES.clone();
+   }
+   
+   /**
+      Converts a numeric base property, such as power or year, to an int
+      
+      @param value The base property value, which is either digits or a placeholder such as "na"
+      @return int The value as an int, or VARIABLE_COST if the value is not a plain number
+      @see VARIABLE_COST
+   */
+   public static int toNumber( String value ) {
+      if( value == null || value.isEmpty() || value.length() > 9 ) return VARIABLE_COST;
+      
+      int number = 0;
+      for( int i = 0; i < value.length(); i++ ) {
+         char c = value.charAt(i);
+         if( c < '0' || c > '9' ) return VARIABLE_COST;
+         number = number * 10 + ( c - '0' );
+      }
+      
+      return number;
    }
 
    /**
@@ -0,0 +1,493 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+   MTGCardLoader.java
+   
+   Parses a card file, such as mtgCards.txt, in parallel.
+   
+   The file is memory-mapped and split into byte ranges, one per chunk. Each range boundary
+   is moved forward to the start of the next card record, which is the line with the base
+   properties (the only lines with '|'s), so that no record is split between chunks. The
+   chunks are parsed on a fork-join pool, and their cards are then put together in file
+   order, so the ordinal of every card is the same as when the file is parsed sequentially.
+   
+   A loader can also start part way through a card file, at the end of the cards read
+   before, so that only the cards appended since are parsed. The end of the cards read, and
+   a checksum of everything before it, are kept so that a later load can tell whether the
+   card file has only been appended to since. See isAppendOnly( String fileName, long end,
+   long checksum )
+   
+   The time taken by each chunk is kept, and can be printed with printTimings()
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCatalogSnapshot.java
+   @see MTGCard.java
+   @see mtgCards.txt
+*/
+public class MTGCardLoader {
+   
+   //Smallest number of bytes worth parsing as a separate chunk
+   private static final int MIN_CHUNK_SIZE = 1 << 16;
+   
+   //Chunks per worker, so that a slow chunk does not hold up the load
+   private static final int CHUNKS_PER_WORKER = 4;
+   
+   //Largest card file, since a file is mapped as a single buffer, which is indexed by int
+   public static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+   
+   private static final String TEXT_FILE = "./mtgCards.txt";
+   
+   private static final byte NEW_LINE = '\n';
+   private static final byte BASE_SEPARATOR = '|';
+   private static final byte PROPERTY_SEPARATOR = ',';
+   
+   private final ArrayList<String[]> baseProperties = new ArrayList<String[]>();
+   private final ArrayList<String[]> properties = new ArrayList<String[]>();
+   private final ArrayList<MTGCard> cards = new ArrayList<MTGCard>();
+   private final ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+   private long totalNanos;
+   
+   //End of the cards read, and the checksum of everything before it
+   private final long end;
+   private final long checksum;
+   
+   /**
+      Load every card of a card file, using the common fork-join pool
+      
+      @param fileName The name of the card file. See 'mtgCards.txt'
+      @throws IOException If the card file cannot be read, or a chunk fails to parse
+      @see MTGCardLoader( String fileName, ForkJoinPool pool )
+   */
+   public MTGCardLoader( String fileName ) throws IOException {
+      this( fileName, ForkJoinPool.commonPool() );
+   }
+   
+   /**
+      Load every card of a card file. The card file has a header line, and then two lines
+      per card: the base properties, separated by '|'s, and the properties, separated by ','s
+      
+      @param fileName The name of the card file. See 'mtgCards.txt'
+      @param pool The pool to parse the chunks on
+      @throws IOException If the card file cannot be read, or a chunk fails to parse
+      @see MTGCardLoader( String fileName, long from, ForkJoinPool pool )
+   */
+   public MTGCardLoader( String fileName, ForkJoinPool pool ) throws IOException {
+      this( fileName, 0, pool );
+   }
+   
+   /**
+      Load the cards appended to a card file after the given position, using the common
+      fork-join pool
+      
+      @param fileName The name of the card file. See 'mtgCards.txt'
+      @param from The end of the cards read before, or 0 to load every card
+      @throws IOException If the card file cannot be read, or a chunk fails to parse
+      @see MTGCardLoader( String fileName, long from, ForkJoinPool pool )
+   */
+   public MTGCardLoader( String fileName, long from ) throws IOException {
+      this( fileName, from, ForkJoinPool.commonPool() );
+   }
+   
+   /**
+      Load the cards of a card file from the given position. A load from the start skips
+      the header line. A load from part way through the file stops before a card record
+      whose properties line has not been written yet, so that a card being appended is left
+      for the next load
+      
+      @param fileName The name of the card file. See 'mtgCards.txt'
+      @param from The end of the cards read before, which is the start of a line, or 0 to load every card
+      @param pool The pool to parse the chunks on
+      @throws IOException If the card file cannot be read, is shorter than from, is larger than
+                          MAX_FILE_SIZE, or a chunk fails to parse
+      @see findChunkStarts( ByteBuffer file, int start, int end, int totalChunks )
+   */
+   public MTGCardLoader( String fileName, long from, ForkJoinPool pool ) throws IOException {
+      long startTime = System.nanoTime();
+      
+      ByteBuffer file;
+      try( RandomAccessFile randomAccessFile = new RandomAccessFile( fileName, "r" ); FileChannel channel = randomAccessFile.getChannel() ) {
+         if( channel.size() > MAX_FILE_SIZE ) throw new IOException( fileName + " is " + channel.size() + " bytes, more than the " + MAX_FILE_SIZE +
+                                                                     " bytes a card file can be mapped in. Split it into several card files instead");
+         file = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+      }
+      if( from > file.limit() ) throw new IOException( fileName + " is shorter than the " + from + " bytes read before");
+      
+      int start = from == 0 ? nextLine( file, 0 ) : (int) from; //skip first line
+      int stop = from == 0 ? file.limit() : endOfRecords( file, start );
+      
+      int totalChunks = Math.max( 1, Math.min( ( stop - start ) / MIN_CHUNK_SIZE, pool.getParallelism() * CHUNKS_PER_WORKER ) );
+      int[] chunkStarts = findChunkStarts( file, start, stop, totalChunks );
+      
+      ArrayList<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+      for( int i = 0; i + 1 < chunkStarts.length; i++ ) {
+         if( chunkStarts[i] == chunkStarts[ i + 1 ] ) continue; //a record longer than the chunk
+         
+         final ByteBuffer slice = file.duplicate().position( chunkStarts[i] ).limit( chunkStarts[ i + 1 ] ).slice();
+         final int chunkStart = chunkStarts[i];
+         tasks.add( () -> new Chunk( slice, chunkStart ) );
+      }
+      
+      //Chunks are joined in the order they were submitted, which is file order
+      try {
+         for( Future<Chunk> future : pool.invokeAll( tasks ) ) {
+            Chunk chunk = future.get();
+            baseProperties.addAll( chunk.baseProperties );
+            properties.addAll( chunk.properties );
+            cards.addAll( chunk.cards );
+            chunks.add( chunk );
+         }
+      } catch( InterruptedException e ) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while loading " + fileName );
+      } catch( ExecutionException e ) {
+         throw new IOException("Could not load " + fileName + ": " + e.getCause().getMessage(), e.getCause() );
+      }
+      
+      end = stop;
+      checksum = checksumOf( file, stop );
+      totalNanos = System.nanoTime() - startTime;
+   }
+   
+   /**
+      Finds where each chunk starts. The byte range is split into equal byte ranges, and each
+      range start is moved forward to the start of the next card record
+      
+      @param file The bytes of the card file
+      @param start The start of the first card record to load
+      @param end The end of the last card record to load
+      @param totalChunks The number of chunks to split the range into
+      @return int[] The start of each chunk, followed by the end of the range
+   */
+   private static int[] findChunkStarts( ByteBuffer file, int start, int end, int totalChunks ) {
+      int[] chunkStarts = new int[ totalChunks + 1 ];
+      chunkStarts[0] = start;
+      chunkStarts[ totalChunks ] = end;
+      
+      for( int i = 1; i < totalChunks; i++ ) {
+         int position = Math.max( chunkStarts[ i - 1 ], start + (int) ( (long) ( end - start ) * i / totalChunks ) );
+         
+         //move to the start of a line, and then to the next line holding base properties
+         if( position > 0 && file.get( position - 1 ) != NEW_LINE ) position = nextLine( file, position );
+         while( position < end && !isBaseLine( file, position ) )
+            position = nextLine( file, position );
+         
+         chunkStarts[i] = Math.min( position, end );
+      }
+      
+      return chunkStarts;
+   }
+   
+   /**
+      Finds the end of the last whole card record from a position: the end of the file,
+      unless the last base properties line has no properties line after it yet
+      
+      @param file The bytes of the card file
+      @param start The start of a line
+      @return int The start of the base properties line of an unfinished record, or the end of the file
+   */
+   private static int endOfRecords( ByteBuffer file, int start ) {
+      int end = file.limit();
+      int position = start;
+      while( position < end ) {
+         int lineEnd = nextLine( file, position );
+         
+         //as in the chunks, blank lines between records are skipped, and the line after the
+         //base properties is the properties line, even if it is blank
+         if( !isBlankLine( file, position ) ) {
+            if( lineEnd >= end ) return position;
+            
+            lineEnd = nextLine( file, lineEnd );
+         }
+         position = lineEnd;
+      }
+      
+      return end;
+   }
+   
+   /**
+      Determines whether a card file has only had cards appended to it since it was read up
+      to the given position: it is at least as long, everything before the position is the
+      same, and the last line read has not been written on past where it ended. Every byte
+      before the position is checked, so that an edit to any card read is found, which
+      takes a single pass over the file, but no parsing
+      
+      @param fileName The name of the card file
+      @param end The end of the cards read before, as given by getEnd()
+      @param checksum The checksum of everything before the end, as given by getChecksum()
+      @return boolean True if only whole lines have been added after the end, false otherwise
+      @throws IOException If the card file cannot be read
+   */
+   public static boolean isAppendOnly( String fileName, long end, long checksum ) throws IOException {
+      try( RandomAccessFile randomAccessFile = new RandomAccessFile( fileName, "r" ); FileChannel channel = randomAccessFile.getChannel() ) {
+         if( channel.size() < end || end > MAX_FILE_SIZE ) return false;
+         if( end == 0 ) return true;
+         
+         //only the cards read, and the byte after them, are read
+         ByteBuffer file = channel.map( FileChannel.MapMode.READ_ONLY, 0, Math.min( channel.size(), end + 1 ) );
+         
+         //a line that did not end with a new line must not have been written on since
+         boolean isLineEnd = file.limit() == end || file.get( (int) end - 1 ) == NEW_LINE ||
+                             file.get( (int) end ) == NEW_LINE || file.get( (int) end ) == '\r';
+         return isLineEnd && checksumOf( file, (int) end ) == checksum;
+      }
+   }
+   
+   /**
+      Get the checksum of everything before a position of a card file
+      
+      @param file The bytes of the card file
+      @param end The end of the cards read
+      @return long The CRC32 checksum of the bytes before the end
+      @see MTGCatalogSnapshot.checksumOf( String fileName )
+   */
+   private static long checksumOf( ByteBuffer file, int end ) {
+      CRC32 crc = new CRC32();
+      crc.update( file.duplicate().position( 0 ).limit( end ) );
+      return crc.getValue();
+   }
+   
+   /**
+      Determines whether the line at the given position has nothing but whitespace
+      
+      @param file The bytes of the card file
+      @param position The start of a line
+      @return boolean True if the line is blank, false otherwise
+   */
+   private static boolean isBlankLine( ByteBuffer file, int position ) {
+      int end = file.limit();
+      for( ; position < end && file.get( position ) != NEW_LINE; position++ )
+         if( ( file.get( position ) & 0xFF ) > ' ' ) return false;
+      
+      return true;
+   }
+   
+   /**
+      Finds the start of the line after the given position
+      
+      @param file The bytes of the card file
+      @param position A position within a line
+      @return int The start of the next line, or the end of the file
+   */
+   private static int nextLine( ByteBuffer file, int position ) {
+      int end = file.limit();
+      while( position < end && file.get( position ) != NEW_LINE )
+         position++;
+      
+      return Math.min( position + 1, end );
+   }
+   
+   /**
+      Determines whether the line at the given position holds the base properties of a card
+      
+      @param file The bytes of the card file
+      @param position The start of a line
+      @return boolean True if the line has a '|', false otherwise
+   */
+   private static boolean isBaseLine( ByteBuffer file, int position ) {
+      int end = file.limit();
+      for( ; position < end && file.get( position ) != NEW_LINE; position++ )
+         if( file.get( position ) == BASE_SEPARATOR ) return true;
+      
+      return false;
+   }
+   
+   /**
+      Get the base properties of every card, in file order
+      
+      @return List<String[]> The base properties of each card, starting with the line number
+   */
+   public List<String[]> getBaseProperties() {
+      return baseProperties;
+   }
+   
+   /**
+      Get the properties of every card, in file order
+      
+      @return List<String[]> The properties of each card
+   */
+   public List<String[]> getProperties() {
+      return properties;
+   }
+   
+   /**
+      Get every card, in file order
+      
+      @return List<MTGCard> The cards
+   */
+   public List<MTGCard> getCards() {
+      return cards;
+   }
+   
+   /**
+      Get the end of the cards read, which is where a later load of the cards appended
+      after them starts
+      
+      @return long The position after the last whole card record read
+   */
+   public long getEnd() {
+      return end;
+   }
+   
+   /**
+      Get the checksum of the card file up to the end of the cards read, which is the same
+      for a load from the start and a load of the cards appended after it
+      
+      @return long The CRC32 checksum of everything before getEnd()
+      @see isAppendOnly( String fileName, long end, long checksum )
+   */
+   public long getChecksum() {
+      return checksum;
+   }
+   
+   /**
+      Returns the total number of cards loaded
+      
+      @return int The total number of cards
+   */
+   public int totalCards() {
+      return cards.size();
+   }
+   
+   /**
+      Prints how long each chunk took to parse, and how long the whole load took
+   */
+   public void printTimings() {
+      for( int i = 0; i < chunks.size(); i++ ) {
+         Chunk chunk = chunks.get(i);
+         SOPln("Chunk " + i + ": bytes " + chunk.start + "-" + ( chunk.start + chunk.size ) + ", " + chunk.cards.size() +
+               " cards, " + String.format( "%.3f", chunk.nanos / 1e6 ) + " ms on " + chunk.threadName );
+      }
+      SOPln("Loaded " + cards.size() + " cards in " + chunks.size() + " chunks in " + String.format( "%.3f", totalNanos / 1e6 ) + " ms");
+   }
+   
+   /**
+      Loads a card file and prints the time taken by each chunk
+      
+      @param args The name of the card file, which is './mtgCards.txt' if not given
+   */
+   public static void main( String[] args ) {
+      String fileName = args.length > 0 ? args[0] : TEXT_FILE;
+      try {
+         new MTGCardLoader( fileName ).printTimings();
+      } catch( IOException e ) {
+         e.printStackTrace();
+      }
+   }
+   
+   /**
+      The cards of one byte range of the card file
+   */
+   private static class Chunk {
+      
+      private final ArrayList<String[]> baseProperties = new ArrayList<String[]>();
+      private final ArrayList<String[]> properties = new ArrayList<String[]>();
+      private final ArrayList<MTGCard> cards = new ArrayList<MTGCard>();
+      private final int start, size;
+      private final long nanos;
+      private final String threadName;
+      
+      /**
+         Parse the cards of a byte range, which starts at a card record and ends at a card
+         record or at the end of the file.
+         
+         The lines are never turned into Strings: the delimiters are found by scanning the
+         bytes, and each field is handed straight to the interner of the chunk
+         
+         @param bytes The bytes of the chunk
+         @param start The position of the chunk within the card file
+         @throws IOException If a card is missing its properties line
+         @see MTGByteInterner.intern( ByteBuffer bytes, int start, int end )
+      */
+      private Chunk( ByteBuffer bytes, int start ) throws IOException {
+         long startTime = System.nanoTime();
+         this.start = start;
+         this.size = bytes.limit();
+         MTGByteInterner interner = new MTGByteInterner();
+         
+         int position = 0;
+         while( position < size ) {
+            int lineEnd = nextLine( bytes, position );
+            String[] baseList = split( bytes, position, lineEnd, BASE_SEPARATOR, interner );
+            position = lineEnd;
+            if( baseList == null ) continue; //blank line
+            
+            //check that the properties exist for this card
+            if( position >= size ) throw new IOException("Expected additional line for base properties after byte " + ( start + lineEnd ) );
+            
+            lineEnd = nextLine( bytes, position );
+            String[] propertyList = split( bytes, position, lineEnd, PROPERTY_SEPARATOR, interner );
+            if( propertyList == null ) propertyList = new String[]{ "" };
+            position = lineEnd;
+            
+            baseProperties.add( baseList );
+            properties.add( propertyList );
+            cards.add( new MTGCard( baseList, baseList[1] + ".jpg", propertyList ) );
+         }
+         
+         nanos = System.nanoTime() - startTime;
+         threadName = Thread.currentThread().getName();
+      }
+      
+      /**
+         Splits a line into its fields by scanning its bytes. The line is trimmed first, and
+         empty fields at the end of the line are dropped, as String.trim() and String.split()
+         would do
+         
+         @param bytes The bytes of the chunk
+         @param start The start of the line
+         @param end The end of the line, after its new line
+         @param separator The byte between fields, such as '|'
+         @param interner The interner to turn the fields into Strings
+         @return String[] The fields of the line, or null if the line is blank
+      */
+      private static String[] split( ByteBuffer bytes, int start, int end, byte separator, MTGByteInterner interner ) {
+         while( start < end && ( bytes.get( start ) & 0xFF ) <= ' ' )
+            start++;
+         while( end > start && ( bytes.get( end - 1 ) & 0xFF ) <= ' ' )
+            end--;
+         if( start == end ) return null;
+         
+         //count the fields, leaving out empty fields at the end
+         int totalFields = 0, field = 0, fieldStart = start;
+         for( int i = start; i <= end; i++ ) {
+            if( i == end || bytes.get(i) == separator ) {
+               if( i > fieldStart ) totalFields = field + 1;
+               field++;
+               fieldStart = i + 1;
+            }
+         }
+         
+         String[] fields = new String[ totalFields ];
+         fieldStart = start;
+         field = 0;
+         for( int i = start; field < totalFields; i++ ) {
+            if( i == end || bytes.get(i) == separator ) {
+               fields[ field++ ] = interner.intern( bytes, fieldStart, i );
+               fieldStart = i + 1;
+            }
+         }
+         
+         return fields;
+      }
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
@@ -0,0 +1,286 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+   MTGCatalogGenerator.java
+   
+   Writes card files of any size whose cards look like those of mtgCards.txt, for testing
+   the load and the searches at sizes the real card file never reaches.
+   
+   The distributions are learned from a source card file. Each card written starts from a
+   card of the source, picked at random, which keeps the card type, subtype, rarity, power,
+   toughness, and the other fields that go together. The rest is drawn again:
+   
+   1) mana cost   A cost of a source card of the same card type and the same colors, so the
+                  shape of the cost varies while its colors still match the card
+   2) set, year   A set of a source card, with its year, and a card number within the set
+   3) artist      The artist of a source card
+   4) name        The start of the name of one source card and the end of another's
+   5) properties  The properties of the starting card, and sometimes one more, picked by
+                  how often it is found together with one of the others, or one fewer
+   
+   Only the source cards with every base property are learned from, so every card written
+   is well formed. The cards are written as they are made, in the same two line format as
+   the source, so a file of 10 million cards takes no more memory than one of 10 thousand.
+   The same seed always writes the same file.
+   
+   Usage: java MTGCatalogGenerator <total cards> [output file] [seed] [source card file]
+   
+   Totals may end in k or m, such as 100k or 10m
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see mtgCards.txt
+   @see MTGLoadTest.java
+*/
+public class MTGCatalogGenerator {
+   
+   private static final String TEXT_FILE = "./mtgCards.txt";
+   private static final long DEFAULT_SEED = 1;
+   
+   //Chance of a card getting one more property, and of it losing one
+   private static final double ADD_PROPERTY_CHANCE = 0.25;
+   private static final double DROP_PROPERTY_CHANCE = 0.10;
+   
+   //Columns of the base properties
+   private static final int NAME = 1, CARD_TYPE = 2, MANA_COST = 4, CARD_NUMBER = 6, SET_NAME = 7, ARTIST = 8, YEAR = 9;
+   
+   private final String header;
+   private final ArrayList<String[]> baseLists = new ArrayList<String[]>();
+   private final ArrayList<String[]> propertyLists = new ArrayList<String[]>();
+   
+   //Costs of the source cards by card type and colors, so that picking from a list picks by frequency
+   private final HashMap<String, ArrayList<String>> costsByShape = new HashMap<String, ArrayList<String>>();
+   
+   //Properties found on a card with each property, once per card they share
+   private final HashMap<String, ArrayList<String>> cooccurrences = new HashMap<String, ArrayList<String>>();
+   
+   //Highest card number of each set
+   private final HashMap<String, Integer> setSizes = new HashMap<String, Integer>();
+   
+   //Start and end of each name: the words before the last one, and the last one
+   private final ArrayList<String> nameStarts = new ArrayList<String>();
+   private final ArrayList<String> nameEnds = new ArrayList<String>();
+   
+   /**
+      Learn the distributions of a source card file
+      
+      @param sourceFileName The name of the card file to learn from. See 'mtgCards.txt'
+      @throws IOException If the source card file cannot be read, or has no well formed cards
+   */
+   public MTGCatalogGenerator( String sourceFileName ) throws IOException {
+      try( BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( sourceFileName ), StandardCharsets.UTF_8 ) ) ) {
+         header = reader.readLine();
+      }
+      
+      MTGCardLoader loader = new MTGCardLoader( sourceFileName );
+      for( int i = 0; i < loader.totalCards(); i++ ) {
+         String[] baseList = loader.getBaseProperties().get(i);
+         if( baseList.length != MTGCard.BASE_PROPERTIES_SIZE ) continue;
+         
+         String[] properties = loader.getProperties().get(i);
+         baseLists.add( baseList );
+         propertyLists.add( properties );
+         
+         costsByShape.computeIfAbsent( shapeOf( baseList ), key -> new ArrayList<String>() ).add( baseList[ MANA_COST ] );
+         setSizes.merge( baseList[ SET_NAME ], Math.max( 1, toInt( baseList[ CARD_NUMBER ] ) ), Math::max );
+         
+         for( String property : properties )
+            for( String other : properties )
+               if( !other.equals( property ) ) cooccurrences.computeIfAbsent( property, key -> new ArrayList<String>() ).add( other );
+         
+         String name = baseList[ NAME ].strip();
+         int lastSpace = name.lastIndexOf(' ');
+         if( lastSpace > 0 ) {
+            nameStarts.add( name.substring( 0, lastSpace ) );
+            nameEnds.add( name.substring( lastSpace + 1 ) );
+         }
+      }
+      
+      if( baseLists.isEmpty() ) throw new IOException( sourceFileName + " has no cards with every base property");
+      if( nameStarts.isEmpty() ) nameStarts.add("Card");
+      if( nameEnds.isEmpty() ) nameEnds.add("Card");
+   }
+   
+   /**
+      Writes a card file
+      
+      @param fileName The name of the card file to write
+      @param totalCards The number of cards to write
+      @param seed The seed of the random choices
+      @throws IOException If the card file cannot be written
+   */
+   public void write( String fileName, long totalCards, long seed ) throws IOException {
+      try( Writer out = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( fileName ), StandardCharsets.UTF_8 ), 1 << 16 ) ) {
+         write( out, totalCards, seed );
+      }
+   }
+   
+   /**
+      Writes the header line, and then the given number of cards
+      
+      @param out Where to write the cards
+      @param totalCards The number of cards to write
+      @param seed The seed of the random choices
+      @throws IOException If the cards cannot be written
+   */
+   public void write( Writer out, long totalCards, long seed ) throws IOException {
+      SplittableRandom random = new SplittableRandom( seed );
+      StringBuilder line = new StringBuilder();
+      
+      out.write( header );
+      out.write('\n');
+      for( long lineNumber = 1; lineNumber <= totalCards; lineNumber++ ) {
+         int template = random.nextInt( baseLists.size() );
+         String[] baseList = baseLists.get( template ).clone();
+         String[] source = baseLists.get( random.nextInt( baseLists.size() ) );
+         
+         baseList[0] = Long.toString( lineNumber );
+         baseList[ NAME ] = pick( nameStarts, random ) + " " + pick( nameEnds, random );
+         baseList[ MANA_COST ] = pick( costsByShape.get( shapeOf( baseList ) ), random );
+         baseList[ SET_NAME ] = source[ SET_NAME ];
+         baseList[ YEAR ] = source[ YEAR ];
+         baseList[ CARD_NUMBER ] = Integer.toString( 1 + random.nextInt( setSizes.get( source[ SET_NAME ] ) ) );
+         baseList[ ARTIST ] = baseLists.get( random.nextInt( baseLists.size() ) )[ ARTIST ];
+         
+         line.setLength(0);
+         for( int i = 0; i < baseList.length; i++ ) {
+            if( i > 0 ) line.append('|');
+            line.append( baseList[i] );
+         }
+         line.append('\n');
+         
+         line.append( String.join( ",", propertiesOf( propertyLists.get( template ), random ) ) );
+         line.append('\n');
+         out.append( line );
+      }
+   }
+   
+   /**
+      Get the properties of a card made from a source card: its properties, and sometimes
+      one more that is often found with them, or one fewer
+      
+      @param properties The properties of the source card
+      @param random The random choices
+      @return List<String> The properties of the new card
+   */
+   private List<String> propertiesOf( String[] properties, SplittableRandom random ) {
+      LinkedHashSet<String> chosen = new LinkedHashSet<String>( Arrays.asList( properties ) );
+      if( properties.length == 0 ) return new ArrayList<String>( chosen );
+      
+      if( random.nextDouble() < ADD_PROPERTY_CHANCE ) {
+         ArrayList<String> others = cooccurrences.get( properties[ random.nextInt( properties.length ) ] );
+         if( others != null ) chosen.add( pick( others, random ) );
+      }
+      
+      ArrayList<String> list = new ArrayList<String>( chosen );
+      if( list.size() > 1 && random.nextDouble() < DROP_PROPERTY_CHANCE ) list.remove( random.nextInt( list.size() ) );
+      
+      return list;
+   }
+   
+   /**
+      Get the shape of the cost of a card: its card type, and the colors of its mana cost,
+      with X counted as a color, since an X cost goes with properties such as 'hasXCost'
+      
+      @param baseList The base properties of the card
+      @return String The card type and the sorted letters of the cost, other than N for generic mana
+   */
+   private static String shapeOf( String[] baseList ) {
+      TreeSet<Character> colors = new TreeSet<Character>();
+      String cost = baseList[ MANA_COST ];
+      for( int i = 0; i < cost.length(); i++ )
+         if( Character.isLetter( cost.charAt(i) ) && cost.charAt(i) != 'N' ) colors.add( cost.charAt(i) );
+      
+      return baseList[ CARD_TYPE ] + "|" + colors;
+   }
+   
+   /**
+      Get a random entry of a list
+      
+      @param list The list
+      @param random The random choices
+      @return String The entry
+   */
+   private static String pick( List<String> list, SplittableRandom random ) {
+      return list.get( random.nextInt( list.size() ) );
+   }
+   
+   /**
+      Get the number of a card number, such as 223 for '223' or 12 for '12a'
+      
+      @param str The card number
+      @return int The number, or 0 if it has no digits
+   */
+   private static int toInt( String str ) {
+      String digits = MTGNormalizer.keep( str, MTGNormalizer.DIGIT );
+      if( digits.isEmpty() || digits.length() > 9 ) return 0;
+      
+      return Integer.parseInt( digits );
+   }
+   
+   /**
+      Get a number of cards, such as 10000 for '10k' or 10000000 for '10m'
+      
+      @param str The number of cards
+      @return long The number of cards
+      @throws NumberFormatException If the number is not a whole number, with or without k or m
+   */
+   public static long parseTotal( String str ) {
+      String total = str.trim().toLowerCase();
+      long scale = 1;
+      if(      total.endsWith("k") ) scale = 1_000;
+      else if( total.endsWith("m") ) scale = 1_000_000;
+      if( scale > 1 ) total = total.substring( 0, total.length() - 1 );
+      
+      return Long.parseLong( total ) * scale;
+   }
+   
+   /**
+      Writes a card file
+      
+      @param args The number of cards, the output file, the seed, and the source card file
+   */
+   public static void main( String[] args ) {
+      if( args.length < 1 ) {
+         SOPln("Usage: java MTGCatalogGenerator <total cards> [output file] [seed] [source card file]");
+         return;
+      }
+      
+      long totalCards = parseTotal( args[0] );
+      String fileName = args.length > 1 ? args[1] : "./mtgCards-" + args[0].trim().toLowerCase() + ".txt";
+      long seed = args.length > 2 ? Long.parseLong( args[2] ) : DEFAULT_SEED;
+      String sourceFileName = args.length > 3 ? args[3] : TEXT_FILE;
+      
+      try {
+         long startTime = System.nanoTime();
+         new MTGCatalogGenerator( sourceFileName ).write( fileName, totalCards, seed );
+         SOPln("Wrote " + totalCards + " cards to " + fileName + " in " + MTGJson.toMillis( System.nanoTime() - startTime ) + " ms");
+      } catch( IOException e ) {
+         e.printStackTrace();
+      }
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
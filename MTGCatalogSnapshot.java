@@ -0,0 +1,484 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+   MTGCatalogSnapshot.java
+   
+   Binary snapshot of a card file, such as mtgCards.txt, for fast start up.
+   
+   The card file stays the source of truth. The snapshot is compiled from it once, and is
+   memory-mapped by every later session, so that starting up no longer parses the card
+   file. The snapshot holds the checksum of the card file it was compiled from, and is
+   compiled again whenever the checksum no longer matches, or the snapshot is not as long
+   as its header says, such as after a crash part way through writing it. A new snapshot
+   is written to a temporary file and then moved over the old one, so a snapshot that
+   another query has mapped is never written over.
+   
+   The snapshot is laid out as follows (all ints are big-endian):
+   
+   Header:            magic, version, card file checksum (long), card file length (long),
+                      total cards, total strings, total properties, total field IDs,
+                      total property IDs, snapshot length (long)
+   Numeric columns:   one fixed-width int column per numeric attribute, including the
+                      color mask and the color pip counts, each with one value per
+                      card. Values that are not numbers are VARIABLE_COST
+   Field offsets:     total cards + 1 ints, indexing into the field IDs
+   Field IDs:         the string ID of each base property of each card, in file order
+   Property offsets:  total cards + 1 ints, indexing into the property IDs
+   Property IDs:      the property ID of each property of each card
+   Property names:    the string ID of each property ID
+   String offsets:    total strings + 1 ints, indexing into the string data
+   String data:       UTF-8 bytes of every distinct string
+   
+   Cards are read lazily: a card is only turned into an MTGCard when it is asked for
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+   @see MTGCard.java
+   @see mtgCards.txt
+*/
+public class MTGCatalogSnapshot {
+   
+   private static final int MAGIC = 0x4D544743; //MTGC
+   private static final int VERSION = 4;
+   private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 * 5 + 8;
+   private static final int LENGTH_POSITION = HEADER_SIZE - 8;
+   
+   private final ByteBuffer buffer;
+   private final long checksum;
+   private final int totalCards, totalStrings, totalProperties;
+   
+   //Section positions
+   private final int numericStart, fieldOffsetsStart, fieldIDsStart, propertyOffsetsStart,
+                     propertyIDsStart, propertyNamesStart, stringOffsetsStart, stringDataStart;
+   
+   //Strings are decoded the first time they are needed
+   private final String[] stringCache;
+   
+   /**
+      Read the sections of a snapshot
+      
+      @param buffer The bytes of the snapshot, either memory-mapped or on the heap
+      @see open( String fileName )
+   */
+   private MTGCatalogSnapshot( ByteBuffer buffer ) {
+      this.buffer = buffer;
+      checksum = buffer.getLong( 8 );
+      totalCards = buffer.getInt( 24 );
+      totalStrings = buffer.getInt( 28 );
+      totalProperties = buffer.getInt( 32 );
+      int totalFieldIDs = buffer.getInt( 36 );
+      int totalPropertyIDs = buffer.getInt( 40 );
+      
+      numericStart = HEADER_SIZE;
+      fieldOffsetsStart = numericStart + 4 * MTGNumericColumns.TOTAL_COLUMNS * totalCards;
+      fieldIDsStart = fieldOffsetsStart + 4 * ( totalCards + 1 );
+      propertyOffsetsStart = fieldIDsStart + 4 * totalFieldIDs;
+      propertyIDsStart = propertyOffsetsStart + 4 * ( totalCards + 1 );
+      propertyNamesStart = propertyIDsStart + 4 * totalPropertyIDs;
+      stringOffsetsStart = propertyNamesStart + 4 * totalProperties;
+      stringDataStart = stringOffsetsStart + 4 * ( totalStrings + 1 );
+      
+      stringCache = new String[ totalStrings ];
+   }
+   
+   /**
+      Open the snapshot of the given card file. The snapshot is stored next to the card
+      file, and is compiled first if it is missing, has a different version, is cut short, or
+      was compiled from different card file contents. If the snapshot cannot be written, the
+      compiled snapshot is used from memory instead
+      
+      @param fileName The name of the card file. See 'mtgCards.txt'
+      @return MTGCatalogSnapshot The snapshot of the card file
+      @throws IOException If the card file cannot be read
+      @see compile( String fileName )
+   */
+   public static MTGCatalogSnapshot open( String fileName ) throws IOException {
+      File snapshotFile = getSnapshotFile( fileName );
+      long checksum = checksumOf( fileName );
+      
+      if( snapshotFile.isFile() ) {
+         try( RandomAccessFile file = new RandomAccessFile( snapshotFile, "r" ); FileChannel channel = file.getChannel() ) {
+            if( channel.size() >= HEADER_SIZE ) {
+               MappedByteBuffer mapped = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+               if( mapped.getInt(0) == MAGIC && mapped.getInt(4) == VERSION && mapped.getLong(8) == checksum &&
+                   mapped.getLong( LENGTH_POSITION ) == channel.size() )
+                  return new MTGCatalogSnapshot( mapped );
+            }
+         }
+      }
+      
+      ByteBuffer compiled = compile( fileName );
+      
+      try {
+         write( compiled, snapshotFile );
+         try( RandomAccessFile file = new RandomAccessFile( snapshotFile, "r" ); FileChannel channel = file.getChannel() ) {
+            return new MTGCatalogSnapshot( channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+         }
+      } catch( IOException e ) {
+         SOPln("Could not write " + snapshotFile.getPath() + ", using the snapshot from memory: " + e.getMessage() );
+         return new MTGCatalogSnapshot( compiled );
+      }
+   }
+   
+   /**
+      Writes a snapshot to a temporary file next to the snapshot file, and then moves it over
+      the snapshot file in one step, so that the snapshot file is never seen half written
+      
+      @param compiled The bytes of the snapshot
+      @param snapshotFile The snapshot file
+      @throws IOException If the snapshot cannot be written, or cannot be moved in one step
+   */
+   private static void write( ByteBuffer compiled, File snapshotFile ) throws IOException {
+      Path target = snapshotFile.getAbsoluteFile().toPath();
+      //named for the process and thread, so that two writers never share a temporary file
+      Path temporary = target.resolveSibling( snapshotFile.getName() + "." + ProcessHandle.current().pid() + "." + Thread.currentThread().getId() + ".tmp" );
+      try {
+         try( RandomAccessFile file = new RandomAccessFile( temporary.toFile(), "rw" ); FileChannel channel = file.getChannel() ) {
+            ByteBuffer bytes = compiled.duplicate();
+            while( bytes.hasRemaining() )
+               channel.write( bytes );
+            channel.force( false );
+         }
+         Files.move( temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+      } finally {
+         Files.deleteIfExists( temporary );
+      }
+   }
+   
+   /**
+      Get the snapshot file for a card file, which is the card file with a .snap extension
+      
+      @param fileName The name of the card file
+      @return File The snapshot file
+   */
+   public static File getSnapshotFile( String fileName ) {
+      int extension = fileName.lastIndexOf('.');
+      if( extension <= fileName.lastIndexOf( File.separatorChar ) || extension <= fileName.lastIndexOf('/') )
+         extension = fileName.length();
+      
+      return new File( fileName.substring( 0, extension ) + ".snap" );
+   }
+   
+   /**
+      Compute the CRC32 checksum of the card file
+      
+      @param fileName The name of the card file
+      @return long The checksum of the file contents
+      @throws IOException If the card file cannot be read
+   */
+   public static long checksumOf( String fileName ) throws IOException {
+      CRC32 crc = new CRC32();
+      try( RandomAccessFile file = new RandomAccessFile( fileName, "r" ); FileChannel channel = file.getChannel() ) {
+         //mapped a part at a time, since a single mapping cannot be larger than 2 GiB
+         long end = channel.size();
+         for( long position = 0; position < end; position += Integer.MAX_VALUE )
+            crc.update( channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( Integer.MAX_VALUE, end - position ) ) );
+      }
+      
+      return crc.getValue();
+   }
+   
+   /**
+      Compile the card file into the bytes of a snapshot.
+      
+      The card file has a header line, and then two lines per card: the base properties,
+      separated by '|'s, and the properties, separated by ','s. The cards are parsed in
+      parallel by MTGCardLoader, and are then laid out in file order.
+      
+      The length and checksum kept in the header are those of the bytes the loader parsed,
+      rather than of the file as it is afterwards, so that cards appended while the snapshot
+      is compiled are still found by MTGQuery.refresh()
+      
+      @param fileName The name of the card file
+      @return ByteBuffer The bytes of the snapshot
+      @throws IOException If the card file cannot be read, or the snapshot would be larger than 2 GiB
+      @see MTGCardLoader( String fileName )
+   */
+   private static ByteBuffer compile( String fileName ) throws IOException {
+      HashMap<String, Integer> stringIDs = new HashMap<String, Integer>();
+      ArrayList<byte[]> strings = new ArrayList<byte[]>();
+      HashMap<String, Integer> propertyIDs = new HashMap<String, Integer>();
+      ArrayList<Integer> propertyNames = new ArrayList<Integer>();
+      
+      ArrayList<int[]> numericRows = new ArrayList<int[]>();
+      ArrayList<int[]> fieldRows = new ArrayList<int[]>();
+      ArrayList<int[]> propertyRows = new ArrayList<int[]>();
+      int totalFieldIDs = 0, totalPropertyIDs = 0, totalStringBytes = 0;
+      
+      MTGCardLoader loader = new MTGCardLoader( fileName );
+      long checksum = loader.getChecksum();
+      for( int ordinal = 0; ordinal < loader.totalCards(); ordinal++ ) {
+         String[] baseProperties = loader.getBaseProperties().get( ordinal );
+         String[] properties = loader.getProperties().get( ordinal );
+         MTGCard card = loader.getCards().get( ordinal );
+         
+         numericRows.add( MTGNumericColumns.valuesOf( card ) );
+         
+         int[] fieldRow = new int[ baseProperties.length ];
+         for( int i = 0; i < baseProperties.length; i++ ) {
+            Integer id = stringIDs.get( baseProperties[i] );
+            if( id == null ) {
+               id = strings.size();
+               byte[] bytes = baseProperties[i].getBytes( StandardCharsets.UTF_8 );
+               stringIDs.put( baseProperties[i], id );
+               strings.add( bytes );
+               totalStringBytes += bytes.length;
+            }
+            fieldRow[i] = id;
+         }
+         fieldRows.add( fieldRow );
+         totalFieldIDs += fieldRow.length;
+         
+         int[] propertyRow = new int[ properties.length ];
+         for( int i = 0; i < properties.length; i++ ) {
+            Integer id = propertyIDs.get( properties[i] );
+            if( id == null ) {
+               id = propertyNames.size();
+               propertyIDs.put( properties[i], id );
+               
+               Integer stringID = stringIDs.get( properties[i] );
+               if( stringID == null ) {
+                  stringID = strings.size();
+                  byte[] bytes = properties[i].getBytes( StandardCharsets.UTF_8 );
+                  stringIDs.put( properties[i], stringID );
+                  strings.add( bytes );
+                  totalStringBytes += bytes.length;
+               }
+               propertyNames.add( stringID );
+            }
+            propertyRow[i] = id;
+         }
+         propertyRows.add( propertyRow );
+         totalPropertyIDs += propertyRow.length;
+      }
+      
+      int totalCards = fieldRows.size();
+      long size = HEADER_SIZE + 4L * MTGNumericColumns.TOTAL_COLUMNS * totalCards
+                              + 4L * ( totalCards + 1 ) + 4L * totalFieldIDs
+                              + 4L * ( totalCards + 1 ) + 4L * totalPropertyIDs
+                              + 4L * propertyNames.size()
+                              + 4L * ( strings.size() + 1 ) + totalStringBytes;
+      if( size > Integer.MAX_VALUE ) throw new IOException("The snapshot of " + fileName + " would be " + size + " bytes, more than the " +
+                                                           Integer.MAX_VALUE + " bytes a snapshot can be mapped in. Split it into several card files instead");
+      ByteBuffer buffer = ByteBuffer.allocate( (int) size );
+      
+      //Header
+      buffer.putInt( MAGIC ).putInt( VERSION ).putLong( checksum ).putLong( loader.getEnd() );
+      buffer.putInt( totalCards ).putInt( strings.size() ).putInt( propertyNames.size() );
+      buffer.putInt( totalFieldIDs ).putInt( totalPropertyIDs ).putLong( size );
+      
+      //Numeric columns, one column at a time
+      for( int column = 0; column < MTGNumericColumns.TOTAL_COLUMNS; column++ )
+         for( int card = 0; card < totalCards; card++ )
+            buffer.putInt( numericRows.get( card )[ column ] );
+      
+      putRows( buffer, fieldRows );
+      putRows( buffer, propertyRows );
+      
+      for( int stringID : propertyNames )
+         buffer.putInt( stringID );
+      
+      int offset = 0;
+      for( byte[] bytes : strings ) {
+         buffer.putInt( offset );
+         offset += bytes.length;
+      }
+      buffer.putInt( offset );
+      for( byte[] bytes : strings )
+         buffer.put( bytes );
+      
+      buffer.flip();
+      return buffer;
+   }
+   
+   /**
+      Write a list of rows as an offsets section followed by the values of every row
+      
+      @param buffer The buffer to write to
+      @param rows The rows to write
+   */
+   private static void putRows( ByteBuffer buffer, ArrayList<int[]> rows ) {
+      int offset = 0;
+      for( int[] row : rows ) {
+         buffer.putInt( offset );
+         offset += row.length;
+      }
+      buffer.putInt( offset );
+      
+      for( int[] row : rows )
+         for( int value : row )
+            buffer.putInt( value );
+   }
+   
+   /**
+      Creates the MTGCard at the given ordinal from the snapshot
+      
+      @param ordinal The position of the card within the card file
+      @return MTGCard The card
+      @see MTGCard( String[] baseList, String imageName, String[] properties )
+   */
+   public MTGCard readCard( int ordinal ) {
+      String[] baseProperties = getBaseProperties( ordinal );
+      
+      int[] propertyIDs = getPropertyIDs( ordinal );
+      String[] properties = new String[ propertyIDs.length ];
+      for( int i = 0; i < properties.length; i++ )
+         properties[i] = getPropertyName( propertyIDs[i] );
+      
+      return new MTGCard( baseProperties, baseProperties[1] + ".jpg", properties );
+   }
+   
+   /**
+      Get the base properties of a card, as they were listed in the card file
+      
+      @param ordinal The position of the card within the card file
+      @return String[] The base properties of the card, starting with the line number
+   */
+   public String[] getBaseProperties( int ordinal ) {
+      int start = buffer.getInt( fieldOffsetsStart + 4 * ordinal );
+      int end = buffer.getInt( fieldOffsetsStart + 4 * ( ordinal + 1 ) );
+      
+      String[] baseProperties = new String[ end - start ];
+      for( int i = 0; i < baseProperties.length; i++ )
+         baseProperties[i] = getString( buffer.getInt( fieldIDsStart + 4 * ( start + i ) ) );
+      
+      return baseProperties;
+   }
+   
+   /**
+      Get the property IDs of a card
+      
+      @param ordinal The position of the card within the card file
+      @return int[] The property IDs of the card
+      @see getPropertyName( int id )
+   */
+   public int[] getPropertyIDs( int ordinal ) {
+      int start = buffer.getInt( propertyOffsetsStart + 4 * ordinal );
+      int end = buffer.getInt( propertyOffsetsStart + 4 * ( ordinal + 1 ) );
+      
+      int[] propertyIDs = new int[ end - start ];
+      for( int i = 0; i < propertyIDs.length; i++ )
+         propertyIDs[i] = buffer.getInt( propertyIDsStart + 4 * ( start + i ) );
+      
+      return propertyIDs;
+   }
+   
+   /**
+      Get the name of a property from its ID within this snapshot
+      
+      @param id The ID of the property
+      @return String The name of the property
+   */
+   public String getPropertyName( int id ) {
+      return getString( buffer.getInt( propertyNamesStart + 4 * id ) );
+   }
+   
+   /**
+      Get a value from one of the numeric columns
+      
+      @param column The column, such as MTGNumericColumns.POWER
+      @param ordinal The position of the card within the card file
+      @return int The value, or MTGCard.VARIABLE_COST if the value is not a number
+   */
+   public int getNumber( int column, int ordinal ) {
+      return buffer.getInt( numericStart + 4 * ( column * totalCards + ordinal ) );
+   }
+   
+   /**
+      Copies one of the numeric columns out of the snapshot in bulk
+      
+      @param column The column, such as MTGNumericColumns.POWER
+      @return int[] The values of the column, indexed by card ordinal
+      @see MTGNumericColumns( MTGCatalogSnapshot snapshot )
+   */
+   public int[] getColumn( int column ) {
+      int[] values = new int[ totalCards ];
+      ByteBuffer view = buffer.duplicate();
+      view.position( numericStart + 4 * column * totalCards );
+      view.asIntBuffer().get( values );
+      
+      return values;
+   }
+   
+   /**
+      Get a string from the string table, decoding it the first time it is asked for
+      
+      @param id The ID of the string
+      @return String The string
+   */
+   private String getString( int id ) {
+      String string = stringCache[ id ];
+      if( string == null ) {
+         int start = buffer.getInt( stringOffsetsStart + 4 * id );
+         int end = buffer.getInt( stringOffsetsStart + 4 * ( id + 1 ) );
+         
+         byte[] bytes = new byte[ end - start ];
+         for( int i = 0; i < bytes.length; i++ )
+            bytes[i] = buffer.get( stringDataStart + start + i );
+         
+         string = new String( bytes, StandardCharsets.UTF_8 );
+         stringCache[ id ] = string;
+      }
+      
+      return string;
+   }
+   
+   /**
+      Returns the total number of cards in this snapshot
+      
+      @return int The total number of cards
+   */
+   public int totalCards() {
+      return totalCards;
+   }
+   
+   /**
+      Returns the total number of distinct properties in this snapshot
+      
+      @return int The total number of property IDs
+   */
+   public int totalProperties() {
+      return totalProperties;
+   }
+   
+   /**
+      Get the length of the card file this snapshot was compiled from, as it was parsed,
+      which is the end of the cards it holds
+      
+      @return long The length of the card file, in bytes
+   */
+   public long getFileLength() {
+      return buffer.getLong( 16 );
+   }
+   
+   /**
+      Get the checksum of the card file this snapshot was compiled from
+      
+      @return long The CRC32 checksum of the card file
+   */
+   public long getChecksum() {
+      return checksum;
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
@@ -0,0 +1,272 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+   MTGCollectionRegistry.java
+   
+   Searches many card files at once, such as a collection per player or per set, each
+   loaded as its own MTGQuery with its own snapshot, indexes, and result cache.
+   
+   The collections are loaded in parallel, and each search is fanned out to every
+   collection in parallel. Before a collection is searched, the search is planned against
+   it, and since the estimate of each predicate of a plan is the exact number of cards of
+   the collection it matches, a plan with a predicate no card matches is known to find
+   nothing. Such a collection is skipped without evaluating the plan, so a search for the
+   cards of one set only reads the collections that hold that set.
+   
+   A leftover word is only planned if some card has it, so each collection is given the
+   tokens of every collection, and plans a word the same way whether or not it has the
+   word itself. Without this, a word one collection lacks would be dropped from its plan,
+   and that collection would list every card matching the rest of the search.
+   
+   The cards found in each collection are sorted by name, and the collections are merged in
+   order, so the results are sorted by name, then by the order of the collections, and then
+   by the order of the cards within their card file
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.plan( String userInput )
+   @see MTGQuery.search( MTGQueryPlanner.And plan )
+   @see MTGQuery.setVocabulary( List<MTGQuery> vocabulary )
+*/
+public class MTGCollectionRegistry {
+   
+   private final String[] names;
+   private final List<MTGQuery> queries;
+   private final ForkJoinPool pool;
+   
+   /**
+      Load each card file as a collection, using the common fork-join pool
+      
+      @param fileNames The names of the card files. See 'mtgCards.txt'
+      @throws IOException If a card file could not be loaded
+      @see MTGCollectionRegistry( String[] fileNames, ForkJoinPool pool )
+   */
+   public MTGCollectionRegistry( String[] fileNames ) throws IOException {
+      this( fileNames, ForkJoinPool.commonPool() );
+   }
+   
+   /**
+      Load each card file as a collection. A collection is named after its card file,
+      without the folder or the extension, so './decks/modern.txt' is the 'modern' collection
+      
+      @param fileNames The names of the card files. See 'mtgCards.txt'
+      @param pool The pool to load and search the collections on
+      @throws IOException If a card file could not be loaded
+   */
+   public MTGCollectionRegistry( String[] fileNames, ForkJoinPool pool ) throws IOException {
+      this.pool = pool;
+      names = new String[ fileNames.length ];
+      
+      ArrayList<Callable<MTGQuery>> tasks = new ArrayList<Callable<MTGQuery>>();
+      for( int i = 0; i < fileNames.length; i++ ) {
+         final String fileName = fileNames[i];
+         if( !new File( fileName ).isFile() ) throw new IOException("Could not find the card file " + fileName );
+         
+         names[i] = getCollectionName( fileName );
+         tasks.add( () -> new MTGQuery( fileName ) );
+      }
+      
+      ArrayList<MTGQuery> loaded = new ArrayList<MTGQuery>();
+      for( Future<MTGQuery> future : pool.invokeAll( tasks ) ) {
+         MTGQuery query = get( future );
+         query.setPrintingPlan( false );
+         loaded.add( query );
+      }
+      
+      queries = Collections.unmodifiableList( loaded );
+      for( MTGQuery query : queries )
+         query.setVocabulary( queries );
+   }
+   
+   /**
+      Finds the cards of every collection that have all of the properties described by the
+      user input. The collections whose plan cannot match any card are skipped, and counted
+      as pruned by MTGMetrics
+      
+      @param userInput The line entered from the user to be processed
+      @return ArrayList<Result> The cards found, sorted by name, then by collection, then by card order
+      @see MTGQuery.search( String userInput )
+      @see MTGMetrics.addShardSearch( boolean isPruned )
+   */
+   public ArrayList<Result> search( String userInput ) {
+      ArrayList<Callable<ArrayList<MTGCard>>> tasks = new ArrayList<Callable<ArrayList<MTGCard>>>();
+      for( MTGQuery query : queries ) {
+         tasks.add( () -> {
+            MTGQueryPlanner.And plan = query.plan( userInput );
+            boolean isPruned = plan.isEmpty();
+            MTGMetrics.get().addShardSearch( isPruned );
+            if( isPruned ) return new ArrayList<MTGCard>();
+            
+            ArrayList<MTGCard> cardsFound = query.search( plan );
+            cardsFound.sort( ( a, b ) -> compareNames( a.getName(), b.getName() ) );
+            return cardsFound;
+         });
+      }
+      
+      ArrayList<ArrayList<MTGCard>> found = new ArrayList<ArrayList<MTGCard>>();
+      for( Future<ArrayList<MTGCard>> future : pool.invokeAll( tasks ) )
+         found.add( get( future ) );
+      
+      return merge( found );
+   }
+   
+   /**
+      Merges the sorted cards of each collection. Entries are the collection, and the
+      position of its next card
+      
+      @param found The cards found in each collection, sorted by name
+      @return ArrayList<Result> The cards of every collection, sorted by name, then by collection
+   */
+   private ArrayList<Result> merge( ArrayList<ArrayList<MTGCard>> found ) {
+      int total = 0;
+      PriorityQueue<int[]> heads = new PriorityQueue<int[]>( ( a, b ) -> {
+         int byName = compareNames( found.get( a[0] ).get( a[1] ).getName(), found.get( b[0] ).get( b[1] ).getName() );
+         return byName != 0 ? byName : Integer.compare( a[0], b[0] );
+      });
+      for( int i = 0; i < found.size(); i++ ) {
+         total += found.get(i).size();
+         if( !found.get(i).isEmpty() ) heads.add( new int[]{ i, 0 } );
+      }
+      
+      ArrayList<Result> results = new ArrayList<Result>( total );
+      while( !heads.isEmpty() ) {
+         int[] head = heads.poll();
+         results.add( new Result( names[ head[0] ], found.get( head[0] ).get( head[1] ) ) );
+         
+         head[1]++;
+         if( head[1] < found.get( head[0] ).size() ) heads.add( head );
+      }
+      
+      return results;
+   }
+   
+   /**
+      Get the names of the collections
+      
+      @return String[] The names of the collections, in the order they were given
+   */
+   public String[] getCollectionNames() {
+      return names.clone();
+   }
+   
+   /**
+      Get the query of a collection
+      
+      @param collection The position of the collection, in the order they were given
+      @return MTGQuery The query holding the cards of the collection
+   */
+   public MTGQuery getQuery( int collection ) {
+      return queries.get( collection );
+   }
+   
+   /**
+      Returns the total number of collections
+      
+      @return int The total number of collections
+   */
+   public int totalCollections() {
+      return queries.size();
+   }
+   
+   /**
+      Returns the total number of cards of every collection
+      
+      @return int The total number of cards
+   */
+   public int totalCards() {
+      int total = 0;
+      for( MTGQuery query : queries )
+         total += query.totalCards();
+      
+      return total;
+   }
+   
+   /**
+      Get the name of the collection of a card file: its name without the folder or the extension
+      
+      @param fileName The name of the card file
+      @return String The name of the collection
+   */
+   public static String getCollectionName( String fileName ) {
+      String name = new File( fileName ).getName();
+      int dot = name.lastIndexOf('.');
+      return dot > 0 ? name.substring( 0, dot ) : name;
+   }
+   
+   /**
+      Compares two card names, with the cards that could not be read, which have no name, last
+      
+      @param a One name, or null
+      @param b The other name, or null
+      @return int Less than 0 if a comes first, more than 0 if b comes first, or 0 if they are the same
+   */
+   private static int compareNames( String a, String b ) {
+      if( a == null || b == null ) return Boolean.compare( a == null, b == null );
+      return a.compareTo( b );
+   }
+   
+   /**
+      Get the value of a finished task, passing on what it threw
+      
+      @param future The finished task
+      @return T The value of the task
+   */
+   private static <T> T get( Future<T> future ) {
+      try {
+         return future.get();
+      } catch( InterruptedException e ) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while waiting for the collections", e );
+      } catch( ExecutionException e ) {
+         if( e.getCause() instanceof RuntimeException ) throw (RuntimeException) e.getCause();
+         throw new IllegalStateException( e.getCause() );
+      }
+   }
+   
+   /**
+      A card found by a search, and the collection it was found in
+   */
+   public static class Result {
+      
+      private final String collection;
+      private final MTGCard card;
+      
+      /**
+         Create a result
+         
+         @param collection The name of the collection
+         @param card The card
+      */
+      private Result( String collection, MTGCard card ) {
+         this.collection = collection;
+         this.card = card;
+      }
+      
+      /**
+         Get the name of the collection the card was found in
+         
+         @return String The name of the collection
+      */
+      public String getCollection() {
+         return collection;
+      }
+      
+      /**
+         Get the card found
+         
+         @return MTGCard The card
+      */
+      public MTGCard getCard() {
+         return card;
+      }
+   }
+}
@@ -0,0 +1,227 @@
+/**
+   MTGColors.java
+   
+   The colors of a card as a bit mask, worked out once from its mana cost, and the color
+   conditions of a query, which are tested against the mask.
+   
+   Each of the five colors is one bit, in WUBRG order, and a card with no colored mana
+   symbols has the COLORLESS bit instead, so that 'colorless' can be searched for like a
+   color. A hybrid symbol, such as the BG of '3N2BG', counts towards both of its colors.
+   
+   A color condition is one of:
+   
+   1) EXACT    The card has exactly these colors, as in 'exactly red green' or 'mono red'
+   2) AT_MOST  The card has no color outside of these, as the color identity of a commander
+               allows, as in 'identity white blue black'. Colorless cards always match
+   3) ANY      The card has at least one of these colors, as in 'red or green'
+   4) ALL      The card has every one of these colors, as in 'red green', which is what a
+               color word alone asks for
+   
+   A mask only takes 6 bits, so a condition is compiled into a table of the 64 masks it
+   matches, and a card is tested with a shift of the table, whatever the condition
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCard.getColors()
+   @see MTGNumericColumns.COLORS
+   @see MTGQueryPlanner.ColorTerm
+*/
+public class MTGColors {
+   
+   //Colors, in WUBRG order
+   public static final int WHITE     = 1;
+   public static final int BLUE      = 2;
+   public static final int BLACK     = 4;
+   public static final int RED       = 8;
+   public static final int GREEN     = 16;
+   public static final int COLORLESS = 32;
+   public static final int COLORS    = WHITE | BLUE | BLACK | RED | GREEN;
+   public static final int TOTAL_MASKS = 64;
+   
+   //Conditions, and how they are written in a term such as 'colors<=WUB'
+   public static final int EXACT   = 0;
+   public static final int AT_MOST = 1;
+   public static final int ANY     = 2;
+   public static final int ALL     = 3;
+   private static final String[] OPERATORS = { "=", "<=", "~", ">=" };
+   
+   public static final String TERM_PREFIX = "colors";
+   
+   //Mana symbols and color words of each color, in WUBRG order, and then colorless
+   private static final String SYMBOLS = "WUBRGC";
+   private static final String[] WORDS = { "WHITE", "BLUE", "BLACK", "RED", "GREEN", "COLORLESS" };
+   
+   /**
+      Not to be created
+   */
+   private MTGColors() {}
+   
+   /**
+      Get the colors of a mana cost, such as GREEN | BLACK for '1N1G1B'
+      
+      @param manaCost The mana cost, such as '2N1W', or 'na' for none
+      @return int The colors of the cost, or COLORLESS if it has no colored symbols
+   */
+   public static int maskOf( String manaCost ) {
+      int mask = 0;
+      for( int i = 0; i < manaCost.length(); i++ )
+         mask |= colorOf( manaCost.charAt(i) );
+      
+      return mask == 0 ? COLORLESS : mask;
+   }
+   
+   /**
+      Get the number of mana symbols of each color of a mana cost. A number counts the
+      symbols that follow it, so '3N2BG' has two black and two green symbols, and a symbol
+      without a number counts once
+      
+      @param manaCost The mana cost, such as '2N1W', or 'na' for none
+      @return int[] The number of symbols of each color, in WUBRG order
+   */
+   public static int[] pipsOf( String manaCost ) {
+      int[] pips = new int[5];
+      int number = 0;
+      boolean isNumber = false;
+      for( int i = 0; i < manaCost.length(); i++ ) {
+         char c = manaCost.charAt(i);
+         if( c >= '0' && c <= '9' ) {
+            number = ( isNumber ? number * 10 : 0 ) + ( c - '0' );
+            isNumber = true;
+            continue;
+         }
+         isNumber = false;
+         
+         //the colored symbols after a number share it, and any other symbol, such as N, ends the run
+         int color = colorOf(c);
+         if( color == 0 ) number = 0;
+         else             pips[ Integer.numberOfTrailingZeros( color ) ] += number > 0 ? number : 1;
+      }
+      
+      return pips;
+   }
+   
+   /**
+      Get the color of a mana symbol
+      
+      @param symbol The mana symbol, such as 'G'
+      @return int The color, or 0 if the symbol is not a color
+   */
+   private static int colorOf( char symbol ) {
+      int i = SYMBOLS.indexOf( symbol );
+      return i < 0 || i >= 5 ? 0 : 1 << i;
+   }
+   
+   /**
+      Get the color named by a word of a query
+      
+      @param word The uppercase word, such as 'RED'
+      @return int The color, COLORLESS, or 0 if the word does not name a color
+   */
+   public static int colorOfWord( String word ) {
+      for( int i = 0; i < WORDS.length; i++ )
+         if( WORDS[i].equals( word ) ) return 1 << i;
+      
+      return 0;
+   }
+   
+   /**
+      Get the name of a color, as the main color of a card used to be named
+      
+      @param colors The colors of a card
+      @return String RED, BLUE, GREEN, WHITE, or BLACK, the first the card has in that order,
+                     or COLORLESS
+   */
+   public static String mainColorOf( int colors ) {
+      if(      ( colors & RED   ) != 0 ) return "RED";
+      else if( ( colors & BLUE  ) != 0 ) return "BLUE";
+      else if( ( colors & GREEN ) != 0 ) return "GREEN";
+      else if( ( colors & WHITE ) != 0 ) return "WHITE";
+      else if( ( colors & BLACK ) != 0 ) return "BLACK";
+      else                               return "COLORLESS";
+   }
+   
+   /**
+      Get the symbols of a mask, such as 'BG' for BLACK | GREEN, or 'C' for COLORLESS
+      
+      @param mask The mask
+      @return String The symbols of the mask, in WUBRG order
+   */
+   public static String toSymbols( int mask ) {
+      StringBuilder symbols = new StringBuilder();
+      for( int i = 0; i < SYMBOLS.length(); i++ )
+         if( ( mask & ( 1 << i ) ) != 0 ) symbols.append( SYMBOLS.charAt(i) );
+      
+      return symbols.toString();
+   }
+   
+   /**
+      Get the term of a color condition, such as 'colors<=WUB'
+      
+      @param condition The condition, such as AT_MOST
+      @param mask The colors of the condition
+      @return String The term
+      @see parseTerm( String term )
+   */
+   public static String toTerm( int condition, int mask ) {
+      return TERM_PREFIX + OPERATORS[ condition ] + toSymbols( mask );
+   }
+   
+   /**
+      Parses the term of a color condition, such as 'colors<=WUB'
+      
+      @param term The term to parse
+      @return int[] The condition and the mask, or null if the term is not a color condition
+      @see toTerm( int condition, int mask )
+   */
+   public static int[] parseTerm( String term ) {
+      if( !term.startsWith( TERM_PREFIX ) ) return null;
+      
+      for( int condition = 0; condition < OPERATORS.length; condition++ ) {
+         if( !term.startsWith( OPERATORS[ condition ], TERM_PREFIX.length() ) ) continue;
+         
+         int mask = 0;
+         for( int i = TERM_PREFIX.length() + OPERATORS[ condition ].length(); i < term.length(); i++ ) {
+            int symbol = SYMBOLS.indexOf( term.charAt(i) );
+            if( symbol < 0 ) return null;
+            mask |= 1 << symbol;
+         }
+         
+         return mask == 0 ? null : new int[]{ condition, mask };
+      }
+      
+      return null;
+   }
+   
+   /**
+      Determines whether the colors of a card meet a condition
+      
+      @param colors The colors of the card, or 0 for a card that could not be read, which never matches
+      @param condition The condition, such as AT_MOST
+      @param mask The colors of the condition
+      @return boolean True if the card meets the condition, false otherwise
+   */
+   public static boolean matches( int colors, int condition, int mask ) {
+      switch( condition ) {
+         case EXACT:   return colors == mask;
+         case AT_MOST: return colors != 0 && ( colors & COLORS & ~mask ) == 0;
+         case ANY:     return ( colors & mask ) != 0;
+         default:      return ( colors & mask ) == mask;
+      }
+   }
+   
+   /**
+      Get the table of a condition: bit m of the table is set if a card with the colors m
+      meets the condition
+      
+      @param condition The condition, such as AT_MOST
+      @param mask The colors of the condition
+      @return long The table of the 64 masks
+   */
+   public static long tableOf( int condition, int mask ) {
+      long table = 0;
+      for( int colors = 0; colors < TOTAL_MASKS; colors++ )
+         if( matches( colors, condition, mask ) ) table |= 1L << colors;
+      
+      return table;
+   }
+}
@@ -0,0 +1,302 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+   MTGCompletionTrie.java
+   
+   Read-only trie of the terms a user can type, such as card names, subtypes, artists, and
+   the phrases of the keyword file, which gives the most frequent terms that begin with a
+   prefix.
+   
+   The trie is stored as parallel arrays, with the children of each node next to each other
+   and sorted by character, so that finding the node of a prefix is a binary search per
+   character. Each node also keeps the largest weight below it, so the top completions are
+   found best first: the nodes whose subtrees could hold a heavier term are opened first,
+   and the search stops as soon as enough terms have been found, no matter how many terms
+   begin with the prefix.
+   
+   Terms are matched ignoring case. A trie is built once, through a Builder, and is then
+   safe to read from many threads at once
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.complete( String prefix, int limit )
+*/
+public class MTGCompletionTrie {
+   
+   private static final int NO_TERM = -1;
+   
+   //Parallel arrays of the nodes. Node 0 is the root, and the children of a node are
+   //childCounts[ node ] nodes from firstChildren[ node ], sorted by label
+   private final char[] labels;
+   private final int[] firstChildren;
+   private final int[] childCounts;
+   private final int[] nodeTerms;
+   private final int[] maxWeights;
+   private final int[] firstTerms;
+   
+   //Terms, sorted by their lowercase form, and the weight of each
+   private final String[] terms;
+   private final int[] weights;
+   
+   private int totalNodes = 0;
+   
+   /**
+      Create the trie of the given terms
+      
+      @param keys The lowercase form of each term, sorted, without duplicates
+      @param terms The terms, as they are shown, in the order of keys
+      @param weights The weight of each term, in the order of keys
+      @see Builder.build()
+   */
+   private MTGCompletionTrie( String[] keys, String[] terms, int[] weights ) {
+      this.terms = terms;
+      this.weights = weights;
+      
+      //every node but the root is the end of a distinct prefix, so the total nodes is known up front
+      int nodes = 1;
+      for( int i = 0; i < keys.length; i++ )
+         nodes += keys[i].length() - ( i == 0 ? 0 : commonPrefixLength( keys[ i - 1 ], keys[i] ) );
+      
+      labels = new char[ nodes ];
+      firstChildren = new int[ nodes ];
+      childCounts = new int[ nodes ];
+      nodeTerms = new int[ nodes ];
+      maxWeights = new int[ nodes ];
+      firstTerms = new int[ nodes ];
+      
+      totalNodes = 1;
+      build( keys, 0, 0, keys.length, 0 );
+   }
+   
+   /**
+      Finds the heaviest terms that begin with a prefix, ignoring case
+      
+      @param prefix The start of a term, as typed
+      @param limit The most terms to return
+      @return int[] The terms found, heaviest first, and in alphabetical order for terms of
+                    the same weight
+      @see getTerm( int term )
+      @see getWeight( int term )
+   */
+   public int[] complete( String prefix, int limit ) {
+      String key = prefix.stripLeading().toLowerCase();
+      int node = 0;
+      for( int i = 0; i < key.length() && node >= 0; i++ )
+         node = findChild( node, key.charAt(i) );
+      if( node < 0 || limit <= 0 || terms.length == 0 ) return new int[0];
+      
+      int[] found = new int[ limit ];
+      int totalFound = 0;
+      
+      //Entries are the order of a term or node, and the term or node itself, largest order first
+      PriorityQueue<long[]> queue = new PriorityQueue<long[]>( ( a, b ) -> Long.compare( b[0], a[0] ) );
+      queue.add( new long[]{ order( maxWeights[ node ], firstTerms[ node ], false ), node } );
+      while( !queue.isEmpty() && totalFound < limit ) {
+         long[] entry = queue.poll();
+         int id = (int) entry[1];
+         if( ( entry[0] & 1 ) != 0 ) {
+            found[ totalFound++ ] = id;
+            continue;
+         }
+         
+         int term = nodeTerms[ id ];
+         if( term != NO_TERM ) queue.add( new long[]{ order( weights[ term ], term, true ), term } );
+         for( int child = firstChildren[ id ]; child < firstChildren[ id ] + childCounts[ id ]; child++ )
+            queue.add( new long[]{ order( maxWeights[ child ], firstTerms[ child ], false ), child } );
+      }
+      
+      return Arrays.copyOf( found, totalFound );
+   }
+   
+   /**
+      Get a term, as it is shown
+      
+      @param term The term, as returned by complete( String prefix, int limit )
+      @return String The term
+   */
+   public String getTerm( int term ) {
+      return terms[ term ];
+   }
+   
+   /**
+      Get the weight of a term, such as the number of cards it describes
+      
+      @param term The term, as returned by complete( String prefix, int limit )
+      @return int The weight
+   */
+   public int getWeight( int term ) {
+      return weights[ term ];
+   }
+   
+   /**
+      Returns the total number of terms
+      
+      @return int The total number of terms
+   */
+   public int totalTerms() {
+      return terms.length;
+   }
+   
+   /**
+      Returns the total number of nodes, including the root
+      
+      @return int The total number of nodes
+   */
+   public int totalNodes() {
+      return totalNodes;
+   }
+   
+   /**
+      Fills in a node from the keys that begin with its prefix, and then each of its
+      children. The children are added next to each other before any of their own children
+      
+      @param keys The sorted keys
+      @param node The node to fill in
+      @param low The first key that begins with the prefix of the node
+      @param high One past the last key that begins with the prefix of the node
+      @param depth The length of the prefix of the node
+   */
+   private void build( String[] keys, int node, int low, int high, int depth ) {
+      firstTerms[ node ] = low;
+      nodeTerms[ node ] = NO_TERM;
+      int maxWeight = 0;
+      
+      //the key that ends at this node, if any, comes first since it is the shortest
+      if( low < high && keys[ low ].length() == depth ) {
+         nodeTerms[ node ] = low;
+         maxWeight = weights[ low ];
+         low++;
+      }
+      
+      int children = 0;
+      for( int i = low; i < high; i++ )
+         if( i == low || keys[i].charAt( depth ) != keys[ i - 1 ].charAt( depth ) ) children++;
+      
+      int first = totalNodes;
+      firstChildren[ node ] = first;
+      childCounts[ node ] = children;
+      totalNodes += children;
+      
+      int child = first;
+      int start = low;
+      for( int i = low + 1; i <= high; i++ ) {
+         if( i < high && keys[i].charAt( depth ) == keys[ start ].charAt( depth ) ) continue;
+         
+         labels[ child ] = keys[ start ].charAt( depth );
+         build( keys, child, start, i, depth + 1 );
+         maxWeight = Math.max( maxWeight, maxWeights[ child ] );
+         
+         child++;
+         start = i;
+      }
+      
+      maxWeights[ node ] = maxWeight;
+   }
+   
+   /**
+      Get the child of a node with the given label
+      
+      @param node The node
+      @param label The character of the child
+      @return int The child, or -1 if the node has no such child
+   */
+   private int findChild( int node, char label ) {
+      int low = firstChildren[ node ], high = low + childCounts[ node ] - 1;
+      while( low <= high ) {
+         int middle = ( low + high ) >>> 1;
+         if(      labels[ middle ] < label ) low = middle + 1;
+         else if( labels[ middle ] > label ) high = middle - 1;
+         else return middle;
+      }
+      
+      return -1;
+   }
+   
+   /**
+      Get the order of an entry of the search queue: the heaviest entry is the largest, then
+      the entry whose first term comes first alphabetically, and then a term before the node
+      it ends at. The lowest bit is set for terms
+      
+      @param weight The weight of the term, or the largest weight below the node
+      @param firstTerm The term, or the first term below the node
+      @param isTerm True if the entry is a term, false if it is a node
+      @return long The order of the entry
+   */
+   private static long order( int weight, int firstTerm, boolean isTerm ) {
+      return ( (long) weight << 32 ) | ( (long) ( Integer.MAX_VALUE - firstTerm ) << 1 ) | ( isTerm ? 1 : 0 );
+   }
+   
+   /**
+      Get the length of the prefix two Strings share
+      
+      @param a One String
+      @param b The other String
+      @return int The number of characters at the start of both
+   */
+   private static int commonPrefixLength( String a, String b ) {
+      int length = Math.min( a.length(), b.length() );
+      int i = 0;
+      while( i < length && a.charAt(i) == b.charAt(i) )
+         i++;
+      
+      return i;
+   }
+   
+   /**
+      Collects the terms of a trie. A term added more than once, such as the subtype of many
+      cards, keeps the spelling it was first added with, and the sum of its weights
+   */
+   public static class Builder {
+      
+      //Lowercase term -> position in terms and weights
+      private final HashMap<String, Integer> positions = new HashMap<String, Integer>();
+      private final ArrayList<String> terms = new ArrayList<String>();
+      private final ArrayList<Integer> weights = new ArrayList<Integer>();
+      
+      /**
+         Adds a term
+         
+         @param term The term, as it should be shown
+         @param weight The weight of the term, such as the number of cards it describes
+         @return Builder This builder
+      */
+      public Builder add( String term, int weight ) {
+         term = term.strip();
+         if( term.isEmpty() ) return this;
+         
+         Integer position = positions.get( term.toLowerCase() );
+         if( position == null ) {
+            positions.put( term.toLowerCase(), terms.size() );
+            terms.add( term );
+            weights.add( Math.max( weight, 0 ) );
+         } else {
+            weights.set( position, (int) Math.min( Integer.MAX_VALUE, (long) weights.get( position ) + Math.max( weight, 0 ) ) );
+         }
+         
+         return this;
+      }
+      
+      /**
+         Create the trie of the terms added so far
+         
+         @return MTGCompletionTrie The trie
+      */
+      public MTGCompletionTrie build() {
+         String[] keys = positions.keySet().toArray( new String[0] );
+         Arrays.sort( keys );
+         
+         String[] sortedTerms = new String[ keys.length ];
+         int[] sortedWeights = new int[ keys.length ];
+         for( int i = 0; i < keys.length; i++ ) {
+            int position = positions.get( keys[i] );
+            sortedTerms[i] = terms.get( position );
+            sortedWeights[i] = weights.get( position );
+         }
+         
+         return new MTGCompletionTrie( keys, sortedTerms, sortedWeights );
+      }
+   }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+   MTGFieldDictionary.java
+   
+   Dictionary encoding of a field of the cards, such as the rarity or the artist.
+   
+   Most fields repeat from card to card, so rather than each MTGCard holding a String for
+   each field, a card holds a small int code, and the dictionary of the field holds each
+   distinct String once. Codes are given out in the order the values are first seen, and are
+   never taken back, so a code stays valid for as long as the program runs. Code 0 is kept
+   for null, so a field that was never set decodes to null.
+   
+   Encoding is a hash look up, and only takes a lock the first time a value is seen. Decoding
+   is an array read, and takes no lock, so cards can be created and read from many threads
+   at once
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCard.java
+   @see MTGHeapReport.java
+*/
+public class MTGFieldDictionary {
+   
+   public static final int NULL_CODE = 0;
+   
+   private static final int INITIAL_CAPACITY = 64;
+   
+   private final String name;
+   private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<String, Integer>();
+   
+   //Values by code. A new array is published whenever it grows, so readers never see a partly copied one
+   private volatile String[] values = new String[ INITIAL_CAPACITY ];
+   private volatile int size = 1;
+   
+   /**
+      Create an empty dictionary
+      
+      @param name The name of the field, such as 'artist', for reports
+   */
+   public MTGFieldDictionary( String name ) {
+      this.name = name;
+   }
+   
+   /**
+      Get the code of a value, adding the value if it has not been seen before
+      
+      @param value The value, or null
+      @return int The code of the value, or NULL_CODE for null
+   */
+   public int encode( String value ) {
+      if( value == null ) return NULL_CODE;
+      
+      Integer code = codes.get( value );
+      if( code != null ) return code;
+      
+      synchronized( this ) {
+         code = codes.get( value );
+         if( code != null ) return code;
+         
+         int added = size;
+         String[] current = values;
+         if( added == current.length ) current = Arrays.copyOf( current, added * 2 );
+         current[ added ] = value;
+         values = current;
+         size = added + 1;
+         
+         codes.put( value, added );
+         return added;
+      }
+   }
+   
+   /**
+      Get the value of a code
+      
+      @param code The code, as given by encode( String value )
+      @return String The value, or null for NULL_CODE
+   */
+   public String decode( int code ) {
+      return values[ code ];
+   }
+   
+   /**
+      Get the code of a value, without adding it
+      
+      @param value The value
+      @return int The code of the value, or -1 if it has not been seen
+   */
+   public int find( String value ) {
+      if( value == null ) return NULL_CODE;
+      
+      Integer code = codes.get( value );
+      return code == null ? -1 : code;
+   }
+   
+   /**
+      Returns the total number of distinct values, counting null
+      
+      @return int The total number of values
+   */
+   public int size() {
+      return size;
+   }
+   
+   /**
+      Get the name of the field
+      
+      @return String The name of the field, such as 'artist'
+   */
+   public String getName() {
+      return name;
+   }
+}
@@ -0,0 +1,335 @@
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+   MTGHeapReport.java
+   
+   Heap footprint of the cards, comparing the old MTGCard, which held a String for every
+   field, with the dictionary encoded MTGCard.
+   
+   The old card is kept here as it was: a String for each field, the subtext characters
+   split into a String array, the base tokens and the properties in HashSets of Strings,
+   the color type and total cost worked out from the mana cost, and the image name built
+   from the name of the card. Old cards are created from the lines of the card file, which
+   are split for each card as the old MTGQuery did, so every old card holds its own
+   Strings. New cards are created from the snapshot, whose Strings are read once before
+   measuring, so only what each new card holds on its own is counted.
+   
+   For each kind of card, the heap in use after a full garbage collection is measured
+   before and after creating every card of the card file a number of times over, and the
+   difference is divided by the number of cards. The dictionaries of the fields grow while
+   the encoded cards are created, so their size is counted in the bytes per card.
+   
+   The time taken to check whether a card has a property is then measured for each kind
+   of card, by checking every property of the snapshot against every card. The time taken
+   to only read the properties array of each card is measured as well. Since the cards do
+   not fit in the processor caches, that read takes most of the time of a check by code, so
+   no way of storing the properties within the card can make a check much faster than it.
+   Checking one property against every card at the speed of a bit test takes the BitSets
+   of MTGPropertyIndex, which the query planner uses instead.
+   
+   Usage: java MTGHeapReport [card file] [copies]
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCard.java
+   @see MTGFieldDictionary.java
+*/
+public class MTGHeapReport {
+   
+   private static final String TEXT_FILE = "./mtgCards.txt";
+   private static final int DEFAULT_COPIES = 20;
+   private static final int GC_RUNS = 5;
+   private static final int LOOKUP_RUNS = 5;
+   
+   //Keeps the results of the look ups reachable, so that they are not optimized away
+   private static int checksum = 0;
+   
+   /**
+      Run the report
+      
+      @param args The name of the card file, and the number of times to create each card
+   */
+   public static void main( String[] args ) {
+      String fileName = args.length > 0 ? args[0] : TEXT_FILE;
+      int copies = args.length > 1 ? Integer.parseInt( args[1] ) : DEFAULT_COPIES;
+      
+      MTGCatalogSnapshot snapshot;
+      try {
+         snapshot = MTGCatalogSnapshot.open( fileName );
+      } catch( IOException e ) {
+         e.printStackTrace();
+         return;
+      }
+      
+      int totalCards = snapshot.totalCards();
+      int total = totalCards * copies;
+      
+      List<String[]> records;
+      try {
+         records = readRecords( fileName );
+      } catch( IOException e ) {
+         e.printStackTrace();
+         return;
+      }
+      
+      //read every String of the snapshot once, so that the new cards do not count them
+      for( int ordinal = 0; ordinal < totalCards; ordinal++ ) {
+         snapshot.getBaseProperties( ordinal );
+         for( int id : snapshot.getPropertyIDs( ordinal ) )
+            snapshot.getPropertyName( id );
+      }
+      
+      int totalLegacy = records.size() * copies;
+      long before = usedHeap();
+      Object[] legacyCards = new Object[ totalLegacy ];
+      for( int i = 0; i < totalLegacy; i++ ) {
+         String[] record = records.get( i % records.size() );
+         legacyCards[i] = new LegacyCard( record[0], record[1] );
+      }
+      long legacyBytes = usedHeap() - before;
+      double legacyNanos = timeLookups( legacyCards, snapshot, ( card, property, code ) -> ( (LegacyCard) card ).propertiesSet.contains( property ) );
+      Reference.reachabilityFence( legacyCards );
+      legacyCards = null;
+      
+      before = usedHeap();
+      Object[] cards = new Object[ total ];
+      for( int i = 0; i < total; i++ )
+         cards[i] = snapshot.readCard( i % totalCards );
+      long bytes = usedHeap() - before;
+      double nanos = timeLookups( cards, snapshot, ( card, property, code ) -> ( (MTGCard) card ).hasProperty( property ) );
+      double codeNanos = timeLookups( cards, snapshot, ( card, property, code ) -> ( (MTGCard) card ).hasProperty( code ) );
+      double readNanos = timeLookups( cards, snapshot, ( card, property, code ) -> ( (MTGCard) card ).totalProperties() > code );
+      Reference.reachabilityFence( cards );
+      cards = null;
+      
+      SOPln( total + " cards (" + totalCards + " x " + copies + ")");
+      SOPln("String fields:     " + legacyBytes / totalLegacy + " bytes per card");
+      SOPln("Dictionary codes:  " + bytes / total + " bytes per card");
+      SOPln( String.format( "Saved:             %.1f%%", 100.0 * ( legacyBytes / (double) totalLegacy - bytes / (double) total ) /
+                                                         ( legacyBytes / (double) totalLegacy ) ) );
+      
+      SOPln("\nhasProperty:");
+      SOPln( String.format( "\tHashSet<String>:        %.1f ns", legacyNanos ) );
+      SOPln( String.format( "\tsorted codes, by name:  %.1f ns", nanos ) );
+      SOPln( String.format( "\tsorted codes, by code:  %.1f ns", codeNanos ) );
+      SOPln( String.format( "\treading the card only:  %.1f ns", readNanos ) );
+      
+      SOPln("\nDistinct values:");
+      for( MTGFieldDictionary dictionary : MTGCard.getFieldDictionaries() )
+         SOPln( "\t" + dictionary.getName() + ": " + ( dictionary.size() - 1 ) );
+      SOPln("(checksum " + checksum + ")");
+   }
+   
+   /**
+      Times checking every property of the snapshot against every card, keeping the
+      fastest of a few runs
+      
+      @param cards The cards
+      @param snapshot The snapshot the cards were created from
+      @param lookup The check of whether a card has a property
+      @return double The time taken per check, in ns
+   */
+   private static double timeLookups( Object[] cards, MTGCatalogSnapshot snapshot, Lookup lookup ) {
+      String[] properties = new String[ snapshot.totalProperties() ];
+      int[] codes = new int[ properties.length ];
+      for( int id = 0; id < properties.length; id++ ) {
+         properties[ id ] = snapshot.getPropertyName( id );
+         codes[ id ] = MTGCard.getPropertyCode( properties[ id ] );
+      }
+      
+      long best = Long.MAX_VALUE;
+      for( int run = 0; run < LOOKUP_RUNS; run++ ) {
+         long startTime = System.nanoTime();
+         for( int id = 0; id < properties.length; id++ )
+            for( Object card : cards )
+               if( lookup.has( card, properties[ id ], codes[ id ] ) ) checksum++;
+         best = Math.min( best, System.nanoTime() - startTime );
+      }
+      
+      return best / (double) ( (long) properties.length * cards.length );
+   }
+   
+   /**
+      Reads the card records of a card file as the old MTGQuery did: the header line is
+      skipped, and then each base properties line is followed by its properties line
+      
+      @param fileName The name of the card file
+      @return List<String[]> The base properties line and the properties line of each card
+      @throws IOException If the card file cannot be read
+   */
+   private static List<String[]> readRecords( String fileName ) throws IOException {
+      List<String> lines = Files.readAllLines( Paths.get( fileName ), StandardCharsets.UTF_8 );
+      List<String[]> records = new ArrayList<String[]>();
+      
+      int i = 1; //skip first line
+      while( i < lines.size() ) {
+         String line = lines.get( i++ ).trim();
+         if( line.isEmpty() ) continue;
+         
+         String propertiesLine = i < lines.size() ? lines.get( i++ ).trim() : "";
+         records.add( new String[]{ line, propertiesLine } );
+      }
+      
+      return records;
+   }
+   
+   /**
+      Get the heap in use after a full garbage collection
+      
+      @return long The bytes of heap in use
+   */
+   private static long usedHeap() {
+      Runtime runtime = Runtime.getRuntime();
+      long used = Long.MAX_VALUE;
+      for( int i = 0; i < GC_RUNS; i++ ) {
+         System.gc();
+         used = Math.min( used, runtime.totalMemory() - runtime.freeMemory() );
+      }
+      
+      return used;
+   }
+   
+   /**
+      A card as MTGCard used to hold it, with a String for every field
+   */
+   private static class LegacyCard {
+      
+      private final String LINE_NUMBER, IMAGE_NAME;
+      private String   NAME, CARD_TYPE, SUBTYPE, MANA_COST, RARITY,
+                       CARD_NUMBER, SET_NAME, ARTIST, YEAR, POWER,
+                       TOUGHNESS;
+      private String[] SUBTEXT_CHARS;
+      private String   EQUIP_COST, LOYALTY, QUANTITY;
+      private HashSet<String> baseSet;
+      private HashSet<String> propertiesSet;
+      private String   COLOR_TYPE;
+      private int      TOTAL_COST;
+      
+      /**
+         Create the card of a card record, splitting its lines as the old MTGQuery did
+         
+         @param line The base properties line of the card
+         @param propertiesLine The properties line of the card
+      */
+      private LegacyCard( String line, String propertiesLine ) {
+         String[] baseList = line.split("\\|");
+         LINE_NUMBER = baseList[0];
+         IMAGE_NAME = baseList.length > 1 ? baseList[1] + ".jpg" : null;
+         
+         if( baseList.length == MTGCard.BASE_PROPERTIES_SIZE ) {
+            NAME          = baseList[1];
+            CARD_TYPE     = baseList[2];
+            SUBTYPE       = baseList[3];
+            MANA_COST     = baseList[4];
+            RARITY        = baseList[5];
+            CARD_NUMBER   = baseList[6];
+            SET_NAME      = baseList[7];
+            ARTIST        = baseList[8];
+            YEAR          = baseList[9];
+            POWER         = baseList[10];
+            TOUGHNESS     = baseList[11];
+            SUBTEXT_CHARS = baseList[12].toUpperCase().split("@");
+            EQUIP_COST    = baseList[13];
+            LOYALTY       = baseList[14];
+            QUANTITY      = baseList[15];
+            
+            setColorType( MANA_COST );
+            setColorCost( MANA_COST );
+            setBaseSet();
+         }
+         
+         String[] properties = propertiesLine.split(",");
+         propertiesSet = new HashSet<String>( properties.length );
+         for( int i = 0; i < properties.length; i++ )
+            propertiesSet.add( properties[i] );
+      }
+      
+      /**
+         Sets the main color type of this card, as the old card did
+         
+         @param MANA_COST The mana cost of this card
+      */
+      private void setColorType( String MANA_COST ) {
+         if(      MANA_COST.contains("R") ) COLOR_TYPE = "RED";
+         else if( MANA_COST.contains("U") ) COLOR_TYPE = "BLUE";
+         else if( MANA_COST.contains("G") ) COLOR_TYPE = "GREEN";
+         else if( MANA_COST.contains("W") ) COLOR_TYPE = "WHITE";
+         else if( MANA_COST.contains("B") ) COLOR_TYPE = "BLACK";
+         else                               COLOR_TYPE = "COLORLESS";
+      }
+      
+      /**
+         Sets the total cost (in mana) of this card, as the old card did
+         
+         @param MANA_COST The mana cost of this card
+      */
+      private void setColorCost( String MANA_COST ) {
+         MANA_COST = MANA_COST.replaceAll("[^0-9X]+", " ");
+         TOTAL_COST = 0;
+         
+         if( MANA_COST.contains("X") ) {
+            TOTAL_COST = MTGCard.VARIABLE_COST;
+         } else {
+            String[] splitCost = MANA_COST.split(" ");
+            for( int i = 0; i < splitCost.length; i++ )
+               TOTAL_COST += Integer.parseInt( splitCost[i] );
+         }
+      }
+      
+      /**
+         Sets the HashSet of base tokens of this card, as the old card did: the words of the
+         name, card type, subtype, and artist, the subtext characters, and the rarity, set
+         name, and year
+      */
+      private void setBaseSet() {
+         final int TOTAL_STRING_BASE_PROPERTIES_EXCLUDING_SUBLISTS = 5; //don't want to double-count
+         String[] nameList = MTGSearch.removeNonLettersWhitespace( NAME ).toUpperCase().split(" ");
+         String[] typeList = CARD_TYPE.toUpperCase().split(" ");
+         String[] subtypeList = SUBTYPE.toUpperCase().split(" ");
+         String[] artistList = MTGSearch.removeNonLettersWhitespace( ARTIST ).toUpperCase().split(" ");
+         baseSet = new HashSet<String>( TOTAL_STRING_BASE_PROPERTIES_EXCLUDING_SUBLISTS + nameList.length + typeList.length +
+                                        subtypeList.length + artistList.length + SUBTEXT_CHARS.length );
+         String[][] lists = { nameList, typeList, subtypeList, artistList, SUBTEXT_CHARS };
+         
+         for( int i = 0; i < lists.length; i++ )
+            for( int j = 0; j < lists[i].length; j++ )
+               baseSet.add( lists[i][j] );
+         
+         baseSet.add( RARITY.toUpperCase()   );
+         baseSet.add( SET_NAME.toUpperCase() );
+         baseSet.add( YEAR.toUpperCase()     );
+      }
+   }
+   
+   /**
+      A way of checking whether a card has a property
+   */
+   private interface Lookup {
+      
+      /**
+         Check whether a card has a property
+         
+         @param card The card
+         @param property The property
+         @param code The code of the property, as given by MTGCard.getPropertyCode( String property )
+         @return boolean True if the card has the property, false otherwise
+      */
+      boolean has( Object card, String property, int code );
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
@@ -0,0 +1,145 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+   MTGHistogram.java
+   
+   Lock-free histogram of latencies, in the manner of HdrHistogram.
+   
+   Values are counted in buckets that are exact below 32, and above that split every power
+   of two into 32 sub-buckets, so that any value is counted within about 3% of itself, from
+   a nanosecond up to the largest long. That is 1,888 buckets in all, a fixed 15 KB, no
+   matter how many values are recorded.
+   
+   Recording a value is a few shifts to find its bucket and an atomic increment, so many
+   threads can record at once without locking. Reading a percentile walks the buckets, and
+   is consistent with the values recorded so far, give or take those being recorded while
+   it walks
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGMetrics.java
+*/
+public class MTGHistogram {
+   
+   //Sub-buckets per power of two, as a number of bits
+   private static final int SUB_BUCKET_BITS  = 5;
+   private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+   
+   //Exact buckets below SUB_BUCKET_COUNT, then SUB_BUCKET_COUNT buckets for each power of two up to 2^63
+   private static final int TOTAL_BUCKETS = SUB_BUCKET_COUNT + ( 63 - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT;
+   
+   private final AtomicLongArray counts = new AtomicLongArray( TOTAL_BUCKETS );
+   private final AtomicLong totalCount = new AtomicLong();
+   private final AtomicLong sum = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+   
+   /**
+      Records a value
+      
+      @param value The value, such as a latency in nanoseconds. Negative values are counted as 0
+   */
+   public void record( long value ) {
+      if( value < 0 ) value = 0;
+      
+      counts.incrementAndGet( bucketOf( value ) );
+      totalCount.incrementAndGet();
+      sum.addAndGet( value );
+      
+      long currentMax = max.get();
+      while( value > currentMax && !max.compareAndSet( currentMax, value ) )
+         currentMax = max.get();
+   }
+   
+   /**
+      Get the total number of values recorded
+      
+      @return long The total number of values
+   */
+   public long getCount() {
+      return totalCount.get();
+   }
+   
+   /**
+      Get the largest value recorded
+      
+      @return long The largest value, or 0 if no values have been recorded
+   */
+   public long getMax() {
+      return max.get();
+   }
+   
+   /**
+      Get the mean of the values recorded
+      
+      @return double The mean, or 0 if no values have been recorded
+   */
+   public double getMean() {
+      long count = totalCount.get();
+      return count == 0 ? 0 : sum.get() / (double) count;
+   }
+   
+   /**
+      Get the value that the given percentage of values are at or below. The value returned
+      is the highest value of its bucket, so it is never below the true percentile
+      
+      @param percentile The percentile, from 0 to 100, such as 99.9
+      @return long The value at the percentile, or 0 if no values have been recorded
+   */
+   public long getPercentile( double percentile ) {
+      long count = totalCount.get();
+      if( count == 0 ) return 0;
+      
+      long rank = Math.max( 1, (long) Math.ceil( percentile / 100 * count ) );
+      long seen = 0;
+      for( int bucket = 0; bucket < TOTAL_BUCKETS; bucket++ ) {
+         seen += counts.get( bucket );
+         if( seen >= rank ) return Math.min( highestValueOf( bucket ), max.get() );
+      }
+      
+      return max.get();
+   }
+   
+   /**
+      Clears every value recorded. Values recorded while it clears may be kept or lost
+   */
+   public void reset() {
+      for( int bucket = 0; bucket < TOTAL_BUCKETS; bucket++ )
+         counts.set( bucket, 0 );
+      totalCount.set(0);
+      sum.set(0);
+      max.set(0);
+   }
+   
+   /**
+      Get the bucket a value is counted in
+      
+      @param value The value, which is not negative
+      @return int The bucket
+   */
+   private static int bucketOf( long value ) {
+      if( value < SUB_BUCKET_COUNT ) return (int) value;
+      
+      //the highest bit gives the power of two, and the next SUB_BUCKET_BITS bits the sub-bucket
+      int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+      int subBucket = (int) ( value >>> shift ) - SUB_BUCKET_COUNT;
+      
+      return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+   }
+   
+   /**
+      Get the highest value counted in a bucket
+      
+      @param bucket The bucket
+      @return long The highest value of the bucket
+   */
+   private static long highestValueOf( int bucket ) {
+      if( bucket < SUB_BUCKET_COUNT ) return bucket;
+      
+      int shift = ( bucket - SUB_BUCKET_COUNT ) / SUB_BUCKET_COUNT;
+      long subBucket = ( bucket - SUB_BUCKET_COUNT ) % SUB_BUCKET_COUNT;
+      long lowest = ( SUB_BUCKET_COUNT + subBucket ) << shift;
+      
+      return lowest + ( 1L << shift ) - 1;
+   }
+}
@@ -0,0 +1,195 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Scanner;
+
+/**
+   MTGIngestBenchmark.java
+   
+   Allocation profile of parsing a card file, comparing the old Scanner and String.split
+   parser with the byte parser of MTGCardLoader.
+   
+   The old parser is kept here as it was: each line is read by a Scanner and split with a
+   regex, and the base tokens of each card are found with a regex replaceAll, toUpperCase,
+   and split, as MTGCard used to do. The byte parser is MTGCardLoader, which creates the
+   MTGCards as well.
+   
+   For each parser, the bytes allocated by every thread, the garbage collections, and the
+   time taken are measured over a number of runs, after a few warm up runs.
+   
+   Usage: java MTGIngestBenchmark [card file] [runs]
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCardLoader.java
+   @see MTGByteInterner.java
+*/
+public class MTGIngestBenchmark {
+   
+   private static final String TEXT_FILE = "./mtgCards.txt";
+   private static final int WARM_UP_RUNS = 3;
+   private static final int DEFAULT_RUNS = 10;
+   
+   //Keeps the results of each run reachable, so that the parsing is not optimized away
+   private static int checksum = 0;
+   
+   /**
+      Run the benchmark
+      
+      @param args The name of the card file, and the number of runs to measure
+   */
+   public static void main( String[] args ) {
+      String fileName = args.length > 0 ? args[0] : TEXT_FILE;
+      int runs = args.length > 1 ? Integer.parseInt( args[1] ) : DEFAULT_RUNS;
+      
+      try {
+         measure("Scanner + String.split", fileName, runs, () -> parseWithScanner( fileName ) );
+         measure("ByteBuffer + interner ", fileName, runs, () -> new MTGCardLoader( fileName ).totalCards() );
+      } catch( IOException e ) {
+         e.printStackTrace();
+      }
+      
+      SOPln("(checksum " + checksum + ")");
+   }
+   
+   /**
+      Measures a parser, printing the bytes allocated and garbage collected per run
+      
+      @param name The name of the parser
+      @param fileName The name of the card file
+      @param runs The number of runs to measure
+      @param parser The parser, returning the total number of cards parsed
+      @throws IOException If the card file cannot be read
+   */
+   private static void measure( String name, String fileName, int runs, Parser parser ) throws IOException {
+      for( int i = 0; i < WARM_UP_RUNS; i++ )
+         checksum += parser.parse();
+      
+      long allocatedBefore = allocatedBytes();
+      long[] gcBefore = collections();
+      long startTime = System.nanoTime();
+      
+      int totalCards = 0;
+      for( int i = 0; i < runs; i++ )
+         totalCards = parser.parse();
+      checksum += totalCards;
+      
+      long nanos = System.nanoTime() - startTime;
+      long allocated = allocatedBytes() - allocatedBefore;
+      long[] gcAfter = collections();
+      
+      SOPln( name + ": " + String.format( "%.2f", allocated / (double) runs / ( 1 << 20 ) ) + " MB allocated per run, " +
+             ( totalCards > 0 ? allocated / runs / totalCards : 0 ) + " bytes per card, " +
+             ( gcAfter[0] - gcBefore[0] ) + " collections (" + ( gcAfter[1] - gcBefore[1] ) + " ms), " +
+             String.format( "%.2f", nanos / 1e6 / runs ) + " ms per run" );
+   }
+   
+   /**
+      Parses the card file the old way, with a Scanner, String.split, and regexes
+      
+      @param fileName The name of the card file
+      @return int The total number of cards parsed
+      @throws IOException If the card file cannot be read
+   */
+   private static int parseWithScanner( String fileName ) throws IOException {
+      int totalCards = 0;
+      try( Scanner scanner = new Scanner( new File( fileName ), "UTF-8" ) ) {
+         if( scanner.hasNextLine() ) scanner.nextLine(); //skip first line
+         
+         while( scanner.hasNextLine() ) {
+            String[] baseList = scanner.nextLine().trim().split("\\|");
+            if( !scanner.hasNextLine() ) break;
+            String[] properties = scanner.nextLine().trim().split(",");
+            
+            HashSet<String> propertiesSet = new HashSet<String>();
+            for( int i = 0; i < properties.length; i++ )
+               propertiesSet.add( properties[i] );
+            
+            if( baseList.length == MTGCard.BASE_PROPERTIES_SIZE ) checksum += getBaseTokensWithRegex( baseList ).size();
+            checksum += propertiesSet.size();
+            totalCards++;
+         }
+      }
+      
+      return totalCards;
+   }
+   
+   /**
+      Finds the base tokens of a card the way MTGCard used to, with regexes and splits
+      
+      @param baseList The list of base properties, starting with the line number
+      @return HashSet<String> The tokens of the base properties
+      @see MTGCard.getBaseTokens( String[] baseList )
+   */
+   private static HashSet<String> getBaseTokensWithRegex( String[] baseList ) {
+      String[][] lists = { baseList[1].replaceAll("[^a-zA-Z\\s]+", "").toUpperCase().split(" "),
+                           baseList[2].toUpperCase().split(" "),
+                           baseList[3].toUpperCase().split(" "),
+                           baseList[8].replaceAll("[^a-zA-Z\\s]+", "").toUpperCase().split(" "),
+                           baseList[12].toUpperCase().split("@") };
+      HashSet<String> baseSet = new HashSet<String>();
+      for( int i = 0; i < lists.length; i++ )
+         for( int j = 0; j < lists[i].length; j++ )
+            baseSet.add( lists[i][j] );
+      
+      baseSet.add( baseList[5].toUpperCase() );
+      baseSet.add( baseList[7].toUpperCase() );
+      baseSet.add( baseList[9].toUpperCase() );
+      
+      return baseSet;
+   }
+   
+   /**
+      Sums the bytes allocated so far by every live thread, including the fork-join workers
+      
+      @return long The total bytes allocated
+   */
+   private static long allocatedBytes() {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long total = 0;
+      for( long allocated : threads.getThreadAllocatedBytes( threads.getAllThreadIds() ) )
+         if( allocated > 0 ) total += allocated;
+      
+      return total;
+   }
+   
+   /**
+      Get the garbage collections so far
+      
+      @return long[] The total number of collections, and the total time spent collecting in ms
+   */
+   private static long[] collections() {
+      long[] totals = new long[2];
+      for( GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans() ) {
+         totals[0] += Math.max( 0, collector.getCollectionCount() );
+         totals[1] += Math.max( 0, collector.getCollectionTime() );
+      }
+      
+      return totals;
+   }
+   
+   /**
+      A way of parsing the card file
+   */
+   private interface Parser {
+      
+      /**
+         Parse the card file
+         
+         @return int The total number of cards parsed
+         @throws IOException If the card file cannot be read
+      */
+      int parse() throws IOException;
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
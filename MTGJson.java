@@ -0,0 +1,235 @@
+import java.util.List;
+import java.util.Locale;
+
+/**
+   MTGJson.java
+   
+   Writes search results as JSON, for the search server and batch searches, and reads the
+   string fields of the JSON lines given to a batch search.
+   
+   Only what is needed for the results is written: Strings, numbers, and cards. Each card
+   is an object of its base properties, such as:
+   
+   {"line":"2","name":"Lifeblood Hydra","type":"Creature","subtype":"Hydra",...}
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGSearchServer.java
+   @see MTGCard.java
+*/
+public class MTGJson {
+   
+   private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+   
+   /**
+      Writes the cards found for a query as a JSON object, with the query, the total number
+      of cards found, the time taken, and the cards themselves
+      
+      @param query The query, as entered
+      @param cards The cards found
+      @param limit The most cards to write, or a negative number to write all of them
+      @param nanos The time taken by the search, in nanoseconds
+      @return String The JSON object
+      @see appendResult( String query, List<MTGCard> cards, int limit, long nanos, StringBuilder json )
+   */
+   public static String toJson( String query, List<MTGCard> cards, int limit, long nanos ) {
+      StringBuilder json = new StringBuilder();
+      json.append('{');
+      appendResult( query, cards, limit, nanos, json );
+      json.append('}');
+      
+      return json.toString();
+   }
+   
+   /**
+      Writes the fields of a search result, without the braces around them, so that more
+      fields can be written into the same object. The time taken is recorded as the render
+      phase of MTGMetrics
+      
+      @param query The query, as entered
+      @param cards The cards found
+      @param limit The most cards to write, or a negative number to write all of them
+      @param nanos The time taken by the search, in nanoseconds
+      @param json The JSON to write to
+   */
+   public static void appendResult( String query, List<MTGCard> cards, int limit, long nanos, StringBuilder json ) {
+      long startTime = System.nanoTime();
+      json.append("\"query\":");
+      quote( query, json );
+      json.append(",\"total\":").append( cards.size() );
+      json.append(",\"tookMs\":").append( toMillis( nanos ) );
+      json.append(",\"cards\":[");
+      
+      int total = limit < 0 ? cards.size() : Math.min( limit, cards.size() );
+      for( int i = 0; i < total; i++ ) {
+         if( i > 0 ) json.append(',');
+         append( cards.get(i), json );
+      }
+      json.append(']');
+      
+      MTGMetrics.get().record( MTGMetrics.RENDER, startTime );
+   }
+   
+   /**
+      Get a time in milliseconds as a JSON number, with three decimal places
+      
+      @param nanos The time in nanoseconds
+      @return String The time in milliseconds
+   */
+   public static String toMillis( long nanos ) {
+      return String.format( Locale.ROOT, "%.3f", nanos / 1e6 );
+   }
+   
+   /**
+      Get the value of a string field of a flat JSON object, such as the "q" of
+      {"id":"7","q":"elf druid"}. Nested objects and arrays are not looked into
+      
+      @param json The JSON object
+      @param name The name of the field
+      @return String The unescaped value of the field, or null if there is no string field with this name
+      @throws IllegalArgumentException If a string has a unicode escape without four hex digits
+   */
+   public static String getString( String json, String name ) {
+      int position = 0;
+      while( position < json.length() ) {
+         int keyStart = json.indexOf( '"', position );
+         if( keyStart < 0 ) return null;
+         
+         StringBuilder key = new StringBuilder();
+         int keyEnd = unquote( json, keyStart, key );
+         int colon = skipWhitespace( json, keyEnd );
+         if( colon >= json.length() || json.charAt( colon ) != ':' ) {
+            position = keyEnd; //a string value, not a key
+            continue;
+         }
+         
+         int valueStart = skipWhitespace( json, colon + 1 );
+         if( valueStart < json.length() && json.charAt( valueStart ) == '"' ) {
+            StringBuilder value = new StringBuilder();
+            position = unquote( json, valueStart, value );
+            if( key.toString().equals( name ) ) return value.toString();
+         } else {
+            position = valueStart;
+         }
+      }
+      
+      return null;
+   }
+   
+   /**
+      Reads a JSON string, undoing its escapes
+      
+      @param json The JSON holding the string
+      @param start The position of the opening quote
+      @param value The String to write the unescaped value to
+      @return int The position after the closing quote
+      @throws IllegalArgumentException If a unicode escape is not followed by four hex digits
+   */
+   private static int unquote( String json, int start, StringBuilder value ) {
+      int i = start + 1;
+      while( i < json.length() && json.charAt(i) != '"' ) {
+         char c = json.charAt( i++ );
+         if( c != '\\' || i >= json.length() ) {
+            value.append( c );
+            continue;
+         }
+         
+         char escaped = json.charAt( i++ );
+         if(      escaped == 'n' ) value.append('\n');
+         else if( escaped == 'r' ) value.append('\r');
+         else if( escaped == 't' ) value.append('\t');
+         else if( escaped == 'b' ) value.append('\b');
+         else if( escaped == 'f' ) value.append('\f');
+         else if( escaped == 'u' ) {
+            int code = 0;
+            for( int j = i; j < i + 4; j++ ) {
+               int digit = j < json.length() ? Character.digit( json.charAt(j), 16 ) : -1;
+               if( digit < 0 ) throw new IllegalArgumentException("Expected four hex digits after \\u at position " + ( i - 2 ) );
+               code = code * 16 + digit;
+            }
+            value.append( (char) code );
+            i += 4;
+         } else {
+            value.append( escaped );
+         }
+      }
+      
+      return i + 1;
+   }
+   
+   /**
+      Skips whitespace
+      
+      @param json The JSON
+      @param position The position to start from
+      @return int The position of the next character that is not whitespace
+   */
+   private static int skipWhitespace( String json, int position ) {
+      while( position < json.length() && Character.isWhitespace( json.charAt( position ) ) )
+         position++;
+      
+      return position;
+   }
+   
+   /**
+      Writes a card as a JSON object of its base properties
+      
+      @param card The card to write
+      @param json The JSON to write to
+   */
+   public static void append( MTGCard card, StringBuilder json ) {
+      String[][] fields = { { "line", card.getLineNumber() }, { "name", card.getName() }, { "type", card.getCardType() },
+                            { "subtype", card.getSubtype() }, { "manaCost", card.getManaCost() }, { "rarity", card.getRarity() },
+                            { "set", card.getSetName() }, { "cardNumber", card.getCardNumber() }, { "artist", card.getArtist() },
+                            { "year", card.getYear() }, { "power", card.getPower() }, { "toughness", card.getToughness() },
+                            { "loyalty", card.getLoyalty() }, { "image", card.getImageName() } };
+      
+      json.append('{');
+      for( int i = 0; i < fields.length; i++ ) {
+         if( i > 0 ) json.append(',');
+         quote( fields[i][0], json );
+         json.append(':');
+         quote( fields[i][1], json );
+      }
+      json.append('}');
+   }
+   
+   /**
+      Writes a String as a JSON string, escaping quotes, backslashes, and control characters
+      
+      @param str The String to write, or null for a JSON null
+      @param json The JSON to write to
+   */
+   public static void quote( String str, StringBuilder json ) {
+      if( str == null ) {
+         json.append("null");
+         return;
+      }
+      
+      json.append('"');
+      for( int i = 0; i < str.length(); i++ ) {
+         char c = str.charAt(i);
+         if(      c == '"' || c == '\\' ) json.append('\\').append( c );
+         else if( c == '\n' )             json.append("\\n");
+         else if( c == '\r' )             json.append("\\r");
+         else if( c == '\t' )             json.append("\\t");
+         else if( c < ' ' )               json.append("\\u00").append( HEX_DIGITS[ c >> 4 ] ).append( HEX_DIGITS[ c & 0xF ] );
+         else                             json.append( c );
+      }
+      json.append('"');
+   }
+   
+   /**
+      Get a String as a JSON string
+      
+      @param str The String, or null for a JSON null
+      @return String The JSON string
+      @see quote( String str, StringBuilder json )
+   */
+   public static String quote( String str ) {
+      StringBuilder json = new StringBuilder();
+      quote( str, json );
+      
+      return json.toString();
+   }
+}
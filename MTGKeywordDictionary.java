@@ -0,0 +1,355 @@
+import java.io.File;
+import java.util.Scanner;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+   MTGKeywordDictionary.java
+   
+   The compiled form of the keyword file, mtgKeywordSearchList.txt.
+   
+   A dictionary is immutable once compiled, so a single dictionary is shared by every
+   MTGQuery. The current dictionary for a keyword file is compiled the first time it is
+   asked for, and a file watcher then recompiles it whenever the keyword file changes,
+   swapping the new dictionary in atomically. Queries that are already running keep
+   the dictionary they started with
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+   @see MTGPhraseMatcher.java
+   @see mtgKeywordSearchList.txt
+*/
+public class MTGKeywordDictionary {
+   
+   //Keyword file name -> current dictionary for that file
+   private static final HashMap<String, AtomicReference<MTGKeywordDictionary>> dictionaries = new HashMap<String, AtomicReference<MTGKeywordDictionary>>();
+   
+   private final String fileName;
+   private final MTGPhraseMatcher matcher;
+   private final HashSet<String> rangeKeywords;
+   private final String[][] phrases;
+   private final long checksum;
+   private final int totalLines;
+   
+   /**
+      Create a dictionary from a compiled matcher
+      
+      @param fileName The name of the keyword file
+      @param matcher The compiled matcher holding every key and phrase
+      @param rangeKeywords The keywords of the comparison lines
+      @param phrases Every phrase of the file, with its keyword
+      @param checksum The checksum of the keyword file contents that were read
+      @see compile( String fileName )
+   */
+   private MTGKeywordDictionary( String fileName, MTGPhraseMatcher matcher, HashSet<String> rangeKeywords, String[][] phrases, long checksum ) {
+      this.fileName = fileName;
+      this.matcher = matcher;
+      this.rangeKeywords = rangeKeywords;
+      this.phrases = phrases;
+      this.checksum = checksum;
+      this.totalLines = matcher.totalLines();
+   }
+   
+   /**
+      Get the current dictionary for the given keyword file. The dictionary is compiled
+      the first time it is asked for, and a watcher is started to recompile it whenever
+      the file changes
+      
+      @param fileName The name of the keyword file. See 'mtgKeywordSearchList.txt'
+      @return MTGKeywordDictionary The current dictionary, or null if the keyword file could
+                                   not be compiled
+      @see compile( String fileName )
+      @see watch( String fileName, AtomicReference<MTGKeywordDictionary> current )
+   */
+   public static MTGKeywordDictionary get( String fileName ) {
+      AtomicReference<MTGKeywordDictionary> current;
+      synchronized( dictionaries ) {
+         current = dictionaries.get( fileName );
+         if( current == null ) {
+            current = new AtomicReference<MTGKeywordDictionary>();
+            try {
+               current.set( compile( fileName ) );
+            } catch( KeywordFileFormatException | RuntimeException e ) {
+               SOPln( e.getMessage() );
+            }
+            
+            dictionaries.put( fileName, current );
+            watch( fileName, current );
+         }
+      }
+      
+      return current.get();
+   }
+   
+   /**
+      Compile the language processing lines of the keyword file.
+      
+      Each line has a key, a comma separated list of phrases, and the keyword property,
+      all separated by '@'s.
+      
+      The lines above the '@@@' line are comparison lines, which have no key. Their phrases
+      use an X where the user gives a number, such as 'POWER X OR GREATER', and their keywords
+      are an attribute, an X, and a comparison: '+=' for at least, '+' for greater than,
+      '-=' for at most, '-' for less than, and nothing for equal to, such as 'powerX+='
+      
+      @param fileName The name of the keyword file
+      @return MTGKeywordDictionary The compiled dictionary
+      @throws KeywordFileFormatException If a line does not have exactly three parts (two for
+                                         comparison lines), has a character that cannot be
+                                         matched, or if the file cannot be read
+      @see MTGPhraseMatcher.compile()
+   */
+   public static MTGKeywordDictionary compile( String fileName ) throws KeywordFileFormatException {
+      long startTime = System.nanoTime();
+      File mtgKeywordFile = new File( fileName );
+      byte[] contents;
+      try {
+         contents = Files.readAllBytes( mtgKeywordFile.toPath() );
+      } catch( IOException e ) {
+         throw new KeywordFileFormatException("Could not read " + fileName + ": " + e.getMessage() );
+      }
+      Scanner fileScanner = new Scanner( new String( contents, StandardCharsets.UTF_8 ) );
+      
+      MTGPhraseMatcher matcher = new MTGPhraseMatcher();
+      HashSet<String> rangeKeywords = new HashSet<String>();
+      ArrayList<String[]> phrases = new ArrayList<String[]>();
+      
+      try {
+         int lineCounter = 0;
+         boolean hasFoundStart = false;
+         while( fileScanner.hasNextLine() ) {
+            ++lineCounter;
+            String line = fileScanner.nextLine();
+            
+            //comparison lines come before the regular lines
+            if( !hasFoundStart ) {
+               if( line.equals("@@@") ) {
+                  hasFoundStart = true;
+                  continue;
+               }
+               
+               String[] lineSplit = line.split("@");
+               if( lineSplit.length != 2 ) throw new KeywordFileFormatException("Expected one @ on comparison line " + lineCounter + " in " + mtgKeywordFile.getName() +
+                                                                                 ", but found " + ( lineSplit.length - 1 ) + " @ symbols for parsing");
+               addLine( matcher, null, lineSplit[0].split(","), lineSplit[1], lineCounter, mtgKeywordFile );
+               rangeKeywords.add( lineSplit[1] );
+               addPhrases( lineSplit[0].split(","), lineSplit[1], phrases );
+               continue;
+            }
+            
+            String[] lineSplit = line.split("@");
+            if( lineSplit.length != 3 ) throw new KeywordFileFormatException("Expected three @s on line " + lineCounter + " in " + mtgKeywordFile.getName() +
+                                                                              ", but found " + lineSplit.length + " @ symbols for parsing");
+            addLine( matcher, lineSplit[0], lineSplit[1].split(","), lineSplit[2], lineCounter, mtgKeywordFile );
+            addPhrases( lineSplit[1].split(","), lineSplit[2], phrases );
+         }
+      } finally {
+         fileScanner.close();
+      }
+      
+      matcher.compile();
+      
+      MTGMetrics.get().record( MTGMetrics.DICTIONARY, startTime );
+      return new MTGKeywordDictionary( fileName, matcher, rangeKeywords, phrases.toArray( new String[0][] ), checksumOf( contents ) );
+   }
+   
+   /**
+      Adds a line of the keyword file to the matcher
+      
+      @param matcher The matcher to add the line to
+      @param key The key of the line, or null for a comparison line
+      @param linePhrases The phrases of the line
+      @param keyword The keyword property of the line
+      @param lineCounter The line number, for the error message
+      @param mtgKeywordFile The keyword file, for the error message
+      @throws KeywordFileFormatException If the key or a phrase has a character that cannot be matched
+      @see MTGPhraseMatcher.addLine( String key, String[] phrases, String keyword )
+   */
+   private static void addLine( MTGPhraseMatcher matcher, String key, String[] linePhrases, String keyword, int lineCounter, File mtgKeywordFile ) throws KeywordFileFormatException {
+      try {
+         matcher.addLine( key, linePhrases, keyword );
+      } catch( IllegalArgumentException e ) {
+         throw new KeywordFileFormatException( e.getMessage() + " on line " + lineCounter + " in " + mtgKeywordFile.getName() );
+      }
+   }
+   
+   /**
+      Get the CRC32 checksum of the contents of a keyword file
+      
+      @param contents The bytes of the keyword file
+      @return long The checksum
+   */
+   private static long checksumOf( byte[] contents ) {
+      CRC32 crc = new CRC32();
+      crc.update( contents );
+      return crc.getValue();
+   }
+   
+   /**
+      Adds the phrases of a line, each with the keyword of the line
+      
+      @param linePhrases The phrases of the line
+      @param keyword The keyword property of the line
+      @param phrases The phrases of the file so far, each as { phrase, keyword }
+   */
+   private static void addPhrases( String[] linePhrases, String keyword, ArrayList<String[]> phrases ) {
+      for( String phrase : linePhrases ) {
+         if( !phrase.isBlank() ) phrases.add( new String[]{ phrase.strip(), keyword } );
+      }
+   }
+   
+   /**
+      Finds every phrase of the dictionary within the normalized user input
+      
+      @param input The normalized user input
+      @return MTGPhraseMatcher.Result The keywords found and the leftover token spans
+      @see MTGPhraseMatcher.match( String input )
+   */
+   public MTGPhraseMatcher.Result match( String input ) {
+      return matcher.match( input );
+   }
+   
+   /**
+      Get every phrase of the keyword file, as written, with the keyword it translates into.
+      The array returned is owned by the dictionary and should not be modified
+      
+      @return String[][] Each phrase, as { phrase, keyword }, in the order of the file
+   */
+   public String[][] getPhrases() {
+      return phrases;
+   }
+   
+   /**
+      Determines whether a keyword comes from one of the comparison lines, such as 'powerX+='
+      
+      @param keyword The keyword to check
+      @return boolean True if the keyword is a comparison keyword, false otherwise
+   */
+   public boolean isRangeKeyword( String keyword ) {
+      return rangeKeywords.contains( keyword );
+   }
+   
+   /**
+      Get the name of the keyword file this dictionary was compiled from
+      
+      @return String The name of the keyword file
+   */
+   public String getFileName() {
+      return fileName;
+   }
+   
+   /**
+      Get the checksum of the keyword file contents this dictionary was compiled from
+      
+      @return long The CRC32 checksum of the keyword file
+   */
+   public long getChecksum() {
+      return checksum;
+   }
+   
+   /**
+      Returns the total number of keyword lines in this dictionary
+      
+      @return int The total number of lines
+   */
+   public int totalLines() {
+      return totalLines;
+   }
+   
+   /**
+      Starts a daemon thread that watches the directory of the keyword file, and swaps in a
+      newly compiled dictionary whenever the contents of the file change. If the changed file
+      cannot be compiled, the error is printed and the previous dictionary is kept
+      
+      @param fileName The name of the keyword file
+      @param current The reference holding the current dictionary for the file
+      @see WatchService
+   */
+   private static void watch( String fileName, AtomicReference<MTGKeywordDictionary> current ) {
+      Path filePath = new File( fileName ).getAbsoluteFile().toPath();
+      Path directory = filePath.getParent();
+      Path watchedName = filePath.getFileName();
+      
+      WatchService watcher = null;
+      try {
+         watcher = FileSystems.getDefault().newWatchService();
+         directory.register( watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY );
+      } catch( IOException e ) {
+         SOPln("Could not watch " + fileName + " for changes: " + e.getMessage() );
+         return;
+      }
+      
+      final WatchService service = watcher;
+      Thread thread = new Thread( () -> {
+         while( true ) {
+            WatchKey key;
+            try {
+               key = service.take();
+            } catch( InterruptedException e ) {
+               return;
+            }
+            
+            boolean hasChanged = false;
+            for( WatchEvent<?> event : key.pollEvents() ) {
+               if( watchedName.equals( event.context() ) ) hasChanged = true;
+            }
+            key.reset();
+            
+            //editors often write a file more than once, within the same modification time, so only
+            //the contents tell whether the last write has been read
+            try {
+               MTGKeywordDictionary previous = current.get();
+               if( !hasChanged || ( previous != null && previous.getChecksum() == checksumOf( Files.readAllBytes( filePath ) ) ) ) continue;
+               
+               current.set( compile( fileName ) );
+               SOPln("Reloaded " + fileName );
+            } catch( KeywordFileFormatException | IOException | RuntimeException e ) {
+               SOPln("Could not reload " + fileName + ": " + e.getMessage() );
+            }
+         }
+      }, "MTGKeywordDictionary watcher" );
+      
+      thread.setDaemon( true );
+      thread.start();
+   }
+   
+   /**
+      Exception class related to errors with the keyword text file
+   */
+   public static class KeywordFileFormatException extends Exception {
+      
+      private static final long serialVersionUID = 1L;
+      
+      /**
+         Throw new exception
+         
+         @param errorMessage The message to print
+      */
+      public KeywordFileFormatException( String errorMessage ) {
+         super( errorMessage );
+      }
+   
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
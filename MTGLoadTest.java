@@ -0,0 +1,249 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+   MTGLoadTest.java
+   
+   Replays a mix of searches against generated card files of growing size, and reports the
+   load time, the heap in use, and the latency of the searches at each size.
+   
+   The card files are written by MTGCatalogGenerator to the temporary directory the first
+   time a size is needed, and kept for later runs. Each size is measured in a JVM of its own,
+   started with the same class path and the same most heap, so that the heap left over from
+   one size is not counted in the next, and a size that runs out of heap does not stop the
+   rest. For each size:
+   
+   1) compile  Creating an MTGQuery when the card file has no snapshot, which parses the
+               card file and compiles its snapshot
+   2) load     Creating an MTGQuery again, from the snapshot
+   3) heap     The heap in use after a full garbage collection, with the cards loaded and
+               every search run, less the heap in use before the load
+   4) search   The time taken by each search, without the result cache, over a number of
+               rounds of the mix after one warm up round
+   
+   Usage: java MTGLoadTest [sizes] [query file] [rounds]
+   
+   Sizes are separated by commas, such as 10k,100k,1m, and the query file has a search per
+   line, with blank lines and lines starting with '#' skipped.
+   
+   A generated card takes about 205 bytes, and a card file cannot be larger than
+   MTGCardLoader.MAX_FILE_SIZE, so about 10 million cards is the most a single card file
+   can hold. Each million cards also keeps about 600 MB of heap once loaded, so sizes past
+   1m are left out of the defaults
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCatalogGenerator.java
+   @see MTGHistogram.java
+*/
+public class MTGLoadTest {
+   
+   private static final String TEXT_FILE = "./mtgCards.txt";
+   private static final String QUERY_FILE = "./jmh/src/main/resources/queries.txt";
+   private static final String DEFAULT_SIZES = "10k,100k,1m";
+   private static final int DEFAULT_ROUNDS = 5;
+   private static final long SEED = 1;
+   private static final int GC_RUNS = 5;
+   
+   //First argument of the JVM that measures a single size, and the start of the line it reports
+   private static final String RUN_ONE = "--size";
+   private static final String RESULT = "RESULT";
+   
+   private static final File DIRECTORY = new File( System.getProperty("java.io.tmpdir"), "mtg-search-load" );
+   
+   /**
+      Run the load test
+      
+      @param args The sizes, the query file, and the number of rounds
+   */
+   public static void main( String[] args ) {
+      if( args.length > 0 && args[0].equals( RUN_ONE ) ) {
+         measure( args[1], args[2], Integer.parseInt( args[3] ) );
+         return;
+      }
+      
+      String[] sizes = ( args.length > 0 ? args[0] : DEFAULT_SIZES ).split(",");
+      String queryFileName = args.length > 1 ? args[1] : QUERY_FILE;
+      int rounds = args.length > 2 ? Integer.parseInt( args[2] ) : DEFAULT_ROUNDS;
+      
+      SOPln( String.format( Locale.ROOT, "%10s %12s %10s %10s %10s %10s %9s", "cards", "compile ms", "load ms", "heap MB", "p50 ms", "p99 ms", "searches" ) );
+      for( String size : sizes ) {
+         try {
+            String fileName = getCardFile( MTGCatalogGenerator.parseTotal( size ) );
+            SOPln( runOne( fileName, queryFileName, rounds ) );
+         } catch( IOException e ) {
+            SOPln( String.format( Locale.ROOT, "%10s failed: %s", size, e.getMessage() ) );
+         }
+      }
+   }
+   
+   /**
+      Get the generated card file of a size, writing it if it does not exist
+      
+      @param totalCards The number of cards
+      @return String The name of the card file
+      @throws IOException If the card file cannot be written
+   */
+   private static String getCardFile( long totalCards ) throws IOException {
+      File file = new File( DIRECTORY, "mtgCards-" + totalCards + ".txt" );
+      if( file.isFile() ) return file.getPath();
+      
+      if( !DIRECTORY.isDirectory() && !DIRECTORY.mkdirs() ) throw new IOException("Could not create " + DIRECTORY );
+      
+      //written under another name first, so that a run stopped part way does not leave a short file behind
+      File temporary = new File( DIRECTORY, file.getName() + ".tmp" );
+      long startTime = System.nanoTime();
+      new MTGCatalogGenerator( TEXT_FILE ).write( temporary.getPath(), totalCards, SEED );
+      if( !temporary.renameTo( file ) ) throw new IOException("Could not rename " + temporary + " to " + file );
+      System.err.println("Wrote " + file + " in " + MTGJson.toMillis( System.nanoTime() - startTime ) + " ms");
+      
+      return file.getPath();
+   }
+   
+   /**
+      Measures a size in a JVM of its own, and waits for it
+      
+      @param fileName The name of the card file
+      @param queryFileName The name of the query file
+      @param rounds The number of rounds of the mix to time
+      @return String The row of the size, or why it failed
+      @throws IOException If the JVM could not be started
+   */
+   private static String runOne( String fileName, String queryFileName, int rounds ) throws IOException {
+      ArrayList<String> command = new ArrayList<String>();
+      command.add( new File( System.getProperty("java.home"), "bin/java" ).getPath() );
+      command.add("-Xmx" + Runtime.getRuntime().maxMemory() / ( 1 << 20 ) + "m");
+      command.add("-cp");
+      command.add( System.getProperty("java.class.path") );
+      command.add( MTGLoadTest.class.getName() );
+      command.add( RUN_ONE );
+      command.add( fileName );
+      command.add( queryFileName );
+      command.add( Integer.toString( rounds ) );
+      
+      Process process = new ProcessBuilder( command ).redirectError( ProcessBuilder.Redirect.INHERIT ).start();
+      String result = null;
+      try( BufferedReader reader = new BufferedReader( new InputStreamReader( process.getInputStream(), StandardCharsets.UTF_8 ) ) ) {
+         String line;
+         while( ( line = reader.readLine() ) != null )
+            if( line.startsWith( RESULT ) ) result = line.substring( RESULT.length() );
+      }
+      
+      try {
+         int exitCode = process.waitFor();
+         if( result == null ) return String.format( Locale.ROOT, "%10s failed with exit code %d, see the errors above", new File( fileName ).getName(), exitCode );
+      } catch( InterruptedException e ) {
+         Thread.currentThread().interrupt();
+         process.destroy();
+         throw new IOException("Interrupted while measuring " + fileName );
+      }
+      
+      return result;
+   }
+   
+   /**
+      Measures a single size, and prints its row after RESULT. Nothing is printed after
+      RESULT if the cards could not be loaded, such as when the heap runs out
+      
+      @param fileName The name of the card file
+      @param queryFileName The name of the query file
+      @param rounds The number of rounds of the mix to time
+   */
+   private static void measure( String fileName, String queryFileName, int rounds ) {
+      String[] queries;
+      try {
+         queries = readQueries( queryFileName );
+      } catch( IOException e ) {
+         e.printStackTrace();
+         return;
+      }
+      
+      File snapshotFile = MTGCatalogSnapshot.getSnapshotFile( fileName );
+      if( snapshotFile.exists() && !snapshotFile.delete() ) System.err.println("Could not delete " + snapshotFile );
+      
+      long startTime = System.nanoTime();
+      new MTGQuery( fileName );
+      long compileNanos = System.nanoTime() - startTime;
+      
+      long heapBefore = usedHeap();
+      startTime = System.nanoTime();
+      MTGQuery query = new MTGQuery( fileName );
+      long loadNanos = System.nanoTime() - startTime;
+      
+      if( query.totalCards() == 0 ) {
+         System.err.println("No cards were loaded from " + fileName );
+         return;
+      }
+      
+      query.setPrintingPlan( false );
+      query.getDictionary();
+      
+      MTGHistogram latencies = new MTGHistogram();
+      for( int round = 0; round <= rounds; round++ ) {
+         for( String search : queries ) {
+            query.getResultCache().invalidate();
+            
+            startTime = System.nanoTime();
+            query.search( search );
+            if( round > 0 ) latencies.record( System.nanoTime() - startTime );
+         }
+      }
+      
+      long heapBytes = usedHeap() - heapBefore;
+      
+      SOPln( RESULT + String.format( Locale.ROOT, "%10d %12.1f %10.1f %10.1f %10.3f %10.3f %9d", query.totalCards(), compileNanos / 1e6, loadNanos / 1e6,
+                                     heapBytes / (double) ( 1 << 20 ), latencies.getPercentile( 50 ) / 1e6, latencies.getPercentile( 99 ) / 1e6,
+                                     latencies.getCount() ) );
+   }
+   
+   /**
+      Get the searches of a query file
+      
+      @param queryFileName The name of the query file
+      @return String[] The searches, in file order
+      @throws IOException If the query file cannot be read
+   */
+   private static String[] readQueries( String queryFileName ) throws IOException {
+      ArrayList<String> queries = new ArrayList<String>();
+      try( BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( queryFileName ), StandardCharsets.UTF_8 ) ) ) {
+         String line;
+         while( ( line = reader.readLine() ) != null ) {
+            line = line.trim();
+            if( !line.isEmpty() && !line.startsWith("#") ) queries.add( line );
+         }
+      }
+      
+      return queries.toArray( new String[0] );
+   }
+   
+   /**
+      Get the heap in use after a full garbage collection
+      
+      @return long The bytes of heap in use
+   */
+   private static long usedHeap() {
+      Runtime runtime = Runtime.getRuntime();
+      long used = Long.MAX_VALUE;
+      for( int i = 0; i < GC_RUNS; i++ ) {
+         System.gc();
+         used = Math.min( used, runtime.totalMemory() - runtime.freeMemory() );
+      }
+      
+      return used;
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
@@ -0,0 +1,258 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+   MTGMetrics.java
+   
+   Timers for each phase of a search, and counters of the work done, shared by every
+   MTGQuery of the program.
+   
+   The phases are:
+   
+   1) load        Creating an MTGQuery: opening the card file and building its indexes
+   2) dictionary  Compiling the keyword file
+   3) translate   Turning the user input into properties and leftover words
+   4) plan        Turning those into predicates, ordered by estimate
+   5) evaluate    Finding the matching cards, from the result cache or the indexes
+   6) render      Printing the cards found, or writing them as JSON
+   
+   Each phase records into its own MTGHistogram, which many threads can record into at once
+   without locking. The counters are of the cards tested one by one, the predicates answered
+   from a bitmap of an index, and the searches answered from the result cache, or not.
+   
+   The timers and counters can be read as text through dump(), or through JMX as the
+   MBean MTGSearch:type=Metrics once register() has been called
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGHistogram.java
+   @see MTGMetricsMBean.java
+   @see MTGQuery.search( String userInput )
+*/
+public class MTGMetrics implements MTGMetricsMBean {
+   
+   public static final int LOAD       = 0;
+   public static final int DICTIONARY = 1;
+   public static final int TRANSLATE  = 2;
+   public static final int PLAN       = 3;
+   public static final int EVALUATE   = 4;
+   public static final int RENDER     = 5;
+   
+   private static final String[] PHASE_NAMES = { "load", "dictionary", "translate", "plan", "evaluate", "render" };
+   
+   private static final String OBJECT_NAME = "MTGSearch:type=Metrics";
+   
+   private static final MTGMetrics metrics = new MTGMetrics();
+   private static boolean isRegistered = false;
+   
+   private final MTGHistogram[] histograms;
+   private final LongAdder cardsScanned = new LongAdder();
+   private final LongAdder indexHits    = new LongAdder();
+   private final LongAdder cacheHits    = new LongAdder();
+   private final LongAdder cacheMisses  = new LongAdder();
+   private final LongAdder shardsSearched = new LongAdder();
+   private final LongAdder shardsPruned   = new LongAdder();
+   
+   /**
+      Create the timers and counters, all empty
+   */
+   private MTGMetrics() {
+      histograms = new MTGHistogram[ PHASE_NAMES.length ];
+      for( int i = 0; i < histograms.length; i++ )
+         histograms[i] = new MTGHistogram();
+   }
+   
+   /**
+      Get the timers and counters of the program
+      
+      @return MTGMetrics The timers and counters
+   */
+   public static MTGMetrics get() {
+      return metrics;
+   }
+   
+   /**
+      Registers the timers and counters as an MBean, so that JMX clients can read them. This
+      is left to long-running modes, since starting the MBean server takes some time
+      
+      @see MTGSearchServer.java
+      @see MTGBatch.java
+   */
+   public static synchronized void register() {
+      if( isRegistered ) return;
+      
+      try {
+         ManagementFactory.getPlatformMBeanServer().registerMBean( metrics, new ObjectName( OBJECT_NAME ) );
+         isRegistered = true;
+      } catch( JMException e ) {
+         SOPln("Could not register " + OBJECT_NAME + ": " + e.getMessage() );
+      }
+   }
+   
+   /**
+      Records the time taken by a phase
+      
+      @param phase The phase, such as TRANSLATE
+      @param startTime The System.nanoTime() when the phase began
+      @return long The System.nanoTime() now, which is when the next phase begins
+   */
+   public long record( int phase, long startTime ) {
+      long now = System.nanoTime();
+      histograms[ phase ].record( now - startTime );
+      
+      return now;
+   }
+   
+   /**
+      Adds to the number of cards tested one by one
+      
+      @param cards The cards tested
+   */
+   public void addCardsScanned( long cards ) {
+      cardsScanned.add( cards );
+   }
+   
+   /**
+      Counts a predicate answered from a bitmap of an index
+   */
+   public void addIndexHit() {
+      indexHits.increment();
+   }
+   
+   /**
+      Counts a search answered from the result cache, or not
+      
+      @param isHit True if the search was answered from the cache, false otherwise
+   */
+   public void addCacheLookUp( boolean isHit ) {
+      if( isHit ) cacheHits.increment();
+      else        cacheMisses.increment();
+   }
+   
+   /**
+      Counts a collection of cards searched for a query, or skipped because the estimates
+      of its plan showed that none of its cards could match
+      
+      @param isPruned True if the collection was skipped, false otherwise
+      @see MTGCollectionRegistry.search( String userInput )
+   */
+   public void addShardSearch( boolean isPruned ) {
+      if( isPruned ) shardsPruned.increment();
+      else           shardsSearched.increment();
+   }
+   
+   /**
+      Get the histogram of a phase
+      
+      @param phase The phase, such as TRANSLATE
+      @return MTGHistogram The latencies of the phase, in nanoseconds
+   */
+   public MTGHistogram getHistogram( int phase ) {
+      return histograms[ phase ];
+   }
+   
+   public String[] getPhases() {
+      return PHASE_NAMES.clone();
+   }
+   
+   public long[] getCounts() {
+      long[] counts = new long[ histograms.length ];
+      for( int i = 0; i < counts.length; i++ )
+         counts[i] = histograms[i].getCount();
+      
+      return counts;
+   }
+   
+   public double[] getP50Millis() {
+      return getPercentileMillis( 50 );
+   }
+   
+   public double[] getP99Millis() {
+      return getPercentileMillis( 99 );
+   }
+   
+   public double[] getMaxMillis() {
+      double[] maxes = new double[ histograms.length ];
+      for( int i = 0; i < maxes.length; i++ )
+         maxes[i] = histograms[i].getMax() / 1e6;
+      
+      return maxes;
+   }
+   
+   public long getCardsScanned() {
+      return cardsScanned.sum();
+   }
+   
+   public long getIndexHits() {
+      return indexHits.sum();
+   }
+   
+   public long getCacheHits() {
+      return cacheHits.sum();
+   }
+   
+   public long getCacheMisses() {
+      return cacheMisses.sum();
+   }
+   
+   public long getShardsSearched() {
+      return shardsSearched.sum();
+   }
+   
+   public long getShardsPruned() {
+      return shardsPruned.sum();
+   }
+   
+   public String dump() {
+      StringBuilder text = new StringBuilder();
+      text.append( String.format( Locale.ROOT, "%-11s %8s %10s %10s %10s %10s %10s%n", "phase", "count", "mean ms", "p50 ms", "p99 ms", "p99.9 ms", "max ms" ) );
+      for( int i = 0; i < histograms.length; i++ ) {
+         MTGHistogram histogram = histograms[i];
+         text.append( String.format( Locale.ROOT, "%-11s %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n", PHASE_NAMES[i], histogram.getCount(),
+                                     histogram.getMean() / 1e6, histogram.getPercentile( 50 ) / 1e6, histogram.getPercentile( 99 ) / 1e6,
+                                     histogram.getPercentile( 99.9 ) / 1e6, histogram.getMax() / 1e6 ) );
+      }
+      
+      text.append("cards scanned " + getCardsScanned() + ", index hits " + getIndexHits() +
+                  ", cache hits " + getCacheHits() + ", cache misses " + getCacheMisses() +
+                  ", shards searched " + getShardsSearched() + ", shards pruned " + getShardsPruned() );
+      return text.toString();
+   }
+   
+   public void reset() {
+      for( MTGHistogram histogram : histograms )
+         histogram.reset();
+      cardsScanned.reset();
+      indexHits.reset();
+      cacheHits.reset();
+      cacheMisses.reset();
+      shardsSearched.reset();
+      shardsPruned.reset();
+   }
+   
+   /**
+      Get a percentile of the latency of each phase
+      
+      @param percentile The percentile, from 0 to 100
+      @return double[] The percentiles in milliseconds, in the order of getPhases()
+   */
+   private double[] getPercentileMillis( double percentile ) {
+      double[] values = new double[ histograms.length ];
+      for( int i = 0; i < values.length; i++ )
+         values[i] = histograms[i].getPercentile( percentile ) / 1e6;
+      
+      return values;
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
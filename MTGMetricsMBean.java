@@ -0,0 +1,102 @@
+/**
+   MTGMetricsMBean.java
+   
+   Management interface of MTGMetrics, which JMX clients such as JConsole see under the name
+   MTGSearch:type=Metrics. The latencies of each phase are given in the order of getPhases()
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGMetrics.java
+*/
+public interface MTGMetricsMBean {
+   
+   /**
+      Get the names of the phases timed
+      
+      @return String[] The phases, such as 'translate'
+   */
+   String[] getPhases();
+   
+   /**
+      Get the number of times each phase has run
+      
+      @return long[] The counts, in the order of getPhases()
+   */
+   long[] getCounts();
+   
+   /**
+      Get the median latency of each phase
+      
+      @return double[] The medians in milliseconds, in the order of getPhases()
+   */
+   double[] getP50Millis();
+   
+   /**
+      Get the 99th percentile latency of each phase
+      
+      @return double[] The 99th percentiles in milliseconds, in the order of getPhases()
+   */
+   double[] getP99Millis();
+   
+   /**
+      Get the largest latency of each phase
+      
+      @return double[] The largest latencies in milliseconds, in the order of getPhases()
+   */
+   double[] getMaxMillis();
+   
+   /**
+      Get the number of cards tested one by one by searches
+      
+      @return long The cards scanned
+   */
+   long getCardsScanned();
+   
+   /**
+      Get the number of predicates answered from a bitmap of an index
+      
+      @return long The index hits
+   */
+   long getIndexHits();
+   
+   /**
+      Get the number of searches answered from the result cache
+      
+      @return long The cache hits
+   */
+   long getCacheHits();
+   
+   /**
+      Get the number of searches that were not in the result cache
+      
+      @return long The cache misses
+   */
+   long getCacheMisses();
+   
+   /**
+      Get the number of collections searched by searches across collections
+      
+      @return long The collections searched
+   */
+   long getShardsSearched();
+   
+   /**
+      Get the number of collections skipped by searches across collections, since none of
+      their cards could match
+      
+      @return long The collections pruned
+   */
+   long getShardsPruned();
+   
+   /**
+      Get every timer and counter as text
+      
+      @return String The timers and counters, one per line
+   */
+   String dump();
+   
+   /**
+      Clears every timer and counter
+   */
+   void reset();
+}
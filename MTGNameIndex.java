@@ -0,0 +1,346 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+   MTGNameIndex.java
+   
+   Typo tolerant index of the card names, which finds the names within an edit distance of
+   a misspelled name without computing the edit distance against every name.
+   
+   Names are compared in their normal form: uppercase, with only the letters, digits, and
+   single spaces kept, so that 'gyome master chef' is the same name as 'Gyome, Master Chef'.
+   The distinct names are kept sorted, so that names sharing a prefix are next to each
+   other, as the paths of a trie would be. A search walks the names in order, filling in
+   one row of the edit distance table per character, as a Levenshtein automaton would, and
+   keeps the rows of the prefix a name shares with the name before it. Once every entry of
+   a row is past the distance allowed, no name with that prefix can match, and the search
+   jumps past all of them with a binary search. The work done is then about the number of
+   prefixes within the distance of the query, rather than the number of names
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.findNames( String name, int limit )
+*/
+public class MTGNameIndex {
+   
+   //Most edits allowed by default, and for names this short or shorter, the fewer edits allowed
+   public static final int MAX_DISTANCE = 2;
+   private static final int SHORT_NAME_LENGTH = 4;
+   
+   private static final int NAME_COLUMN = 1;
+   
+   //Distinct normal names, sorted, and the cards of each name, in card order
+   private String[] names;
+   private int[][] nameCards;
+   private int maxNameLength;
+   
+   /**
+      Create the index from the name of every card of a snapshot
+      
+      @param snapshot The snapshot of the card file, or null if there are no cards
+      @param totalCards The total number of cards
+   */
+   public MTGNameIndex( MTGCatalogSnapshot snapshot, int totalCards ) {
+      //Cards of each normal name, since reprints share a name
+      HashMap<String, ArrayList<Integer>> cardsByName = new HashMap<String, ArrayList<Integer>>();
+      for( int ordinal = 0; ordinal < totalCards; ordinal++ ) {
+         String[] baseList = snapshot.getBaseProperties( ordinal );
+         if( baseList.length != MTGCard.BASE_PROPERTIES_SIZE ) continue;
+         
+         String name = normalize( baseList[ NAME_COLUMN ] );
+         if( !name.isEmpty() ) cardsByName.computeIfAbsent( name, key -> new ArrayList<Integer>() ).add( ordinal );
+      }
+      
+      names = cardsByName.keySet().toArray( new String[0] );
+      Arrays.sort( names );
+      
+      nameCards = new int[ names.length ][];
+      int longest = 0;
+      for( int i = 0; i < names.length; i++ ) {
+         ArrayList<Integer> cards = cardsByName.get( names[i] );
+         nameCards[i] = new int[ cards.size() ];
+         for( int j = 0; j < nameCards[i].length; j++ )
+            nameCards[i][j] = cards.get(j);
+         
+         longest = Math.max( longest, names[i].length() );
+      }
+      maxNameLength = longest;
+   }
+   
+   /**
+      Adds cards after the last card indexed, such as cards appended to the card file. The
+      cards of a name already indexed go on the end of its cards, and the new names are
+      sorted on their own and merged into the names
+      
+      @param baseLists The base properties of each new card, in card order
+      @param first The ordinal of the first new card
+   */
+   public void addCards( List<String[]> baseLists, int first ) {
+      HashMap<String, ArrayList<Integer>> cardsByName = new HashMap<String, ArrayList<Integer>>();
+      for( int i = 0; i < baseLists.size(); i++ ) {
+         String[] baseList = baseLists.get(i);
+         if( baseList.length != MTGCard.BASE_PROPERTIES_SIZE ) continue;
+         
+         String name = normalize( baseList[ NAME_COLUMN ] );
+         if( !name.isEmpty() ) cardsByName.computeIfAbsent( name, key -> new ArrayList<Integer>() ).add( first + i );
+      }
+      
+      ArrayList<String> newNames = new ArrayList<String>();
+      for( HashMap.Entry<String, ArrayList<Integer>> entry : cardsByName.entrySet() ) {
+         int i = Arrays.binarySearch( names, entry.getKey() );
+         if( i < 0 ) {
+            newNames.add( entry.getKey() );
+            continue;
+         }
+         
+         int[] cards = Arrays.copyOf( nameCards[i], nameCards[i].length + entry.getValue().size() );
+         for( int j = 0; j < entry.getValue().size(); j++ )
+            cards[ nameCards[i].length + j ] = entry.getValue().get(j);
+         nameCards[i] = cards;
+      }
+      if( newNames.isEmpty() ) return;
+      
+      newNames.sort( null );
+      String[] mergedNames = new String[ names.length + newNames.size() ];
+      int[][] mergedCards = new int[ mergedNames.length ][];
+      int i = 0, j = 0;
+      for( int k = 0; k < mergedNames.length; k++ ) {
+         if( j == newNames.size() || ( i < names.length && names[i].compareTo( newNames.get(j) ) < 0 ) ) {
+            mergedNames[k] = names[i];
+            mergedCards[k] = nameCards[ i++ ];
+         } else {
+            String name = newNames.get( j++ );
+            ArrayList<Integer> cards = cardsByName.get( name );
+            mergedNames[k] = name;
+            mergedCards[k] = new int[ cards.size() ];
+            for( int c = 0; c < cards.size(); c++ )
+               mergedCards[k][c] = cards.get(c);
+            
+            maxNameLength = Math.max( maxNameLength, name.length() );
+         }
+      }
+      
+      names = mergedNames;
+      nameCards = mergedCards;
+   }
+   
+   /**
+      Finds the names within the given edit distance of a name, closest first. A name
+      within the distance of the query is never missed
+      
+      @param name The name to look for, as typed
+      @param maxDistance The most edits allowed, such as MAX_DISTANCE
+      @param limit The most names to return
+      @return int[] The ordinal of the first card of each name found, closest first, and by
+                    name for names at the same distance
+   */
+   public int[] find( String name, int maxDistance, int limit ) {
+      long[] found = search( normalize( name ), maxDistance );
+      
+      int total = Math.min( Math.max( limit, 0 ), found.length );
+      int[] ordinals = new int[ total ];
+      for( int i = 0; i < total; i++ )
+         ordinals[i] = nameCards[ (int) found[i] ][0];
+      
+      return ordinals;
+   }
+   
+   /**
+      Finds the names within the default edit distance of a name: MAX_DISTANCE, or one edit
+      for names of SHORT_NAME_LENGTH characters or fewer, which two edits would turn into
+      almost any other short name
+      
+      @param name The name to look for, as typed
+      @param limit The most names to return
+      @return int[] The ordinal of the first card of each name found, closest first
+      @see find( String name, int maxDistance, int limit )
+   */
+   public int[] find( String name, int limit ) {
+      return find( name, normalize( name ).length() <= SHORT_NAME_LENGTH ? 1 : MAX_DISTANCE, limit );
+   }
+   
+   /**
+      Get the cards that have the given name exactly, ignoring case and punctuation
+      
+      @param name The name, as typed
+      @return int[] The ordinals of the cards with the name, in card order, which should not be modified
+   */
+   public int[] getCards( String name ) {
+      int i = Arrays.binarySearch( names, normalize( name ) );
+      return i < 0 ? new int[0] : nameCards[i];
+   }
+   
+   /**
+      Returns the total number of distinct names
+      
+      @return int The total number of names
+   */
+   public int totalNames() {
+      return names.length;
+   }
+   
+   /**
+      Get the normal form of a name: uppercase, with only the letters, digits, and single
+      spaces kept
+      
+      @param name The name
+      @return String The normal form of the name
+   */
+   public static String normalize( String name ) {
+      StringBuilder normal = new StringBuilder( name.length() );
+      boolean isSpace = true;
+      for( int i = 0; i < name.length(); i++ ) {
+         char c = name.charAt(i);
+         if( Character.isLetterOrDigit( c ) ) {
+            normal.append( Character.toUpperCase( c ) );
+            isSpace = false;
+         } else if( Character.isWhitespace( c ) && !isSpace ) {
+            normal.append(' ');
+            isSpace = true;
+         }
+      }
+      
+      int length = normal.length();
+      if( length > 0 && normal.charAt( length - 1 ) == ' ' ) normal.setLength( length - 1 );
+      return normal.toString();
+   }
+   
+   /**
+      Get the edit distance between two Strings: the fewest characters inserted, deleted,
+      or replaced to turn one into the other
+      
+      @param a One String
+      @param b The other String
+      @return int The edit distance
+   */
+   public static int distance( String a, String b ) {
+      int[] above = new int[ b.length() + 1 ];
+      int[] row = new int[ b.length() + 1 ];
+      for( int j = 0; j < above.length; j++ )
+         above[j] = j;
+      
+      for( int i = 0; i < a.length(); i++ ) {
+         fillRow( above, row, a.charAt(i), b );
+         int[] swap = above;
+         above = row;
+         row = swap;
+      }
+      
+      return above[ b.length() ];
+   }
+   
+   /**
+      Finds the names within the given edit distance of a query.
+      
+      Row p of the table holds the edit distances between the first p characters of the
+      current name and each prefix of the query. Rows up to the prefix the current name
+      shares with the last name filled in are kept, so only the rest are filled in
+      
+      @param query The normal form of the name to look for
+      @param maxDistance The most edits allowed
+      @return long[] The names found, each packed as its distance and then its position in
+                     names, sorted, so closest first and by name for names at the same distance
+   */
+   private long[] search( String query, int maxDistance ) {
+      if( names.length == 0 || query.isEmpty() ) return new long[0];
+      
+      int columns = query.length();
+      int[][] rows = new int[ maxNameLength + 1 ][ columns + 1 ];
+      for( int j = 0; j <= columns; j++ )
+         rows[0][j] = j;
+      
+      long[] found = new long[ 8 ];
+      int totalFound = 0;
+      
+      //The last name filled in, and how many of its rows are filled in
+      String last = "";
+      int filledRows = 0;
+      
+      int i = 0;
+      while( i < names.length ) {
+         String name = names[i];
+         int depth = Math.min( commonPrefixLength( last, name ), filledRows );
+         last = name;
+         
+         //fill in the rest of the rows, unless a prefix of the name is already too far
+         boolean isTooFar = false;
+         while( depth < name.length() && !isTooFar ) {
+            depth++;
+            isTooFar = fillRow( rows[ depth - 1 ], rows[ depth ], name.charAt( depth - 1 ), query ) > maxDistance;
+         }
+         filledRows = depth;
+         
+         if( isTooFar ) {
+            i = endOfPrefix( name.substring( 0, depth ), i );
+            continue;
+         }
+         
+         int distance = rows[ depth ][ columns ];
+         if( distance <= maxDistance ) {
+            if( totalFound == found.length ) found = Arrays.copyOf( found, totalFound * 2 );
+            found[ totalFound++ ] = ( (long) distance << 32 ) | i;
+         }
+         i++;
+      }
+      
+      found = Arrays.copyOf( found, totalFound );
+      Arrays.sort( found );
+      return found;
+   }
+   
+   /**
+      Fills in the next row of the edit distance table, for one more character of a String
+      
+      @param above The row of the String without the character
+      @param row The row to fill in
+      @param c The character
+      @param other The String compared against
+      @return int The smallest entry of the row, which the rows below it can never go under
+   */
+   private static int fillRow( int[] above, int[] row, char c, String other ) {
+      row[0] = above[0] + 1;
+      int rowMin = row[0];
+      for( int j = 1; j < row.length; j++ ) {
+         row[j] = Math.min( above[ j - 1 ] + ( c == other.charAt( j - 1 ) ? 0 : 1 ), Math.min( above[j], row[ j - 1 ] ) + 1 );
+         if( row[j] < rowMin ) rowMin = row[j];
+      }
+      
+      return rowMin;
+   }
+   
+   /**
+      Get the position of the first name after the given one that does not begin with a prefix
+      
+      @param prefix The prefix
+      @param from The position of a name that begins with the prefix
+      @return int The position of the first name after it without the prefix, or the total number of names
+   */
+   private int endOfPrefix( String prefix, int from ) {
+      int low = from + 1, high = names.length;
+      while( low < high ) {
+         int middle = ( low + high ) >>> 1;
+         if( names[ middle ].startsWith( prefix ) ) low = middle + 1;
+         else                                      high = middle;
+      }
+      
+      return low;
+   }
+   
+   /**
+      Get the length of the prefix two Strings share
+      
+      @param a One String
+      @param b The other String
+      @return int The number of characters at the start of both
+   */
+   private static int commonPrefixLength( String a, String b ) {
+      int length = Math.min( a.length(), b.length() );
+      int i = 0;
+      while( i < length && a.charAt(i) == b.charAt(i) )
+         i++;
+      
+      return i;
+   }
+}
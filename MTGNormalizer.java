@@ -0,0 +1,197 @@
+import java.text.Normalizer;
+import java.util.Collection;
+
+/**
+   MTGNormalizer.java
+   
+   Table-driven text normalization for card fields and user input.
+   
+   Every ASCII character has an entry in a 128-entry table of character classes: letter,
+   digit, whitespace, or '&'. Removing punctuation, folding case, and splitting into tokens
+   are then a single pass over the characters with one table look-up each, instead of a
+   regex that is compiled anew for every call to String.replaceAll.
+   
+   Characters outside of ASCII, such as the accented u of the card name Lim-Dul, are folded
+   to their base letter the first time they are seen, and the folded character is
+   remembered for the next time. Characters with no ASCII base letter keep their own class.
+   
+   Output is built in a per-thread buffer that is reused from call to call, and the input
+   String itself is returned when nothing needs to change
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGSearch.java
+   @see MTGPhraseMatcher.normalize( String phrase )
+   @see MTGCard.addTokens( String str, char separator, boolean isLettersOnly, Collection<String> tokens )
+*/
+public class MTGNormalizer {
+   
+   //Character classes, which can be combined
+   public static final int LETTER     = 1;
+   public static final int DIGIT      = 2;
+   public static final int WHITESPACE = 4;
+   public static final int AMPERSAND  = 8;
+   public static final int OTHER      = 16;
+   public static final int ANY        = LETTER | DIGIT | WHITESPACE | AMPERSAND | OTHER;
+   
+   private static final byte[] ASCII_CLASSES = new byte[128];
+   
+   //Folded form of every char outside of ASCII, filled in the first time each char is seen
+   private static final char[] FOLDED = new char[ Character.MAX_VALUE + 1 ];
+   private static final char NOT_FOLDED = '\0';
+   
+   private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial( () -> new char[256] );
+   
+   static {
+      for( int c = 0; c < ASCII_CLASSES.length; c++ ) {
+         if(      ( c >= 'a' && c <= 'z' ) || ( c >= 'A' && c <= 'Z' ) ) ASCII_CLASSES[c] = LETTER;
+         else if( c >= '0' && c <= '9' )                                 ASCII_CLASSES[c] = DIGIT;
+         else if( c == ' ' || ( c >= '\t' && c <= '\r' ) )              ASCII_CLASSES[c] = WHITESPACE;
+         else if( c == '&' )                                            ASCII_CLASSES[c] = AMPERSAND;
+         else                                                           ASCII_CLASSES[c] = OTHER;
+      }
+   }
+   
+   /**
+      Removes every character that is not in one of the given classes. The case of the
+      characters is kept, although characters outside of ASCII are folded to their base letter
+      
+      @param str The String to edit
+      @param classes The classes to keep, such as LETTER | WHITESPACE
+      @return String The String with only the characters of the given classes
+   */
+   public static String keep( String str, int classes ) {
+      int length = str.length();
+      char[] buffer = buffer( length );
+      int size = 0;
+      boolean hasChanged = false;
+      
+      for( int i = 0; i < length; i++ ) {
+         char c = str.charAt(i);
+         char folded = fold( c );
+         if( ( classOf( folded ) & classes ) != 0 ) buffer[ size++ ] = folded;
+         if( folded != c || ( classOf( folded ) & classes ) == 0 ) hasChanged = true;
+      }
+      
+      return hasChanged ? new String( buffer, 0, size ) : str;
+   }
+   
+   /**
+      Puts text into the form that phrases are matched in: uppercase, with only letters and
+      digits kept, and every run of whitespace collapsed into a single space, with no space at
+      either end
+      
+      @param str The String to normalize
+      @return String The normalized String
+   */
+   public static String normalize( String str ) {
+      int length = str.length();
+      char[] buffer = buffer( length );
+      int size = 0;
+      boolean isSpacePending = false;
+      
+      for( int i = 0; i < length; i++ ) {
+         char c = fold( str.charAt(i) );
+         int type = classOf( c );
+         if( ( type & ( LETTER | DIGIT ) ) != 0 ) {
+            if( isSpacePending && size > 0 ) buffer[ size++ ] = ' ';
+            buffer[ size++ ] = toUpperCase( c );
+            isSpacePending = false;
+         } else if( type == WHITESPACE ) {
+            isSpacePending = true;
+         }
+      }
+      
+      return new String( buffer, 0, size );
+   }
+   
+   /**
+      Splits text into uppercase tokens and adds them to a collection, in a single pass. Only
+      characters in the given classes are kept within the tokens
+      
+      @param str The String to split
+      @param separator The character between tokens, such as ' '
+      @param classes The classes to keep, such as LETTER | WHITESPACE, or ANY
+      @param tokens The collection to add the tokens to. Empty tokens are not added
+   */
+   public static void tokenize( String str, char separator, int classes, Collection<String> tokens ) {
+      int length = str.length();
+      char[] buffer = buffer( length );
+      int size = 0;
+      
+      for( int i = 0; i <= length; i++ ) {
+         char c = i < length ? str.charAt(i) : separator;
+         if( c == separator ) {
+            if( size > 0 ) tokens.add( new String( buffer, 0, size ) );
+            size = 0;
+            continue;
+         }
+         
+         char folded = fold( c );
+         if( ( classOf( folded ) & classes ) != 0 ) buffer[ size++ ] = toUpperCase( folded );
+      }
+   }
+   
+   /**
+      Get the class of a character
+      
+      @param c The character, already folded
+      @return int The class, such as LETTER
+   */
+   public static int classOf( char c ) {
+      if( c < 128 ) return ASCII_CLASSES[c];
+      
+      if( Character.isLetter( c ) )     return LETTER;
+      if( Character.isDigit( c ) )      return DIGIT;
+      if( Character.isWhitespace( c ) ) return WHITESPACE;
+      return OTHER;
+   }
+   
+   /**
+      Folds a character outside of ASCII to its base letter, such as an accented u to 'u'. Characters
+      with no base letter in ASCII are returned as they are
+      
+      @param c The character to fold
+      @return char The folded character
+   */
+   public static char fold( char c ) {
+      if( c < 128 ) return c;
+      
+      char folded = FOLDED[c];
+      if( folded == NOT_FOLDED ) {
+         String decomposed = Normalizer.normalize( String.valueOf( c ), Normalizer.Form.NFD );
+         folded = decomposed.charAt(0) < 128 && Character.isLetter( decomposed.charAt(0) ) ? decomposed.charAt(0) : c;
+         FOLDED[c] = folded; //a race only writes the same value twice
+      }
+      
+      return folded;
+   }
+   
+   /**
+      Makes a character uppercase, without a look-up for ASCII characters
+      
+      @param c The character
+      @return char The uppercase character
+   */
+   private static char toUpperCase( char c ) {
+      if( c >= 'a' && c <= 'z' ) return (char) ( c - 'a' + 'A' );
+      if( c < 128 )              return c;
+      return Character.toUpperCase( c );
+   }
+   
+   /**
+      Get the buffer of the current thread, grown to at least the given length
+      
+      @param length The length needed
+      @return char[] The buffer
+   */
+   private static char[] buffer( int length ) {
+      char[] buffer = BUFFER.get();
+      if( buffer.length < length ) {
+         buffer = new char[ Math.max( length, buffer.length * 2 ) ];
+         BUFFER.set( buffer );
+      }
+      
+      return buffer;
+   }
+}
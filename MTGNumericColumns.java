@@ -0,0 +1,253 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+   MTGNumericColumns.java
+   
+   Struct-of-arrays store for the numeric attributes of every card, keyed by card ordinal.
+   
+   MTGCard keeps power, toughness, year, etc. as Strings, which would need to be parsed
+   for every card on every query. Here each attribute is kept in its own int column
+   instead, with MTGCard.VARIABLE_COST standing in for values that are not numbers
+   (such as "na", or a cost with an X). Range predicates are tight loops over a single
+   primitive array, with no per-card object access.
+   
+   The colors of each card are kept as an MTGColors mask, along with the number of mana
+   symbols of each color, so that color conditions are also a single pass over a column
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+   @see MTGCatalogSnapshot.java
+*/
+public class MTGNumericColumns {
+   
+   //Columns
+   public static final int COST        = 0;
+   public static final int POWER       = 1;
+   public static final int TOUGHNESS   = 2;
+   public static final int YEAR        = 3;
+   public static final int LOYALTY     = 4;
+   public static final int EQUIP_COST  = 5;
+   public static final int QUANTITY    = 6;
+   public static final int CARD_NUMBER = 7;
+   public static final int COLORS      = 8;
+   public static final int WHITE_PIPS  = 9;
+   public static final int BLUE_PIPS   = 10;
+   public static final int BLACK_PIPS  = 11;
+   public static final int RED_PIPS    = 12;
+   public static final int GREEN_PIPS  = 13;
+   public static final int TOTAL_COLUMNS = 14;
+   
+   private static final String[] COLUMN_NAMES = { "cost", "power", "toughness", "year", "loyalty", "equipCost", "quantity", "cardNumber",
+                                                  "colors", "whitePips", "bluePips", "blackPips", "redPips", "greenPips" };
+   
+   private int[][] columns;
+   private int totalCards;
+   
+   /**
+      Create the columns from the numeric columns of a snapshot
+      
+      @param snapshot The snapshot of the card file
+      @see MTGCatalogSnapshot.getColumn( int column )
+   */
+   public MTGNumericColumns( MTGCatalogSnapshot snapshot ) {
+      totalCards = snapshot.totalCards();
+      columns = new int[ TOTAL_COLUMNS ][];
+      for( int column = 0; column < TOTAL_COLUMNS; column++ )
+         columns[ column ] = snapshot.getColumn( column );
+   }
+   
+   /**
+      Create empty columns
+      
+      @param totalCards The total number of cards
+   */
+   public MTGNumericColumns( int totalCards ) {
+      this.totalCards = totalCards;
+      columns = new int[ TOTAL_COLUMNS ][ totalCards ];
+   }
+   
+   /**
+      Adds the values of a card after the last card, growing the columns if they are full
+      
+      @param values The value of each column, as given by valuesOf( MTGCard card )
+      @return int The ordinal of the card
+   */
+   public int addCard( int[] values ) {
+      if( totalCards == columns[0].length ) {
+         for( int column = 0; column < TOTAL_COLUMNS; column++ )
+            columns[ column ] = Arrays.copyOf( columns[ column ], Math.max( 16, totalCards * 2 ) );
+      }
+      
+      for( int column = 0; column < TOTAL_COLUMNS; column++ )
+         columns[ column ][ totalCards ] = values[ column ];
+      
+      return totalCards++;
+   }
+   
+   /**
+      Get the numeric values of a card, in the order of the columns
+      
+      @param card The card
+      @return int[] The value of each column, with VARIABLE_COST for values that are not numbers
+   */
+   public static int[] valuesOf( MTGCard card ) {
+      int[] pips = card.getManaCost() == null ? new int[5] : MTGColors.pipsOf( card.getManaCost() );
+      return new int[]{ card.getTotalCost(),
+                        MTGCard.toNumber( card.getPower() ),
+                        MTGCard.toNumber( card.getToughness() ),
+                        MTGCard.toNumber( card.getYear() ),
+                        MTGCard.toNumber( card.getLoyalty() ),
+                        MTGCard.toNumber( card.getEquipCost() ),
+                        MTGCard.toNumber( card.getQuantity() ),
+                        MTGCard.toNumber( card.getCardNumber() ),
+                        card.getColors(),
+                        pips[0], pips[1], pips[2], pips[3], pips[4] };
+   }
+   
+   /**
+      Finds the cards whose value in the given column is between min and max, inclusive.
+      Cards whose value is not a number never match
+      
+      @param column The column, such as POWER or YEAR
+      @param min The smallest value that matches
+      @param max The largest value that matches
+      @return BitSet The ordinals of the cards that match
+   */
+   public BitSet range( int column, int min, int max ) {
+      int[] values = columns[ column ];
+      long[] words = new long[ ( totalCards + 63 ) >>> 6 ];
+      
+      //VARIABLE_COST is negative, so raising min to 0 also leaves out values that are not numbers
+      if( min < 0 ) min = 0;
+      
+      for( int i = 0; i < totalCards; i++ ) {
+         int value = values[i];
+         long isMatch = ( value >= min & value <= max ) ? 1L : 0L;
+         words[ i >>> 6 ] |= isMatch << i;
+      }
+      
+      return BitSet.valueOf( words );
+   }
+   
+   /**
+      Counts the cards whose value in the given column is between min and max, inclusive
+      
+      @param column The column, such as POWER or YEAR
+      @param min The smallest value that matches
+      @param max The largest value that matches
+      @return int The total number of cards that match
+   */
+   public int count( int column, int min, int max ) {
+      int[] values = columns[ column ];
+      if( min < 0 ) min = 0;
+      
+      int total = 0;
+      for( int i = 0; i < totalCards; i++ ) {
+         int value = values[i];
+         total += ( value >= min & value <= max ) ? 1 : 0;
+      }
+      
+      return total;
+   }
+   
+   /**
+      Finds the cards whose colors meet a color condition. The condition is given as the
+      table of the color masks it matches, so that every condition is the same shift and
+      mask per card, whatever it is
+      
+      @param table The table of the condition, as given by MTGColors.tableOf( int condition, int mask )
+      @return BitSet The ordinals of the cards that match
+   */
+   public BitSet colorMatches( long table ) {
+      int[] values = columns[ COLORS ];
+      long[] words = new long[ ( totalCards + 63 ) >>> 6 ];
+      
+      for( int i = 0; i < totalCards; i++ )
+         words[ i >>> 6 ] |= ( ( table >>> values[i] ) & 1L ) << i;
+      
+      return BitSet.valueOf( words );
+   }
+   
+   /**
+      Counts the cards of each color mask, from which the number of cards meeting any color
+      condition can be added up exactly
+      
+      @return int[] The number of cards with each of the MTGColors.TOTAL_MASKS masks
+   */
+   public int[] countColors() {
+      int[] values = columns[ COLORS ];
+      int[] counts = new int[ MTGColors.TOTAL_MASKS ];
+      for( int i = 0; i < totalCards; i++ )
+         counts[ values[i] & ( MTGColors.TOTAL_MASKS - 1 ) ]++;
+      
+      return counts;
+   }
+   
+   /**
+      Get a value from a column
+      
+      @param column The column, such as POWER or YEAR
+      @param ordinal The position of the card within the card file
+      @return int The value, or MTGCard.VARIABLE_COST if the value is not a number
+   */
+   public int get( int column, int ordinal ) {
+      return columns[ column ][ ordinal ];
+   }
+   
+   /**
+      Sets a value in a column
+      
+      @param column The column, such as POWER or YEAR
+      @param ordinal The position of the card within the card file
+      @param value The value, or MTGCard.VARIABLE_COST if the value is not a number
+   */
+   public void set( int column, int ordinal, int value ) {
+      columns[ column ][ ordinal ] = value;
+   }
+   
+   /**
+      Get the array backing a column. The array is owned by this store and should not be
+      modified, and may be longer than the total number of cards
+      
+      @param column The column, such as POWER or YEAR
+      @return int[] The values of the column, indexed by card ordinal
+   */
+   public int[] getColumn( int column ) {
+      return columns[ column ];
+   }
+   
+   /**
+      Get the column with the given name
+      
+      @param name The name of the column, such as "power", ignoring case
+      @return int The column, or -1 if there is no column with this name
+   */
+   public static int columnOf( String name ) {
+      for( int column = 0; column < TOTAL_COLUMNS; column++ ) {
+         if( COLUMN_NAMES[ column ].equalsIgnoreCase( name ) ) return column;
+      }
+      
+      return -1;
+   }
+   
+   /**
+      Get the name of a column
+      
+      @param column The column, such as POWER or YEAR
+      @return String The name of the column
+   */
+   public static String nameOf( int column ) {
+      return COLUMN_NAMES[ column ];
+   }
+   
+   /**
+      Returns the total number of cards in the columns
+      
+      @return int The total number of cards
+   */
+   public int totalCards() {
+      return totalCards;
+   }
+}
@@ -0,0 +1,453 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+   MTGPhraseMatcher.java
+   
+   Multi-pattern matcher (Aho-Corasick automaton) for the language processing phrases
+   found in mtgKeywordSearchList.txt.
+   
+   Each phrase belongs to a line of the keyword file, which has a key, a list of
+   phrases, and the keyword property that the phrases translate into. All of the phrases
+   and keys are compiled into a single automaton, so that every phrase found within the
+   user input is reported in one pass over the input, no matter how many phrases there
+   are. A phrase only counts if the key of its line is also found within the input.
+   
+   When phrases overlap, the longest phrase wins (and then the earliest), and the parts
+   of the input not covered by any phrase are returned as the leftover token spans. A
+   phrase listed on more than one line gives the keyword of each of those lines whose key
+   was found
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+   @see mtgKeywordSearchList.txt
+*/
+public class MTGPhraseMatcher {
+   
+   //Input characters are mapped to symbols: A-Z, 0-9, &, and whitespace
+   private static final int ALPHABET_SIZE = 38;
+   private static final int SPACE_SYMBOL = 37;
+   private static final int[] SYMBOLS = new int[128];
+   
+   static {
+      Arrays.fill( SYMBOLS, -1 );
+      for( char c = 'A'; c <= 'Z'; c++ ) SYMBOLS[c] = c - 'A';
+      for( char c = 'a'; c <= 'z'; c++ ) SYMBOLS[c] = c - 'a';
+      for( char c = '0'; c <= '9'; c++ ) SYMBOLS[c] = 26 + c - '0';
+      SYMBOLS['&'] = 36;
+      SYMBOLS[' '] = SYMBOLS['\t'] = SYMBOLS['\n'] = SYMBOLS['\r'] = SPACE_SYMBOL;
+   }
+   
+   //Patterns, either keys (which gate their lines) or phrases
+   private ArrayList<String> patterns = new ArrayList<String>();
+   private ArrayList<Integer> patternLines = new ArrayList<Integer>(); //line ID of a phrase, or -1 for a key
+   private HashMap<String, Integer> keyPatternIDs = new HashMap<String, Integer>();
+   
+   //Lines of the keyword file: the pattern ID of the key, and the keyword
+   private ArrayList<Integer> lineKeys = new ArrayList<Integer>();
+   private ArrayList<String> lineKeywords = new ArrayList<String>();
+   
+   //Compiled automaton
+   private int[] transitions;   //state * ALPHABET_SIZE + symbol -> next state
+   private int[] outputs;       //state -> phrase pattern ID ending at this state, or -1
+   private int[] keyOutputs;    //state -> key pattern ID ending at this state, or -1
+   private int[] outputLinks;   //state -> next state along the failure chain with an output, or -1
+   private int[] patternLengths;
+   private int[] patternLineIDs;
+   private int[] samePhrases;   //pattern ID -> next phrase pattern ID with the same text, or -1
+   private int[] lineKeyIDs;
+   private String[] keywordList;
+   private int totalStates;
+   
+   /**
+      Adds a line of the keyword file to the matcher. This must be done before the
+      matcher is compiled
+      
+      @param key The key that must be found in the input for any of the phrases to count,
+                 or null if the phrases always count
+      @param phrases The phrases that translate into the keyword
+      @param keyword The keyword property that the phrases represent
+      @throws IllegalArgumentException If the key or a phrase has a character that cannot be matched
+      @see compile()
+   */
+   public void addLine( String key, String[] phrases, String keyword ) {
+      if( transitions != null ) throw new IllegalStateException("Cannot add lines after the matcher has been compiled");
+      
+      Integer keyID = -1;
+      if( key != null ) {
+         key = checkSymbols( normalize( key ) );
+         keyID = keyPatternIDs.get( key );
+      }
+      if( keyID == null ) {
+         keyID = patterns.size();
+         keyPatternIDs.put( key, keyID );
+         patterns.add( key );
+         patternLines.add( -1 );
+      }
+      
+      int lineID = lineKeywords.size();
+      lineKeys.add( keyID );
+      lineKeywords.add( keyword );
+      
+      for( int i = 0; i < phrases.length; i++ ) {
+         String phrase = checkSymbols( normalize( phrases[i] ) );
+         if( phrase.isEmpty() ) continue;
+         
+         patterns.add( phrase );
+         patternLines.add( lineID );
+      }
+   }
+   
+   /**
+      Compiles the patterns into the automaton. The trie of all patterns is built first,
+      and then the failure transitions are resolved breadth-first so that every state
+      has a direct transition for every symbol
+      
+      @see addLine( String key, String[] phrases, String keyword )
+   */
+   public void compile() {
+      //the trie grows as needed, since phrases share most of their prefixes
+      int maxStates = 1024;
+      int[] trie = new int[ maxStates * ALPHABET_SIZE ];
+      int[] ownOutputs = new int[ maxStates ];
+      int[] ownKeyOutputs = new int[ maxStates ];
+      Arrays.fill( trie, -1 );
+      Arrays.fill( ownOutputs, -1 );
+      Arrays.fill( ownKeyOutputs, -1 );
+      totalStates = 1;
+      
+      //Build trie
+      patternLengths = new int[ patterns.size() ];
+      patternLineIDs = new int[ patterns.size() ];
+      samePhrases = new int[ patterns.size() ];
+      Arrays.fill( samePhrases, -1 );
+      int[] lastPhrases = new int[ maxStates ];
+      for( int id = 0; id < patterns.size(); id++ ) {
+         String pattern = patterns.get( id );
+         patternLengths[id] = pattern.length();
+         patternLineIDs[id] = patternLines.get( id );
+         
+         int state = 0;
+         for( int i = 0; i < pattern.length(); i++ ) {
+            int symbol = symbolOf( pattern.charAt(i) );
+            int next = trie[ state * ALPHABET_SIZE + symbol ];
+            if( next < 0 ) {
+               if( totalStates == maxStates ) {
+                  maxStates *= 2;
+                  trie = Arrays.copyOf( trie, maxStates * ALPHABET_SIZE );
+                  ownOutputs = Arrays.copyOf( ownOutputs, maxStates );
+                  ownKeyOutputs = Arrays.copyOf( ownKeyOutputs, maxStates );
+                  lastPhrases = Arrays.copyOf( lastPhrases, maxStates );
+                  Arrays.fill( trie, totalStates * ALPHABET_SIZE, trie.length, -1 );
+                  Arrays.fill( ownOutputs, totalStates, maxStates, -1 );
+                  Arrays.fill( ownKeyOutputs, totalStates, maxStates, -1 );
+               }
+               next = totalStates++;
+               trie[ state * ALPHABET_SIZE + symbol ] = next;
+            }
+            state = next;
+         }
+         
+         //a phrase listed on more than one line is chained after the first line that listed it
+         if( patternLineIDs[id] < 0 )       ownKeyOutputs[ state ] = id;
+         else if( ownOutputs[ state ] < 0 ) ownOutputs[ state ] = lastPhrases[ state ] = id;
+         else                               lastPhrases[ state ] = samePhrases[ lastPhrases[ state ] ] = id;
+      }
+      
+      //Resolve failure links breadth-first
+      transitions = new int[ totalStates * ALPHABET_SIZE ];
+      outputs = Arrays.copyOf( ownOutputs, totalStates );
+      keyOutputs = Arrays.copyOf( ownKeyOutputs, totalStates );
+      outputLinks = new int[ totalStates ];
+      int[] failures = new int[ totalStates ];
+      int[] queue = new int[ totalStates ];
+      int head = 0, tail = 0;
+      
+      outputLinks[0] = -1;
+      for( int symbol = 0; symbol < ALPHABET_SIZE; symbol++ ) {
+         int next = trie[ symbol ];
+         if( next < 0 ) {
+            transitions[ symbol ] = 0;
+         } else {
+            transitions[ symbol ] = next;
+            failures[ next ] = 0;
+            outputLinks[ next ] = -1;
+            queue[ tail++ ] = next;
+         }
+      }
+      
+      while( head < tail ) {
+         int state = queue[ head++ ];
+         for( int symbol = 0; symbol < ALPHABET_SIZE; symbol++ ) {
+            int next = trie[ state * ALPHABET_SIZE + symbol ];
+            int fallback = transitions[ failures[ state ] * ALPHABET_SIZE + symbol ];
+            if( next < 0 ) {
+               transitions[ state * ALPHABET_SIZE + symbol ] = fallback;
+            } else {
+               transitions[ state * ALPHABET_SIZE + symbol ] = next;
+               failures[ next ] = fallback;
+               outputLinks[ next ] = hasOutput( fallback ) ? fallback : outputLinks[ fallback ];
+               queue[ tail++ ] = next;
+            }
+         }
+      }
+      
+      lineKeyIDs = new int[ lineKeys.size() ];
+      for( int i = 0; i < lineKeyIDs.length; i++ ) lineKeyIDs[i] = lineKeys.get(i);
+      keywordList = lineKeywords.toArray( new String[0] );
+      
+      //release the build lists
+      patterns = null;
+      patternLines = null;
+      keyPatternIDs = null;
+      lineKeys = null;
+      lineKeywords = null;
+   }
+   
+   /**
+      Finds every phrase within the input in a single pass, and resolves overlapping
+      phrases by keeping the longest one
+      
+      @param input The normalized user input, which should be uppercase letters, numbers,
+                   and whitespace
+      @return Result The keywords found, in the order they appear, and the leftover spans
+      @see compile()
+   */
+   public Result match( String input ) {
+      if( transitions == null ) throw new IllegalStateException("The matcher has not been compiled");
+      
+      int length = input.length();
+      boolean[] keysFound = new boolean[ patternLengths.length ];
+      int[] matches = new int[ 16 * 2 ]; //pairs of end position and pattern ID
+      int totalMatches = 0;
+      
+      //Scan the input once, following the output links at every position
+      int state = 0;
+      for( int i = 0; i < length; i++ ) {
+         char c = input.charAt(i);
+         int symbol = c < 128 ? SYMBOLS[c] : -1;
+         if( symbol < 0 ) {
+            state = 0;
+            continue;
+         }
+         
+         state = transitions[ state * ALPHABET_SIZE + symbol ];
+         for( int s = hasOutput( state ) ? state : outputLinks[ state ]; s >= 0; s = outputLinks[ s ] ) {
+            if( keyOutputs[ s ] >= 0 ) keysFound[ keyOutputs[ s ] ] = true;
+            if( outputs[ s ] >= 0 ) {
+               if( totalMatches * 2 == matches.length ) matches = Arrays.copyOf( matches, matches.length * 2 );
+               matches[ totalMatches * 2 ] = i;
+               matches[ totalMatches * 2 + 1 ] = outputs[ s ];
+               totalMatches++;
+            }
+         }
+      }
+      
+      //Keep phrases with a line whose key was found, ordered by length (longest first) and then start
+      Integer[] order = new Integer[ totalMatches ];
+      int totalGated = 0;
+      for( int m = 0; m < totalMatches; m++ ) {
+         boolean isGated = false;
+         for( int id = matches[ m * 2 + 1 ]; id >= 0 && !isGated; id = samePhrases[ id ] )
+            isGated = isKeyFound( id, keysFound );
+         if( isGated ) order[ totalGated++ ] = m;
+      }
+      final int[] found = matches;
+      Arrays.sort( order, 0, totalGated, (o1, o2) -> {
+         int length1 = patternLengths[ found[ o1 * 2 + 1 ] ], length2 = patternLengths[ found[ o2 * 2 + 1 ] ];
+         if( length1 != length2 ) return length2 - length1;
+         return ( found[ o1 * 2 ] - length1 ) - ( found[ o2 * 2 ] - length2 );
+      });
+      
+      //Accept phrases that do not overlap a phrase already accepted
+      int[] coveredBy = new int[ length ];
+      Arrays.fill( coveredBy, -1 );
+      for( int k = 0; k < totalGated; k++ ) {
+         int m = order[k];
+         int end = matches[ m * 2 ] + 1;
+         int start = end - patternLengths[ matches[ m * 2 + 1 ] ];
+         
+         boolean isFree = true;
+         for( int i = start; i < end && isFree; i++ )
+            if( coveredBy[i] >= 0 ) isFree = false;
+         
+         if( isFree )
+            for( int i = start; i < end; i++ ) coveredBy[i] = m;
+      }
+      
+      //Collect keywords in input order, and the spans of uncovered tokens
+      LinkedHashMap<String, int[]> keywords = new LinkedHashMap<String, int[]>();
+      ArrayList<int[]> leftoverSpans = new ArrayList<int[]>();
+      int tokenStart = -1;
+      for( int i = 0; i <= length; i++ ) {
+         if( i < length && coveredBy[i] >= 0 && ( i == 0 || coveredBy[ i - 1 ] != coveredBy[i] ) ) {
+            int m = coveredBy[i];
+            for( int id = matches[ m * 2 + 1 ]; id >= 0; id = samePhrases[ id ] )
+               if( isKeyFound( id, keysFound ) ) keywords.putIfAbsent( keywordList[ patternLineIDs[ id ] ], new int[]{ i, matches[ m * 2 ] + 1 } );
+         }
+         
+         boolean isLeftover = i < length && coveredBy[i] < 0 && !Character.isWhitespace( input.charAt(i) );
+         if( isLeftover && tokenStart < 0 ) {
+            tokenStart = i;
+         } else if( !isLeftover && tokenStart >= 0 ) {
+            leftoverSpans.add( new int[]{ tokenStart, i } );
+            tokenStart = -1;
+         }
+      }
+      
+      return new Result( input, new ArrayList<String>( keywords.keySet() ), new ArrayList<int[]>( keywords.values() ), leftoverSpans );
+   }
+   
+   /**
+      Returns the total number of states in the compiled automaton
+      
+      @return int The total number of states
+   */
+   public int totalStates() {
+      return totalStates;
+   }
+   
+   /**
+      Returns the total number of keyword lines added to this matcher
+      
+      @return int The total number of lines
+   */
+   public int totalLines() {
+      return keywordList != null ? keywordList.length : lineKeywords.size();
+   }
+   
+   /**
+      Puts a phrase into the same form as the normalized user input: uppercase, with
+      punctuation removed and runs of whitespace collapsed into a single space
+      
+      @param phrase The phrase to normalize
+      @return String The normalized phrase
+      @see MTGNormalizer.normalize( String str )
+   */
+   public static String normalize( String phrase ) {
+      return MTGNormalizer.normalize( phrase );
+   }
+   
+   /**
+      Determines whether the line of a phrase counts: it has no key, or its key was found
+      
+      @param id The pattern ID of the phrase
+      @param keysFound Whether each key pattern was found within the input
+      @return boolean True if the phrase counts, false otherwise
+   */
+   private boolean isKeyFound( int id, boolean[] keysFound ) {
+      int keyID = lineKeyIDs[ patternLineIDs[ id ] ];
+      return keyID < 0 || keysFound[ keyID ];
+   }
+   
+   /**
+      Determines whether a phrase or a key ends at the given state
+      
+      @param state The state to check
+      @return boolean True if a pattern ends at this state, false otherwise
+   */
+   private boolean hasOutput( int state ) {
+      return outputs[ state ] >= 0 || keyOutputs[ state ] >= 0;
+   }
+   
+   /**
+      Get the symbol of a character within a pattern
+      
+      @param c The character
+      @return int The symbol of the character
+   */
+   private int symbolOf( char c ) {
+      int symbol = c < 128 ? SYMBOLS[c] : -1;
+      if( symbol < 0 ) throw new IllegalArgumentException("Unsupported character in keyword phrase: " + c );
+      
+      return symbol;
+   }
+   
+   /**
+      Checks that every character of a pattern can be matched, so that a bad line is found
+      when it is added rather than when the matcher is compiled
+      
+      @param pattern The normalized pattern
+      @return String The pattern
+      @throws IllegalArgumentException If the pattern has a character that cannot be matched
+   */
+   private String checkSymbols( String pattern ) {
+      for( int i = 0; i < pattern.length(); i++ )
+         symbolOf( pattern.charAt(i) );
+      
+      return pattern;
+   }
+   
+   /**
+      The keywords and leftover token spans found when matching an input
+   */
+   public static class Result {
+      
+      private final String input;
+      private final ArrayList<String> keywords;
+      private final ArrayList<int[]> keywordSpans;
+      private final ArrayList<int[]> leftoverSpans;
+      
+      /**
+         Create a result
+         
+         @param input The input matched
+         @param keywords The keywords found, in input order
+         @param keywordSpans The start (inclusive) and end (exclusive) of the phrase of each keyword
+         @param leftoverSpans The start (inclusive) and end (exclusive) of each leftover token
+      */
+      private Result( String input, ArrayList<String> keywords, ArrayList<int[]> keywordSpans, ArrayList<int[]> leftoverSpans ) {
+         this.input = input;
+         this.keywords = keywords;
+         this.keywordSpans = keywordSpans;
+         this.leftoverSpans = leftoverSpans;
+      }
+      
+      /**
+         Get the keywords found, without duplicates, in the order they appear in the input
+         
+         @return ArrayList<String> The keywords found
+      */
+      public ArrayList<String> getKeywords() {
+         return keywords;
+      }
+      
+      /**
+         Get the span of the phrase that each keyword was found from. Where a keyword was
+         found more than once, the first phrase is used
+         
+         @return ArrayList<int[]> The start (inclusive) and end (exclusive) of the phrase of each
+                                  keyword, parallel to getKeywords()
+      */
+      public ArrayList<int[]> getKeywordSpans() {
+         return keywordSpans;
+      }
+      
+      /**
+         Get the spans of the tokens not covered by any phrase
+         
+         @return ArrayList<int[]> The start (inclusive) and end (exclusive) of each leftover token
+      */
+      public ArrayList<int[]> getLeftoverSpans() {
+         return leftoverSpans;
+      }
+      
+      /**
+         Get the leftover tokens joined by single spaces
+         
+         @return String The leftover tokens
+      */
+      public String getLeftovers() {
+         StringBuilder builder = new StringBuilder();
+         for( int[] span : leftoverSpans ) {
+            if( builder.length() > 0 ) builder.append(' ');
+            builder.append( input, span[0], span[1] );
+         }
+         
+         return builder.toString();
+      }
+   }
+}
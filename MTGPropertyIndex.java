@@ -0,0 +1,172 @@
+import java.io.File;
+import java.util.Scanner;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.BitSet;
+
+/**
+   MTGPropertyIndex.java
+   
+   Inverted index from card properties to the cards that have them.
+   
+   Every property name found in mtgWordList.txt is given an int ID when the
+   index is created. Each ID maps to a bitmap of card ordinals (the position of
+   the card within the MTGQuery card list), so that the planner evaluates a query
+   as a bitwise AND across the requested properties, and an ANDNOT across the
+   properties to be excluded, rather than by calling MTGCard.hasProperty( String )
+   on every card
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+   @see MTGQueryPlanner.java
+   @see MTGCard.java
+   @see mtgWordList.txt
+*/
+public class MTGPropertyIndex {
+   
+   //Property name -> property ID
+   private HashMap<String, Integer> propertyIDs;
+   
+   //Property ID -> property name, and property ID -> bitmap of card ordinals
+   private ArrayList<String> propertyNames;
+   private ArrayList<BitSet> propertyBitmaps;
+   
+   private int totalCards = 0;
+   
+   /**
+      Create the index, assigning an ID to every property listed in the word list file.
+      
+      The word list is tab-delimited. The first row holds the category names and the
+      first column holds the base attribute names (Name, Card Type, etc), neither of
+      which are properties, so both are skipped
+      
+      @param wordFileName The name of the word list file. See 'mtgWordList.txt'
+      @see MTGQuery( String fileName )
+   */
+   public MTGPropertyIndex( String wordFileName ) {
+      propertyIDs = new HashMap<String, Integer>();
+      propertyNames = new ArrayList<String>();
+      propertyBitmaps = new ArrayList<BitSet>();
+      
+      Scanner scanner = null;
+      try {
+         scanner = new Scanner( new File( wordFileName ) );
+      } catch( IOException e ) {
+         e.printStackTrace();
+         return;
+      }
+      
+      if( scanner.hasNextLine() ) scanner.nextLine(); //skip category names
+      
+      while( scanner.hasNextLine() ) {
+         String[] lineList = scanner.nextLine().replace("\0", "").split("\t");
+         for( int i = 1; i < lineList.length; i++ ) {
+            String property = lineList[i].trim();
+            if( !property.isEmpty() )
+               registerProperty( property );
+         }
+      }
+      
+      scanner.close();
+   }
+   
+   /**
+      Marks the card at the given ordinal as having the given property. Properties that
+      are not in the word list are given a new ID
+      
+      @param ordinal The position of the card within the card list
+      @param property The property the card has
+   */
+   public void addProperty( int ordinal, String property ) {
+      addProperty( ordinal, registerProperty( property ) );
+   }
+   
+   /**
+      Marks the card at the given ordinal as having the property with the given ID
+      
+      @param ordinal The position of the card within the card list
+      @param id The ID of the property the card has
+      @see registerProperty( String property )
+   */
+   public void addProperty( int ordinal, int id ) {
+      if( ordinal >= totalCards ) totalCards = ordinal + 1;
+      
+      propertyBitmaps.get( id ).set( ordinal );
+   }
+   
+   /**
+      Get the bitmap of cards that have the given property. The bitmap returned is owned
+      by the index and should not be modified
+      
+      @param property The property to look up
+      @return BitSet The ordinals of the cards with this property, or an empty bitmap if
+                     the property is unknown
+   */
+   public BitSet getCards( String property ) {
+      int id = getPropertyID( property );
+      if( id < 0 ) return new BitSet();
+      
+      return propertyBitmaps.get( id );
+   }
+   
+   /**
+      Get the ID of a property
+      
+      @param property The property to look up
+      @return int The ID of the property, or -1 if the property is unknown
+   */
+   public int getPropertyID( String property ) {
+      Integer id = propertyIDs.get( property );
+      if( id == null ) return -1;
+      
+      return id;
+   }
+   
+   /**
+      Get the name of a property from its ID
+      
+      @param id The ID of the property
+      @return String The name of the property
+   */
+   public String getPropertyName( int id ) {
+      return propertyNames.get( id );
+   }
+   
+   /**
+      Returns the total number of properties known to this index
+      
+      @return int The total number of property IDs
+   */
+   public int totalProperties() {
+      return propertyNames.size();
+   }
+   
+   /**
+      Returns the total number of cards indexed
+      
+      @return int One more than the highest card ordinal indexed
+   */
+   public int totalCards() {
+      return totalCards;
+   }
+   
+   /**
+      Get the ID of a property, assigning a new ID if the property has not been seen
+      
+      @param property The property to look up
+      @return int The ID of the property
+   */
+   public int registerProperty( String property ) {
+      Integer id = propertyIDs.get( property );
+      if( id != null ) return id;
+      
+      int newID = propertyNames.size();
+      propertyIDs.put( property, newID );
+      propertyNames.add( property );
+      propertyBitmaps.add( new BitSet() );
+      
+      return newID;
+   }
+}
@@ -1,13 +1,13 @@
 
-import java.io.File;
-import java.util.Scanner;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.NoSuchElementException;
+import java.util.HashSet;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
    MTGQuery.java
@@ -21,272 +21,1026 @@ import java.util.Arrays;
 */
 public class MTGQuery {
    
-   private File mtgFile;
-   private Scanner scanner = null;
+   private final String fileName;
+   private MTGCatalogSnapshot snapshot;
    
-   private ArrayList<MTGCard> cardList;
+   //Cards are created from the snapshot the first time they are needed
+   private AtomicReferenceArray<MTGCard> cards;
+   private int totalCards = 0;
+   
+   //Base properties of the cards appended to the card file after the snapshot, which come after its cards
+   private ArrayList<String[]> appendedBaseProperties;
+   
+   //End of the cards read from the card file, and the checksum of everything before it
+   private long ingestedEnd;
+   private long ingestedChecksum;
+   
+   //Queries whose leftover words are known to the planner, or null for only this query
+   private volatile List<MTGQuery> vocabulary;
+   
+   private ArrayList<MTGCard> resultList;
+   
+   //Cards whose names are close to the last search that found nothing
+   private ArrayList<MTGCard> suggestionList;
+   
+   private MTGPropertyIndex propertyIndex;
+   private MTGTokenIndex tokenIndex;
+   private MTGNameIndex nameIndex;
+   
+   //Completions of the keyword phrases of the dictionary it was built with, and of the cards
+   private volatile MTGCompletionTrie completions;
+   private volatile MTGKeywordDictionary completionDictionary;
+   private MTGNumericColumns numericColumns;
+   private MTGSortedIndex[] sortedIndexes;
+   private MTGQueryPlanner planner;
+   private MTGRanker ranker;
+   private MTGResultCache resultCache;
+   
+   //Whether each search prints the properties found and its plan
+   private boolean isPrintingPlan = true;
+   
+   //Numeric columns that have a sorted index for range queries
+   private final int[] SORTED_COLUMNS = { MTGNumericColumns.POWER, MTGNumericColumns.TOUGHNESS, MTGNumericColumns.COST,
+                                          MTGNumericColumns.YEAR, MTGNumericColumns.LOYALTY };
    
    private final String MTG_KEYWORD_SEARCH_FILE_LOC = "./mtgKeywordSearchList.txt";
+   private final String MTG_WORD_LIST_FILE_LOC      = "./mtgWordList.txt";
+   
+   //Most names suggested when a search finds nothing
+   private final int TOTAL_SUGGESTIONS = 5;
+   
+   //Base properties completed: the name, the subtype, whose words are completed one by one, and the artist
+   private final int NAME_COLUMN    = 1;
+   private final int SUBTYPE_COLUMN = 3;
+   private final int ARTIST_COLUMN  = 8;
+   
+   //Tokens that begin the part of a query listing properties to be excluded
+   private final String[] EXCLUSION_WORDS = {"EXCLUDES","EXCLUDING","EXCEPT","WITHOUT"};
+   
+   //Tokens that exclude what follows them when no keyword phrase uses them, as in 'creature not goblin'
+   private final String[] NEGATION_WORDS = {"NOT","NON"};
+   
+   //Other names of the numeric columns, for comparisons written with symbols, such as 'cmc<=3'
+   private final String[][] ATTRIBUTE_ALIASES = { {"CMC","cost"}, {"MV","cost"}, {"MANA VALUE","cost"}, {"MANAVALUE","cost"} };
    
    /**
       Create a query object that will store the list of cards found after processing
       and searching the input specifications
       
+      The card file is read through its binary snapshot, which is compiled first if the
+      card file has changed since the snapshot was last compiled. The property index, the
+      token index, and the name index are built straight from the snapshot, without creating
+      any MTGCards
+      
       @param fileName The name of the file to query. See 'mtgCards.txt'
+      @see MTGCatalogSnapshot.open( String fileName )
+      @see refresh()
    */
    public MTGQuery( String fileName ) {
+      this.fileName = fileName;
+      load();
+   }
+   
+   /**
+      Reads every card of the card file, through its snapshot, and builds the indexes
+      
+      @see MTGQuery( String fileName )
+   */
+   private void load() {
+      long startTime = System.nanoTime();
+      resultList = new ArrayList<MTGCard>();
+      suggestionList = new ArrayList<MTGCard>();
+      propertyIndex = new MTGPropertyIndex( MTG_WORD_LIST_FILE_LOC );
+      appendedBaseProperties = new ArrayList<String[]>();
+      completions = null;
+      snapshot = null;
+      totalCards = 0;
+      
       try {
-         mtgFile = new File( fileName );
-         scanner = new Scanner( mtgFile );
+         snapshot = MTGCatalogSnapshot.open( fileName );
+         totalCards = snapshot.totalCards();
+         ingestedEnd = snapshot.getFileLength();
+         ingestedChecksum = snapshot.getChecksum();
       } catch( IOException e ) {
          e.printStackTrace();
       }
       
-      cardList = new ArrayList<MTGCard>();
-      scanner.nextLine(); //skip first line
-      int lineNumber = 1;
+      cards = new AtomicReferenceArray<MTGCard>( totalCards );
+      numericColumns = totalCards > 0 ? new MTGNumericColumns( snapshot ) : new MTGNumericColumns( 0 );
+      sortedIndexes = new MTGSortedIndex[ MTGNumericColumns.TOTAL_COLUMNS ];
+      for( int i = 0; i < SORTED_COLUMNS.length; i++ )
+         sortedIndexes[ SORTED_COLUMNS[i] ] = new MTGSortedIndex( numericColumns, SORTED_COLUMNS[i] );
       
-      //Add MTGCards to list
-      while( scanner.hasNextLine() ) {
-         //set base properties
-         String line = scanner.nextLine().trim();
-         String[] baseProperties = line.split("\\|");
-         
-         //set image name
-         String imageName = baseProperties[1] + ".jpg";
-         
-         //check that the properties exist for this card
-         if( !scanner.hasNextLine() ) throw new NoSuchElementException("Expected additional line for base properties");
-         
-         //set properties
-         String propertiesLine = scanner.nextLine().trim();
-         String[] properties = propertiesLine.split(",");
-         
-         //set and add MTGCard
-         MTGCard card = new MTGCard( baseProperties, imageName, properties );
-         cardList.add( card );
-         
-         //advance card #
-         lineNumber++;
+      //Map the property IDs of the snapshot to those of the index
+      int[] indexIDs = new int[ totalCards > 0 ? snapshot.totalProperties() : 0 ];
+      for( int id = 0; id < indexIDs.length; id++ )
+         indexIDs[id] = propertyIndex.registerProperty( snapshot.getPropertyName( id ) );
+      
+      //Add card properties to index
+      for( int ordinal = 0; ordinal < totalCards; ordinal++ ) {
+         int[] propertyIDs = snapshot.getPropertyIDs( ordinal );
+         for( int i = 0; i < propertyIDs.length; i++ )
+            propertyIndex.addProperty( ordinal, indexIDs[ propertyIDs[i] ] );
       }
       
+      tokenIndex = new MTGTokenIndex( snapshot, totalCards );
+      nameIndex = new MTGNameIndex( snapshot, totalCards );
+      planner = new MTGQueryPlanner( this, propertyIndex, tokenIndex );
+      ranker = new MTGRanker( this );
+      resultCache = new MTGResultCache();
+      MTGMetrics.get().record( MTGMetrics.LOAD, startTime );
+      
       //@@DEBUG
       /*
-      sortByName( cardList );
       printAllCardsWithProperties();
       */
    }
    
+   /**
+      Brings the cards up to date with the card file. If cards have only been appended to
+      the card file since it was last read, only the new card records are parsed: they are
+      given the ordinals after the last card, and the indexes are extended with them in
+      place, so the time taken to parse and index depends on the number of new cards rather
+      than the size of the collection. The cards read before are checked against a checksum
+      of the whole file up to where they ended, so that an edit to any of them is found. If
+      anything before the end of the cards read has changed, every card is read again. Cards
+      should not be refreshed while searches are running
+      
+      @return int The number of cards added, or -1 if the card file had changed and every card was read again
+      @see MTGCardLoader.isAppendOnly( String fileName, long end, long checksum )
+      @see MTGCardLoader( String fileName, long from )
+   */
+   public synchronized int refresh() {
+      long startTime = System.nanoTime();
+      MTGCardLoader loader;
+      try {
+         if( snapshot == null || !MTGCardLoader.isAppendOnly( fileName, ingestedEnd, ingestedChecksum ) ) {
+            load();
+            return -1;
+         }
+         
+         loader = new MTGCardLoader( fileName, ingestedEnd );
+      } catch( IOException e ) {
+         e.printStackTrace();
+         return 0;
+      }
+      
+      addCards( loader );
+      ingestedEnd = loader.getEnd();
+      ingestedChecksum = loader.getChecksum();
+      MTGMetrics.get().record( MTGMetrics.LOAD, startTime );
+      
+      return loader.totalCards();
+   }
+   
+   /**
+      Adds the cards of a load of the card file after the last card, and extends every
+      index with them. The planner and the ranker are made again, since they keep the total
+      number of cards, and the completions are built again the next time they are asked for
+      
+      @param loader The cards appended to the card file
+      @see refresh()
+   */
+   private void addCards( MTGCardLoader loader ) {
+      int first = totalCards;
+      int added = loader.totalCards();
+      if( added == 0 ) return;
+      
+      List<String[]> baseLists = loader.getBaseProperties();
+      AtomicReferenceArray<MTGCard> grownCards = new AtomicReferenceArray<MTGCard>( first + added );
+      for( int i = 0; i < first; i++ )
+         grownCards.set( i, cards.get(i) );
+      
+      for( int i = 0; i < added; i++ ) {
+         MTGCard card = loader.getCards().get(i);
+         grownCards.set( first + i, card );
+         numericColumns.addCard( MTGNumericColumns.valuesOf( card ) );
+         for( String property : loader.getProperties().get(i) )
+            propertyIndex.addProperty( first + i, property );
+      }
+      
+      for( MTGSortedIndex index : sortedIndexes ) {
+         if( index != null ) index.addCards( numericColumns );
+      }
+      tokenIndex.addCards( baseLists, first );
+      nameIndex.addCards( baseLists, first );
+      appendedBaseProperties.addAll( baseLists );
+      
+      cards = grownCards;
+      totalCards = first + added;
+      planner = new MTGQueryPlanner( this, propertyIndex, tokenIndex );
+      ranker = new MTGRanker( this );
+      completions = null;
+      resultCache.invalidate();
+   }
+   
+   /**
+      Get the base properties of a card, from the snapshot, or from the cards appended
+      after it
+      
+      @param ordinal The position of the card within the card file
+      @return String[] The base properties of the card, starting with the line number
+   */
+   private String[] getBaseProperties( int ordinal ) {
+      int snapshotCards = totalCards - appendedBaseProperties.size();
+      return ordinal < snapshotCards ? snapshot.getBaseProperties( ordinal ) : appendedBaseProperties.get( ordinal - snapshotCards );
+   }
+   
+   /**
+      Get the card at the given ordinal, creating it from the snapshot if this is the
+      first time it has been asked for
+      
+      @param ordinal The position of the card within the card file
+      @return MTGCard The card
+      @see MTGCatalogSnapshot.readCard( int ordinal )
+   */
+   public MTGCard getCard( int ordinal ) {
+      MTGCard card = cards.get( ordinal );
+      if( card == null ) {
+         cards.compareAndSet( ordinal, null, snapshot.readCard( ordinal ) );
+         card = cards.get( ordinal );
+      }
+      
+      return card;
+   }
+   
+   /**
+      Creates every card from the snapshot now, rather than the first time each is asked for.
+      A long-running server calls this once, so that no search pays for creating cards
+      
+      @see getCard( int ordinal )
+   */
+   public void loadAllCards() {
+      for( int i = 0; i < totalCards; i++ )
+         getCard(i);
+   }
+   
+   /**
+      Gives a card a new property, updating the property index, and emptying the result
+      cache since cached results may no longer be correct. Properties should be added
+      this way rather than through MTGCard.addProperty( String property ), which does not
+      reach the index or the cache. Properties should not be added while searches are running
+      
+      @param ordinal The position of the card within the card file
+      @param property The property to give the card
+      @return boolean True if the card did not already have the property, false otherwise
+      @see MTGResultCache.invalidate()
+   */
+   public boolean addProperty( int ordinal, String property ) {
+      if( !getCard( ordinal ).addProperty( property ) ) return false;
+      
+      propertyIndex.addProperty( ordinal, property );
+      resultCache.invalidate();
+      return true;
+   }
+   
+   /**
+      Get the cache of search results, and its hit ratio
+      
+      @return MTGResultCache The result cache
+   */
+   public MTGResultCache getResultCache() {
+      return resultCache;
+   }
+   
+   /**
+      Get the index of the base property tokens of every card
+      
+      @return MTGTokenIndex The token index
+   */
+   public MTGTokenIndex getTokenIndex() {
+      return tokenIndex;
+   }
+   
+   /**
+      Sets the queries whose base property tokens the planner knows of. A leftover word
+      is only planned if some card has it, so queries searched together share the tokens of
+      all of them, and plan a word the same way even if only some of them have it
+      
+      @param vocabulary The queries searched together, including this one, or null for only this query
+      @see isKnownToken( String token, int[] fields )
+   */
+   public void setVocabulary( List<MTGQuery> vocabulary ) {
+      this.vocabulary = vocabulary;
+   }
+   
+   /**
+      Determines whether a token is in any of the given fields of a card of the vocabulary
+      
+      @param token The uppercase token
+      @param fields The fields to look in, such as MTGTokenIndex.SUBTYPE
+      @return boolean True if some card has the token in one of the fields, false otherwise
+      @see setVocabulary( List<MTGQuery> vocabulary )
+   */
+   public boolean isKnownToken( String token, int[] fields ) {
+      List<MTGQuery> queries = vocabulary;
+      if( queries == null ) return tokenIndex.contains( token, fields );
+      
+      for( MTGQuery query : queries )
+         if( query.getTokenIndex().contains( token, fields ) ) return true;
+      
+      return false;
+   }
+   
+   /**
+      Get the typo tolerant index of the card names
+      
+      @return MTGNameIndex The name index
+   */
+   public MTGNameIndex getNameIndex() {
+      return nameIndex;
+   }
+   
+   /**
+      Finds the cards whose names are within a few edits of the given name, such as
+      'Gyome, Master Chef' for 'gyome master chfe'. Only one card is given for each name
+      
+      @param name The name to look for, as typed
+      @param limit The most cards to return
+      @return ArrayList<MTGCard> The cards found, closest name first
+      @see MTGNameIndex.find( String name, int limit )
+   */
+   public ArrayList<MTGCard> findNames( String name, int limit ) {
+      int[] ordinals = nameIndex.find( name, limit );
+      ArrayList<MTGCard> cardsFound = new ArrayList<MTGCard>( ordinals.length );
+      for( int ordinal : ordinals )
+         cardsFound.add( getCard( ordinal ) );
+      
+      return cardsFound;
+   }
+   
+   /**
+      Finds the most common terms that begin with a prefix: card names, subtypes, artists,
+      and the phrases of the keyword file
+      
+      @param prefix The start of a term, as typed
+      @param limit The most terms to return
+      @return String[] The terms found, most common first
+      @see getCompletions()
+   */
+   public String[] complete( String prefix, int limit ) {
+      MTGCompletionTrie trie = getCompletions();
+      int[] found = trie.complete( prefix, limit );
+      String[] terms = new String[ found.length ];
+      for( int i = 0; i < found.length; i++ )
+         terms[i] = trie.getTerm( found[i] );
+      
+      return terms;
+   }
+   
+   /**
+      Get the trie of the terms that can be completed, building it the first time it is asked
+      for, and again only if the keyword file has been reloaded since. The trie is read-only,
+      so it is shared by every search.
+      
+      Each card name is weighted by the number of cards with that name, each subtype word
+      and artist by the number of cards they appear on, and each keyword phrase by the number
+      of cards with its keyword property
+      
+      @return MTGCompletionTrie The completion trie
+      @see MTGCompletionTrie.java
+   */
+   public MTGCompletionTrie getCompletions() {
+      MTGKeywordDictionary dictionary = getDictionary();
+      MTGCompletionTrie trie = completions;
+      if( trie != null && completionDictionary == dictionary ) return trie;
+      
+      synchronized( this ) {
+         if( completions != null && completionDictionary == dictionary ) return completions;
+         
+         MTGCompletionTrie.Builder builder = new MTGCompletionTrie.Builder();
+         for( int ordinal = 0; ordinal < totalCards; ordinal++ ) {
+            String[] baseList = getBaseProperties( ordinal );
+            if( baseList.length != MTGCard.BASE_PROPERTIES_SIZE ) continue;
+            
+            builder.add( baseList[ NAME_COLUMN ], 1 );
+            if( !baseList[ ARTIST_COLUMN ].equalsIgnoreCase("NA") ) builder.add( baseList[ ARTIST_COLUMN ], 1 );
+            for( String word : baseList[ SUBTYPE_COLUMN ].split(" ") ) {
+               if( !word.equalsIgnoreCase("NA") ) builder.add( word, 1 );
+            }
+         }
+         
+         if( dictionary != null ) {
+            //most lines begin with their phrase run together, such as 'HASTAPABILITY', which is left out
+            //when the line also has it with spaces
+            HashSet<String> runTogether = new HashSet<String>();
+            for( String[] phrase : dictionary.getPhrases() ) {
+               if( phrase[0].indexOf(' ') >= 0 ) runTogether.add( phrase[1] + "@" + phrase[0].replace(" ", "") );
+            }
+            
+            for( String[] phrase : dictionary.getPhrases() ) {
+               if( runTogether.contains( phrase[1] + "@" + phrase[0] ) ) continue;
+               
+               builder.add( phrase[0].toLowerCase(), propertyIndex.getCards( phrase[1] ).cardinality() );
+            }
+         }
+         
+         completions = builder.build();
+         completionDictionary = dictionary;
+         return completions;
+      }
+   }
+   
+   /**
+      Get the numeric attributes of every card, stored as primitive columns
+      
+      @return MTGNumericColumns The numeric columns, indexed by card ordinal
+   */
+   public MTGNumericColumns getNumericColumns() {
+      return numericColumns;
+   }
+   
+   /**
+      Get the current keyword dictionary, compiling it if this is the first time it has been
+      asked for
+      
+      @return MTGKeywordDictionary The current dictionary, or null if the keyword file could not be compiled
+      @see MTGKeywordDictionary.get( String fileName )
+   */
+   public MTGKeywordDictionary getDictionary() {
+      return MTGKeywordDictionary.get( MTG_KEYWORD_SEARCH_FILE_LOC );
+   }
+   
+   /**
+      Sets whether each search prints the properties found and its plan, which is on by
+      default. A server answering many searches at once should turn it off
+      
+      @param isPrintingPlan True to print the plan of each search, false otherwise
+   */
+   public void setPrintingPlan( boolean isPrintingPlan ) {
+      this.isPrintingPlan = isPrintingPlan;
+   }
+   
+   /**
+      Returns the total number of cards in the card file
+      
+      @return int The total number of cards
+   */
+   public int totalCards() {
+      return totalCards;
+   }
+   
    /**
       Generates the list of cards given the user input.
       
+      The cards found are stored, and can be printed using printList(). If no cards are
+      found, the user input is looked up as a misspelled card name, and the cards with the
+      closest names are stored as suggestions
+      
       @param userInput The line entered from the user to be processed
+      @see search( String userInput )
+      @see findNames( String name, int limit )
+      @see printList()
    */
    public void findList( String userInput ) {
+      resultList = search( userInput );
+      suggestionList = resultList.isEmpty() ? findNames( userInput, TOTAL_SUGGESTIONS ) : new ArrayList<MTGCard>();
+   }
+   
+   /**
+      Finds the cards that have all of the properties described by the user input.
       
-      //set valid String properties keys from input data
-      ArrayList<String> validProperties = translateUserInput( userInput );
+      Everything following an exclusion word (such as 'excludes' or 'without') is
+      translated separately, and cards with any of those properties are left out.
+      The keyword properties, comparisons, and leftover words naming a card type,
+      subtype, rarity, set, or artist are planned into predicates, which are evaluated
+      most selective first, so the search is a series of bitmap intersections that
+      narrows quickly, rather than a scan of every card.
       
-      //get leftover String values for base property evaluation
-      int sizeOfList = validProperties.size();
-      String leftOvers = validProperties.get( sizeOfList - 1 );
-      validProperties.remove( sizeOfList - 1 );
+      The result of each plan is cached, keyed by its sorted predicates, so that a repeated
+      search, even one worded differently, is answered without evaluating the plan.
+      
+      The time taken to translate, plan, and evaluate the search is recorded in MTGMetrics
+      
+      @param userInput The line entered from the user to be processed
+      @return ArrayList<MTGCard> The cards found, in card list order
+      @see translateUserInput( String userInput, ArrayList<String> negated )
+      @see MTGQueryPlanner.plan( List<String> includes, String leftOvers, List<String> excludes, String excludedLeftOvers )
+      @see MTGResultCache.java
+      @see MTGMetrics.java
+   */
+   public ArrayList<MTGCard> search( String userInput ) {
+      ArrayList<String> validProperties = new ArrayList<String>();
+      return search( planUserInput( userInput, validProperties ), validProperties );
+   }
+   
+   /**
+      Finds the cards that match a plan made by plan( String userInput ), such as a plan a
+      collection of queries has already checked for matches before searching
+      
+      @param plan The plan of the query
+      @return ArrayList<MTGCard> The cards found, in card list order
+      @see search( String userInput )
+      @see MTGCollectionRegistry.java
+   */
+   public ArrayList<MTGCard> search( MTGQueryPlanner.And plan ) {
+      return search( plan, new ArrayList<String>() );
+   }
+   
+   /**
+      Finds the cards that match a plan, from the result cache if the plan has been
+      evaluated before, and prints the plan if printing is on
+      
+      @param plan The plan of the query
+      @param validProperties The properties found in the include part of the input, to print
+      @return ArrayList<MTGCard> The cards found, in card list order
+      @see search( String userInput )
+   */
+   private ArrayList<MTGCard> search( MTGQueryPlanner.And plan, ArrayList<String> validProperties ) {
+      MTGMetrics metrics = MTGMetrics.get();
+      String key = plan.getKey();
+      long startTime = System.nanoTime();
+      
+      ArrayList<MTGCard> cardsFound = new ArrayList<MTGCard>();
+      
+      //a query that resolves to nothing should not list the entire collection
+      if( plan.getPredicates().isEmpty() ) {
+         if( isPrintingPlan ) printPlan( validProperties, plan, false );
+         return cardsFound;
+      }
+      
+      long generation = resultCache.generation();
+      BitSet matches = resultCache.get( key );
+      boolean isCached = matches != null;
+      metrics.addCacheLookUp( isCached );
+      if( !isCached ) {
+         matches = planner.execute( plan );
+         resultCache.put( key, matches, generation );
+      }
+      
+      for( int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit( i + 1 ) )
+         cardsFound.add( getCard(i) );
+      startTime = metrics.record( MTGMetrics.EVALUATE, startTime );
       
       //@@DEBUG
+      if( isPrintingPlan ) {
+         printPlan( validProperties, plan, isCached );
+         metrics.record( MTGMetrics.RENDER, startTime );
+      }
+      
+      return cardsFound;
+   }
+   
+   /**
+      Finds the K cards that match the most of the user input, rather than all of it, for
+      descriptive queries that no card matches in full. Each property, comparison, and
+      leftover word a card matches adds to its score, rare ones more than common ones, and
+      cards with any of the excluded properties are left out
+      
+      @param userInput The line entered from the user to be processed
+      @param k The most cards to return
+      @return MTGRanker.Ranking The cards found, best first, with their scores
+      @see MTGRanker.java
+   */
+   public MTGRanker.Ranking rank( String userInput, int k ) {
+      ArrayList<String> validProperties = new ArrayList<String>();
+      MTGQueryPlanner.And plan = planUserInput( userInput, validProperties );
+      long startTime = System.nanoTime();
+      
+      MTGRanker.Ranking ranking = ranker.rank( plan, k );
+      startTime = MTGMetrics.get().record( MTGMetrics.EVALUATE, startTime );
+      
+      if( isPrintingPlan ) {
+         printPlan( validProperties, plan, false );
+         MTGMetrics.get().record( MTGMetrics.RENDER, startTime );
+      }
+      
+      return ranking;
+   }
+   
+   /**
+      Translates the user input and plans it, without evaluating the plan, so that the
+      estimates of its predicates can be checked first
+      
+      @param userInput The line entered from the user to be processed
+      @return MTGQueryPlanner.And The plan of the input
+      @see MTGQueryPlanner.And.isEmpty()
+   */
+   public MTGQueryPlanner.And plan( String userInput ) {
+      return planUserInput( userInput, new ArrayList<String>() );
+   }
+   
+   /**
+      Translates the user input and plans it. The time taken to translate and to plan is
+      recorded in MTGMetrics
+      
+      @param userInput The line entered from the user to be processed
+      @param validProperties The list to add the properties found in the include part of the input to
+      @return MTGQueryPlanner.And The plan of the input
+      @see translateUserInput( String userInput, ArrayList<String> negated )
+      @see MTGQueryPlanner.plan( List<String> includes, String leftOvers, List<String> excludes, String excludedLeftOvers )
+   */
+   private MTGQueryPlanner.And planUserInput( String userInput, ArrayList<String> validProperties ) {
+      MTGMetrics metrics = MTGMetrics.get();
+      long startTime = System.nanoTime();
+      
+      //comparisons written with symbols are taken out first, since normalizing removes the symbols
+      ArrayList<String> comparisons = new ArrayList<String>();
+      ArrayList<String> excludedComparisons = new ArrayList<String>();
+      String[] clauses = splitExclusions( extractComparisons( userInput, comparisons, excludedComparisons ) );
+      
+      //set valid String properties keys from input data, and the properties after a negation word
+      ArrayList<String> negatedProperties = new ArrayList<String>();
+      validProperties.addAll( translateUserInput( clauses[0], negatedProperties ) );
+      ArrayList<String> excludedProperties = new ArrayList<String>();
+      String excludedLeftOvers = null;
+      if( clauses[1] != null ) {
+         excludedProperties = translateUserInput( clauses[1], null );
+         excludedLeftOvers = excludedProperties.remove( excludedProperties.size() - 1 );
+      }
+      excludedProperties.addAll( excludedComparisons );
+      if( !negatedProperties.isEmpty() ) {
+         String negatedLeftOvers = negatedProperties.remove( negatedProperties.size() - 1 );
+         excludedProperties.addAll( negatedProperties );
+         if( !negatedLeftOvers.isEmpty() ) excludedLeftOvers = excludedLeftOvers == null || excludedLeftOvers.isEmpty() ? negatedLeftOvers : excludedLeftOvers + " " + negatedLeftOvers;
+      }
+      
+      //get leftover String values for base property evaluation
+      String leftOvers = validProperties.remove( validProperties.size() - 1 );
+      validProperties.addAll( comparisons );
+      
+      startTime = metrics.record( MTGMetrics.TRANSLATE, startTime );
+      
+      MTGQueryPlanner.And plan = planner.plan( validProperties, leftOvers, excludedProperties, excludedLeftOvers );
+      metrics.record( MTGMetrics.PLAN, startTime );
+      
+      return plan;
+   }
+   
+   /**
+      Prints the properties found for a search, and its plan
+      
+      @param validProperties The properties found
+      @param plan The plan of the search
+      @param isCached True if the result was found in the result cache, false otherwise
+   */
+   private void printPlan( ArrayList<String> validProperties, MTGQueryPlanner.And plan, boolean isCached ) {
       SOPln("\nProperties Found:");
       printList( validProperties );
+      SOPln("Plan: " + plan + ( isCached ? " (cached)" : "" ) );
+   }
+   
+   /**
+      Get the sorted index of a numeric column
       
-      //get cards that have all properties from query
+      @param column The column, such as MTGNumericColumns.POWER
+      @return MTGSortedIndex The sorted index, or null if the column is not indexed
+   */
+   public MTGSortedIndex getSortedIndex( int column ) {
+      return sortedIndexes[ column ];
+   }
+   
+   /**
+      Takes the comparisons written with symbols out of the user input, such as 'power>=4',
+      'year > 2019', or 'mana value<=3', and turns each into a comparison term. The attribute
+      is the name of a numeric column, or one of ATTRIBUTE_ALIASES. A comparison whose
+      attribute is not known is still taken out, without a term, so that its number is not
+      read as part of another phrase, such as 'POWER X' for 'power > 4'. A comparison right
+      after a negation word, as in 'creature not power>4', is excluded, and the negation
+      word is taken out with it
+      
+      @param userInput The line entered from the user
+      @param comparisons The list to add the terms of the comparisons before the first exclusion word to
+      @param excludedComparisons The list to add the terms of the comparisons after it, or after a negation word, to
+      @return String The user input with the comparisons replaced by spaces
+      @see MTGQueryPlanner.parseRangeTerm( String term )
+      @see toRangeTerm( String keyword, String number )
+   */
+   private String extractComparisons( String userInput, ArrayList<String> comparisons, ArrayList<String> excludedComparisons ) {
+      if( userInput.indexOf('<') < 0 && userInput.indexOf('>') < 0 && userInput.indexOf('=') < 0 ) return userInput;
       
+      StringBuilder result = new StringBuilder( userInput );
+      int exclusionStart = findExclusionWord( userInput );
+      int length = userInput.length();
+      for( int i = 0; i < length; i++ ) {
+         char c = userInput.charAt(i);
+         if( c != '<' && c != '>' && c != '=' ) continue;
+         
+         //the comparison, and the number after it
+         int comparisonEnd = i + 1 < length && c != '=' && userInput.charAt( i + 1 ) == '=' ? i + 2 : i + 1;
+         int numberStart = comparisonEnd;
+         while( numberStart < length && userInput.charAt( numberStart ) == ' ' )
+            numberStart++;
+         int numberEnd = numberStart;
+         while( numberEnd < length && Character.isDigit( userInput.charAt( numberEnd ) ) )
+            numberEnd++;
+         if( numberEnd == numberStart || ( numberEnd < length && Character.isLetterOrDigit( userInput.charAt( numberEnd ) ) ) ) continue;
+         
+         //the attribute before it
+         int attributeEnd = i;
+         while( attributeEnd > 0 && userInput.charAt( attributeEnd - 1 ) == ' ' )
+            attributeEnd--;
+         int attributeStart = attributeEnd;
+         while( attributeStart > 0 && Character.isLetter( userInput.charAt( attributeStart - 1 ) ) )
+            attributeStart--;
+         String attribute = userInput.substring( attributeStart, attributeEnd );
+         if( attribute.equalsIgnoreCase("VALUE") && userInput.substring( 0, attributeStart ).toUpperCase().endsWith("MANA ") ) {
+            attributeStart -= 5;
+            attribute = userInput.substring( attributeStart, attributeEnd );
+         }
+         
+         int column = columnOfAttribute( attribute );
+         int removeStart = column >= 0 ? attributeStart : i;
+         
+         //a negation word right before the attribute
+         int negationEnd = attributeStart;
+         while( negationEnd > 0 && userInput.charAt( negationEnd - 1 ) == ' ' )
+            negationEnd--;
+         int negationStart = negationEnd;
+         while( negationStart > 0 && Character.isLetter( userInput.charAt( negationStart - 1 ) ) )
+            negationStart--;
+         boolean isNegated = false;
+         for( int j = 0; j < NEGATION_WORDS.length && column >= 0; j++ )
+            if( NEGATION_WORDS[j].equalsIgnoreCase( userInput.substring( negationStart, negationEnd ) ) ) isNegated = true;
+         if( isNegated ) removeStart = negationStart;
+         for( int j = removeStart; j < numberEnd; j++ )
+            result.setCharAt( j, ' ' );
+         
+         if( column >= 0 ) {
+            String term = MTGNumericColumns.nameOf( column ) + userInput.substring( i, comparisonEnd ) + userInput.substring( numberStart, numberEnd );
+            if( isNegated || ( exclusionStart >= 0 && attributeStart > exclusionStart ) ) excludedComparisons.add( term );
+            else                                                         comparisons.add( term );
+         }
+         i = numberEnd - 1;
+      }
+      
+      return result.toString();
+   }
+   
+   /**
+      Get the numeric column named by the attribute of a comparison
+      
+      @param attribute The attribute, such as 'power' or 'CMC'
+      @return int The column, such as MTGNumericColumns.POWER, or -1 if the attribute is not known
+      @see ATTRIBUTE_ALIASES
+   */
+   private int columnOfAttribute( String attribute ) {
+      if( attribute.isEmpty() ) return -1;
+      
+      for( int i = 0; i < ATTRIBUTE_ALIASES.length; i++ )
+         if( ATTRIBUTE_ALIASES[i][0].equalsIgnoreCase( attribute ) ) return MTGNumericColumns.columnOf( ATTRIBUTE_ALIASES[i][1] );
+      
+      int column = MTGNumericColumns.columnOf( attribute );
+      return column == MTGNumericColumns.COLORS ? -1 : column;
+   }
+   
+   /**
+      Finds the first exclusion word of the user input, as written
+      
+      @param userInput The line entered from the user
+      @return int The position of the first exclusion word, or -1 if there is none
+      @see EXCLUSION_WORDS
+   */
+   private int findExclusionWord( String userInput ) {
+      int wordStart = -1;
+      for( int i = 0; i <= userInput.length(); i++ ) {
+         boolean isLetter = i < userInput.length() && Character.isLetter( userInput.charAt(i) );
+         if( isLetter && wordStart < 0 ) {
+            wordStart = i;
+         } else if( !isLetter && wordStart >= 0 ) {
+            String word = userInput.substring( wordStart, i ).toUpperCase();
+            for( int j = 0; j < EXCLUSION_WORDS.length; j++ )
+               if( EXCLUSION_WORDS[j].equals( word ) ) return wordStart;
+            wordStart = -1;
+         }
+      }
+      
+      return -1;
+   }
+   
+   /**
+      Splits the user input into the part describing the properties to include, and the
+      part describing the properties to exclude. The exclusion part begins at the first
+      exclusion word
+      
+      @param userInput The line entered from the user
+      @return String[] The include part at index 0, and the exclude part at index 1, which
+                       is null if there is no exclusion word. Both parts are normalized
+      @see EXCLUSION_WORDS
+      @see MTGNormalizer.normalize( String str )
+   */
+   private String[] splitExclusions( String userInput ) {
+      String[] tokens = MTGNormalizer.normalize( userInput ).split(" ");
+      
+      for( int i = 0; i < tokens.length; i++ ) {
+         for( int j = 0; j < EXCLUSION_WORDS.length; j++ ) {
+            if( tokens[i].equals( EXCLUSION_WORDS[j] ) ) {
+               String include = String.join( " ", Arrays.copyOfRange( tokens, 0, i ) );
+               String exclude = String.join( " ", Arrays.copyOfRange( tokens, i + 1, tokens.length ) );
+               return new String[]{ include, exclude };
+            }
+         }
+      }
+      
+      return new String[]{ userInput, null };
    }
    
    /**
-      Processes the user input using language processesing techniques. This algorithm
-      uses hashing techniques to narrow down searching to O(nlogn), approximately, similar
-      to methods used in Merge/Heap/Quick sort.
+      Processes the user input using language processesing techniques. All of the phrases
+      from the keyword file are compiled once into a multi-pattern automaton, which is
+      shared by every query and reloaded whenever the keyword file changes, so the phrases
+      are found in a single pass over the input, regardless of how many phrases there are.
       
       This is done in four parts:
-      1) Spaces and punctuation is removed from user input. All letters are capitalized
-      2) A key is found in the user input, and uses a HashMap<ArrayList<String>> for multi-tiered values
-      3) Each set of values is searched against the input. Values that match are removed from the original input
-         and their keywordProperties are stored in a list
+      1) Punctuation is removed from user input. All letters are capitalized
+      2) Every phrase (whose key is also found in the input) is found in one pass of the automaton
+      3) Where phrases overlap, the longest phrase wins, and its keyword property is stored in a list
       4) The list of keywords is returned, and the leftover tokens from the user input are concatenated and added
          to the end of the list
       
+      A negation word, such as the NOT of 'creature not goblin', that is left over once the
+      phrases are found, and so is not part of a phrase such as 'NOT CREATURE', excludes
+      everything after it: those keywords and leftover tokens go to the negated list instead,
+      in the same form
+      
       @param userInput The input from the user for finding MTG cards that have the inferred properties
+      @param negated The list to add the keywords and leftover tokens after a negation word to, or
+                     null to leave negation words as leftover tokens
       @return ArrayList<String> The keyword properties to check again the collection of MTG cards
-      @see MTGSearch.removeNonAlphanumeric( String str )
-      @see consolidateKeyLists( String userInput )
+      @see MTGNormalizer.normalize( String str )
+      @see MTGKeywordDictionary.get( String fileName )
+      @see MTGPhraseMatcher.match( String input )
    */
-   private ArrayList<String> translateUserInput( String userInput ) {
+   private ArrayList<String> translateUserInput( String userInput, ArrayList<String> negated ) {
       //Remove punctuation and make all uppercase
-      userInput = MTGSearch.removeNonAlphanumericWhitespace( userInput.trim() ).toUpperCase();
+      userInput = MTGPhraseMatcher.normalize( userInput );
       
       //Remove unneeded filler words
-      String[] fillerWords = {" A "," AN "," THE "};
+      String[] fillerWords = {"A","AN","THE"};
       userInput = removeFillerWords( userInput, fillerWords );
       
       //Create list for resolved keyword tokens
       ArrayList<String> keywords = new ArrayList<String>();
       
-      //map for holding key checks and processing values
-      HashMap<String, String> compiledDataListMap = null;
-      try {
-         compiledDataListMap = consolidateKeyLists();
-      } catch( KeywordFileFormatException e ) {
-         SOPln( e.getMessage() );
+      MTGKeywordDictionary dictionary = getDictionary();
+      if( dictionary == null ) {
+         keywords.add( userInput );
+         return keywords;
       }
       
-      //@@DEBUG
-      //printMap( compiledDataListMap );
-      
-      /*Check each key. If the key is in the keyset, grab values and check values against
-        the userInput. If found, parse out the keyword and store the value in the keywords list.
-        Finally, pop out the phrase found, and concatenate the user String input
-        
-        Continue this until all keys have been checked, or until the String is empty, or filled
-        with whitespace
-      */
-      for( String key: compiledDataListMap.keySet() ) {
-         if( isWhitespace( userInput ) ) break; //break out of key checking if the userInput has popped out all tokens except whitespace
+      //Numbers are matched as the X of comparison phrases, such as 'POWER X OR GREATER'
+      String[] tokens = userInput.split(" ");
+      String[] numbers = new String[ userInput.length() ];
+      String maskedInput = maskNumbers( tokens, numbers );
+      
+      MTGPhraseMatcher.Result result = dictionary.match( maskedInput );
+      int negationStart = findNegationWord( maskedInput, result.getLeftoverSpans(), negated );
+      for( int i = 0; i < result.getKeywords().size(); i++ ) {
+         String keyword = result.getKeywords().get(i);
+         int[] span = result.getKeywordSpans().get(i);
+         ArrayList<String> list = span[0] > negationStart ? negated : keywords;
+         if( !dictionary.isRangeKeyword( keyword ) ) {
+            list.add( keyword );
+            continue;
+         }
          
-         if( userInput.contains( key ) ) {
-            String processorWordLine = compiledDataListMap.get( key ); //has values at key
-            String[] processorWordList = processorWordLine.split("#"); //split around #
-            String[] processorWordSet = new String[ processorWordList.length / 2 ]; //for the processor words
-            String[] keyWordSet = new String[ processorWordSet.length ]; //parallel array with above for keywords
-            
-            //move alternating String sets into their parallel arrays
-            for( int i = 0, j = 0, k = 0; i < processorWordList.length; i++ ) {
-               if( i % 2 == 0 ) processorWordSet[j++] = processorWordList[i];
-               else             keyWordSet[k++] = processorWordList[i];
-            }
-            
-            /*Split processor words for each set and check if userInput contains these tokens
-              If they do, add keyword in parallel array to keywords ArrayList. Then pop these
-              tokens found out of the original userInput
-            */
-            int processorSetCount = 0;
-            for( int i = 0; i < processorWordSet.length; i++ ) {
-               String[] splitProcessorList = processorWordSet[i].split(",");
-               for( int j = 0; j < splitProcessorList.length; j++ ) {
-                  if( userInput.contains( splitProcessorList[j] ) ) {
-                     keywords.add( keyWordSet[ processorSetCount ] );
-                     userInput = userInput.replaceAll( splitProcessorList[j], " " );
-                     userInput = userInput.trim();
-                     break;
-                  }
-               }
-               ++processorSetCount;
+         //use the first number within the phrase of the comparison
+         for( int j = span[0]; j < span[1]; j++ ) {
+            if( numbers[j] != null ) {
+               list.add( toRangeTerm( keyword, numbers[j] ) );
+               break;
             }
-         }//end if
-      }//end for
+         }
+      }
       
-      //Add leftover tokens to end of list to be processed later
-      keywords.add( userInput );
+      //Add leftover tokens to end of list to be processed later, with their numbers put back
+      StringBuilder leftOvers = new StringBuilder();
+      StringBuilder negatedLeftOvers = new StringBuilder();
+      for( int[] span : result.getLeftoverSpans() ) {
+         if( span[0] == negationStart ) continue;
+         
+         StringBuilder builder = span[0] > negationStart ? negatedLeftOvers : leftOvers;
+         if( builder.length() > 0 ) builder.append(' ');
+         if( numbers[ span[0] ] != null && span[1] - span[0] == 1 ) builder.append( numbers[ span[0] ] );
+         else                                                      builder.append( maskedInput, span[0], span[1] );
+      }
+      keywords.add( leftOvers.toString() );
+      if( negationStart < maskedInput.length() ) negated.add( negatedLeftOvers.toString() );
       
       return keywords;
    }
    
    /**
-      Consolidate the language processing lines for each given key.
+      Finds the first negation word left over once the phrases of the input are found
       
-      The keyword is added manually after all the processing tokens,
-      and flagged with surrounding '#'s. This needs to be done since HashMaps
-      cannot have duplicate keys with overwriting values, and since HashMaps
-      can also not support three tiers of connectivity (a key that corresponds with
-      a value, which in turn is a key for a different value)
-     
-      I thought about writing a new data structure for this, but it seemed like quite
-      the chore, so I went with the jank approach instead
-      
-      @return HashMap<String, String> The map with the keys and language processing checks, which have the keyword integrated between '#'s
-      @see MTG_KEYWORD_SEARCH_FILE_LOC
-      @see translateUserInput( String userInput )
+      @param maskedInput The normalized input, with numbers masked
+      @param leftoverSpans The spans of the leftover tokens
+      @param negated The list the negated keywords are added to, or null if negation words are not looked for
+      @return int The start of the first leftover negation word, or the length of the input if there is none
+      @see NEGATION_WORDS
    */
-   private HashMap<String, String> consolidateKeyLists() throws KeywordFileFormatException {
-      File mtgKeywordFile = new File( MTG_KEYWORD_SEARCH_FILE_LOC );
-      Scanner fileScanner = null;
-      try {
-         fileScanner = new Scanner( mtgKeywordFile );
-      } catch( IOException e ) {
-         e.printStackTrace();
+   private int findNegationWord( String maskedInput, List<int[]> leftoverSpans, ArrayList<String> negated ) {
+      if( negated == null ) return maskedInput.length();
+      
+      for( int[] span : leftoverSpans ) {
+         String token = maskedInput.substring( span[0], span[1] );
+         for( int i = 0; i < NEGATION_WORDS.length; i++ )
+            if( NEGATION_WORDS[i].equals( token ) ) return span[0];
       }
       
-      //Create map for holding key checks and processing values
-      HashMap<String, String> map = new HashMap<String, String>();
+      return maskedInput.length();
+   }
+   
+   /**
+      Replaces every token that is a number with an X
       
-      int lineCounter = 0;
-      boolean hasFoundStart = false;
-      while( fileScanner.hasNextLine() ) {
-         //skip to regular lines
-         if( !hasFoundStart && !fileScanner.nextLine().equals("@@@") ) continue;
-         else hasFoundStart = true;
+      @param tokens The tokens of the normalized user input
+      @param numbers Filled with the number replaced at the position of each X in the masked input
+      @return String The tokens joined by spaces, with numbers replaced by X
+   */
+   private String maskNumbers( String[] tokens, String[] numbers ) {
+      StringBuilder masked = new StringBuilder();
+      for( int i = 0; i < tokens.length; i++ ) {
+         if( i > 0 ) masked.append(' ');
          
-         ++lineCounter;
-         String line = fileScanner.nextLine();
-         String[] lineSplit = line.split("@");
-         if( lineSplit.length != 3 ) throw new KeywordFileFormatException("Expected three @s on line " + lineCounter + " in " + MTG_KEYWORD_SEARCH_FILE_LOC.substring(2, MTG_KEYWORD_SEARCH_FILE_LOC.length() ) +
-                                                                           ", but found " + lineSplit.length + " @ symbols for parsing");
-         if( !map.containsKey( lineSplit[0] ) ) map.put( lineSplit[0], lineSplit[1] + "#" + lineSplit[2] + "#" );
-         else {
-            //if map already has this key, get the value, and the append the additional relevant language processing tokens. Then overwrite the data using a put
-            String valueAtKey = map.get( lineSplit[0] );
-            map.put( lineSplit[0], valueAtKey + lineSplit[1] + "#" + lineSplit[2] + "#" );
+         if( !tokens[i].isEmpty() && MTGCard.toNumber( tokens[i] ) != MTGCard.VARIABLE_COST ) {
+            numbers[ masked.length() ] = tokens[i];
+            masked.append('X');
+         } else {
+            masked.append( tokens[i] );
          }
       }
       
-      return map;
+      return masked.toString();
    }
    
    /**
-      Remove filler words from user input
+      Turns a comparison keyword and its number into a comparison term. For example, the
+      keyword 'powerX+=' with the number 4 becomes 'power>=4'
       
-      @param userInput The input to remove filler words from
-      @param fillerWords The list of words that can be removed safely. These words are buffered by spaces on either side
-      @return String The userInput without any filler words
-      @see translateUserInput( String userInput )
-      @see fillerWords[] in the above method
+      @param keyword The comparison keyword, which is an attribute, an X, and the comparison
+      @param number The number given by the user
+      @return String The comparison term
+      @see MTGKeywordDictionary.compile( String fileName )
+      @see MTGQueryPlanner.parseRangeTerm( String term )
    */
-   private String removeFillerWords( String userInput, String[] fillerWords ) {
-      for( int i = 0; i < fillerWords.length; i++ )
-         userInput = userInput.replaceAll( fillerWords[i], " " );
+   private String toRangeTerm( String keyword, String number ) {
+      int x = keyword.lastIndexOf('X');
+      String attribute = keyword.substring( 0, x );
+      String comparison = keyword.substring( x + 1 );
       
-      return userInput;
+      if(      comparison.equals("+=") ) return attribute + ">=" + number;
+      else if( comparison.equals("+")  ) return attribute + ">"  + number;
+      else if( comparison.equals("-=") ) return attribute + "<=" + number;
+      else if( comparison.equals("-")  ) return attribute + "<"  + number;
+      else                               return attribute + "="  + number;
    }
    
    /**
-      Determines if a String is empty or consists of only whitespace
+      Remove filler words from user input
       
-      @param str The String to check
-      @return boolean True of the String is only whitespace or is empty, false otherwise
-      @see translateUserInput( String userInput )
-      @see Character.isWhitespace( char ch )
+      @param userInput The normalized input to remove filler words from, with single spaces between words
+      @param fillerWords The list of words that can be removed safely
+      @return String The userInput without any filler words
+      @see translateUserInput( String userInput, ArrayList<String> negated )
+      @see fillerWords[] in the above method
    */
-   private boolean isWhitespace( String str ) {
-      if( str.isEmpty() ) return true;
-      
-      char[] set = str.toCharArray();
-      
-      for( int i = 0; i < set.length; i++ ) {
-         if( !Character.isWhitespace( set[i] ) ) return false;
+   private String removeFillerWords( String userInput, String[] fillerWords ) {
+      StringBuilder result = new StringBuilder( userInput.length() );
+      int wordStart = 0;
+      for( int i = 0; i <= userInput.length(); i++ ) {
+         if( i < userInput.length() && userInput.charAt(i) != ' ' ) continue;
+         
+         boolean isFiller = false;
+         for( int j = 0; j < fillerWords.length && !isFiller; j++ )
+            isFiller = userInput.regionMatches( wordStart, fillerWords[j], 0, fillerWords[j].length() ) && i - wordStart == fillerWords[j].length();
+         
+         if( !isFiller && i > wordStart ) {
+            if( result.length() > 0 ) result.append(' ');
+            result.append( userInput, wordStart, i );
+         }
+         wordStart = i + 1;
       }
       
-      return true;
+      return result.toString();
    }
    
    /**
-      Prints the list of cards generated after searching
+      Prints the list of cards generated after searching, or the suggested names if no cards
+      were found. The time taken is recorded as the render phase of MTGMetrics
+      
+      @see findList( String userInput )
    */
    public void printList() {
+      long startTime = System.nanoTime();
+      SOPln("\nCards Found: " + resultList.size() );
+      for( MTGCard card : resultList )
+         SOPln( "#" + card.getLineNumber() + ": " + card.getName() );
+      
+      if( !suggestionList.isEmpty() ) {
+         SOPln("Did you mean:");
+         for( MTGCard card : suggestionList )
+            SOPln( "#" + card.getLineNumber() + ": " + card.getName() );
+      }
       
+      MTGMetrics.get().record( MTGMetrics.RENDER, startTime );
    }
    
    /**
       Print ArrayList<String>
       
       @param ArrayList<String> The list to be printed
-      @see translateUserInput( String userInput )
+      @see translateUserInput( String userInput, ArrayList<String> negated )
    */
    private void printList( ArrayList<String> list ) {
       for( int i = 0; i < list.size(); i++ ) {
@@ -326,8 +1080,8 @@ public class MTGQuery {
    */
    public void printAllCards() {
       int number = 1;
-      for( MTGCard card : cardList )
-         SOPln( "#" + number++ + ": " + card.getName() );
+      for( int i = 0; i < totalCards; i++ )
+         SOPln( "#" + number++ + ": " + getCard(i).getName() );
          
    }
    
@@ -337,24 +1091,8 @@ public class MTGQuery {
       @see MTGCard.printProperties()
    */
    public void printAllCardsWithProperties() {
-      for( MTGCard card : cardList )
-         card.printProperties();
-   }
-   
-   /**
-      Exception class related to errors with the keyword text file
-   */
-   private class KeywordFileFormatException extends Exception {
-      
-      /**
-         Throw new exception
-         
-         @param errorMessage The message to print
-      */
-      public KeywordFileFormatException( String errorMessage ) {
-         super( errorMessage );
-      }
-      
+      for( int i = 0; i < totalCards; i++ )
+         getCard(i).printProperties();
    }
    
    /**
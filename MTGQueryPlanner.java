@@ -0,0 +1,752 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+   MTGQueryPlanner.java
+   
+   Turns a translated query into a tree of predicates, and evaluates it cheapest first.
+   
+   The translated query is a list of keyword properties, comparison terms such as
+   'power>=4', and leftover words, for both the include and the exclude part of the
+   query. Each becomes a predicate of the plan:
+   
+   1) Property terms, which are answered by the bitmaps of the property index
+   2) Token terms, for leftover words naming a card type, subtype, rarity, set, or artist,
+      which are answered by the posting lists of the token index
+   3) Range terms, which are answered by the numeric columns and their sorted indexes
+   4) Color terms, for leftover color words such as 'exactly red green', which are
+      answered by the color column of the numeric columns
+   5) Not terms, wrapping any of the above for the exclude part of the query
+   
+   Every predicate has an estimate of how many cards it matches, taken from statistics
+   gathered when the cards are loaded. The plan starts from the most selective predicate,
+   narrows the candidates with the others in order of increasing estimate, and stops as
+   soon as no candidates are left. A rare property combined with a broad term such as
+   'creature' is thus answered by checking the broad term only against the few cards
+   that have the rare property
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+   @see MTGPropertyIndex.java
+   @see MTGTokenIndex.java
+   @see MTGSortedIndex.java
+*/
+public class MTGQueryPlanner {
+   
+   private final MTGQuery query;
+   private final MTGPropertyIndex propertyIndex;
+   private final MTGTokenIndex tokenIndex;
+   private final int totalCards;
+   
+   //Number of cards of each color mask, counted the first time a color term is planned
+   private volatile int[] colorCounts;
+   
+   //Fields that leftover words are matched against. The words of the name are left out, so
+   //that common words such as 'LIFE' do not match only the cards that happen to have them in their names
+   private static final int[] SEARCH_FIELDS = { MTGTokenIndex.CARD_TYPE, MTGTokenIndex.SUBTYPE, MTGTokenIndex.RARITY,
+                                                MTGTokenIndex.SET_NAME, MTGTokenIndex.ARTIST };
+   
+   /**
+      Create a planner for the cards of a query
+      
+      @param query The query holding the cards, numeric columns, and sorted indexes
+      @param propertyIndex The index of the keyword properties of the cards
+      @param tokenIndex The index of the base property tokens of the cards
+   */
+   public MTGQueryPlanner( MTGQuery query, MTGPropertyIndex propertyIndex, MTGTokenIndex tokenIndex ) {
+      this.query = query;
+      this.propertyIndex = propertyIndex;
+      this.tokenIndex = tokenIndex;
+      this.totalCards = query.totalCards();
+   }
+   
+   /**
+      Builds the plan for a translated query
+      
+      @param includes The keyword properties and comparison terms the cards must have
+      @param leftOvers The leftover words of the include part of the query
+      @param excludes The keyword properties and comparison terms the cards must not have
+      @param excludedLeftOvers The leftover words of the exclude part of the query, or null
+      @return And The root of the plan, with its predicates in evaluation order
+      @see MTGQuery.translateUserInput( String userInput )
+   */
+   public And plan( List<String> includes, String leftOvers, List<String> excludes, String excludedLeftOvers ) {
+      ArrayList<Predicate> predicates = new ArrayList<Predicate>();
+      ArrayList<String> leftOverTerms = new ArrayList<String>();
+      
+      leftOvers = toYearTerms( toColorTerms( leftOvers, leftOverTerms ), leftOverTerms );
+      for( String term : includes )
+         predicates.add( toPredicate( term ) );
+      for( String term : leftOverTerms )
+         predicates.add( toPredicate( term ) );
+      for( String token : toTokens( leftOvers ) )
+         predicates.add( new TokenTerm( token ) );
+      
+      leftOverTerms.clear();
+      excludedLeftOvers = toYearTerms( toColorTerms( excludedLeftOvers, leftOverTerms ), leftOverTerms );
+      for( String term : excludes )
+         predicates.add( new Not( toPredicate( term ) ) );
+      for( String term : leftOverTerms )
+         predicates.add( new Not( toPredicate( term ) ) );
+      for( String token : toTokens( excludedLeftOvers ) )
+         predicates.add( new Not( new TokenTerm( token ) ) );
+      
+      return new And( predicates );
+   }
+   
+   /**
+      Finds the cards matching a plan
+      
+      @param plan The plan to evaluate
+      @return BitSet The ordinals of the cards that match every predicate of the plan
+      @see plan( List<String> includes, String leftOvers, List<String> excludes, String excludedLeftOvers )
+   */
+   public BitSet execute( And plan ) {
+      return plan.evaluate();
+   }
+   
+   /**
+      Turns a translated keyword into a predicate, either a color term such as
+      'colors<=WU', a range term for comparisons such as 'power>=4', or a property term
+      
+      @param term The translated keyword
+      @return Predicate The predicate for the keyword
+      @see MTGColors.parseTerm( String term )
+      @see parseRangeTerm( String term )
+   */
+   private Predicate toPredicate( String term ) {
+      int[] color = MTGColors.parseTerm( term );
+      if( color != null ) return new ColorTerm( term, color[0], color[1] );
+      
+      int[] range = parseRangeTerm( term );
+      if( range != null ) return new RangeTerm( term, range[0], range[1], range[2] );
+      
+      return new PropertyTerm( term );
+   }
+   
+   /**
+      Finds the leftover words that name a card type, subtype, rarity, set, or artist. Plural
+      words are made singular if only the singular is known, such as 'CREATURES'. Words that
+      are not known, such as 'WITH', are dropped. A word is known if any card of the
+      vocabulary of the query has it, which may be more cards than the query holds
+      
+      @param leftOvers The leftover words of the query, or null
+      @return ArrayList<String> The known tokens, without duplicates
+      @see MTGQuery.isKnownToken( String token, int[] fields )
+   */
+   private ArrayList<String> toTokens( String leftOvers ) {
+      ArrayList<String> tokens = new ArrayList<String>();
+      if( leftOvers == null ) return tokens;
+      
+      for( String word : leftOvers.split(" ") ) {
+         String token = word;
+         if( !query.isKnownToken( token, SEARCH_FIELDS ) && token.length() > 1 && token.endsWith("S") )
+            token = token.substring( 0, token.length() - 1 );
+         
+         if( query.isKnownToken( token, SEARCH_FIELDS ) && !tokens.contains( token ) ) tokens.add( token );
+      }
+      
+      return tokens;
+   }
+   
+   /**
+      Takes the color words out of the leftover words, and turns each run of them into a
+      color term. A run is color words, which may be joined by 'AND' or 'OR', and the word
+      before it chooses the condition:
+      
+      'EXACTLY', 'ONLY', or 'MONO'    exactly these colors
+      'IDENTITY', 'WITHIN', 'AT MOST' no colors other than these
+      'ANY', 'ANY OF', or an 'OR'     any of these colors
+      anything else                   every one of these colors
+      
+      @param leftOvers The leftover words of the query, or null
+      @param terms Filled with the color term of each run, such as 'colors<=WUB'
+      @return String The leftover words that are not part of a run, or null if there were none
+      @see MTGColors.java
+   */
+   private static String toColorTerms( String leftOvers, List<String> terms ) {
+      if( leftOvers == null ) return null;
+      
+      String[] words = leftOvers.split(" ");
+      boolean[] isUsed = new boolean[ words.length ];
+      for( int i = 0; i < words.length; i++ ) {
+         if( MTGColors.colorOfWord( words[i] ) == 0 ) continue;
+         
+         int mask = 0;
+         int condition = MTGColors.ALL;
+         int end = i;
+         while( end < words.length ) {
+            boolean isJoin = ( words[ end ].equals("AND") || words[ end ].equals("OR") ) && end > i &&
+                             end + 1 < words.length && MTGColors.colorOfWord( words[ end + 1 ] ) != 0;
+            if( isJoin && words[ end ].equals("OR") ) condition = MTGColors.ANY;
+            else if( !isJoin && MTGColors.colorOfWord( words[ end ] ) == 0 ) break;
+            
+            mask |= MTGColors.colorOfWord( words[ end ] );
+            isUsed[ end++ ] = true;
+         }
+         
+         String before = i > 0 ? words[ i - 1 ] : "", twoBefore = i > 1 ? words[ i - 2 ] : "";
+         int beforeWords = 1;
+         if(      before.equals("EXACTLY") || before.equals("ONLY") || before.equals("MONO") ) condition = MTGColors.EXACT;
+         else if( before.equals("IDENTITY") || before.equals("WITHIN") )                       condition = MTGColors.AT_MOST;
+         else if( before.equals("ANY") )                                                       condition = MTGColors.ANY;
+         else if( before.equals("MOST") && twoBefore.equals("AT") ) {
+            condition = MTGColors.AT_MOST;
+            beforeWords = 2;
+         } else if( before.equals("OF") && twoBefore.equals("ANY") ) {
+            condition = MTGColors.ANY;
+            beforeWords = 2;
+         } else {
+            beforeWords = 0;
+         }
+         
+         for( int j = i - beforeWords; j < i; j++ )
+            isUsed[j] = true;
+         terms.add( MTGColors.toTerm( condition, mask ) );
+         i = end - 1;
+      }
+      
+      StringBuilder rest = new StringBuilder();
+      for( int i = 0; i < words.length; i++ ) {
+         if( isUsed[i] ) continue;
+         
+         if( rest.length() > 0 ) rest.append(' ');
+         rest.append( words[i] );
+      }
+      
+      return rest.length() > 0 ? rest.toString() : null;
+   }
+   
+   /**
+      Takes the years out of the leftover words, and turns each of them into a year term, so
+      that 'CREATURE 2021' finds the creatures printed in 2021. A year is any word of four digits
+      
+      @param leftOvers The leftover words of the query, or null
+      @param terms Filled with the year term of each year, such as 'year=2021'
+      @return String The leftover words that are not years, or null if there were none
+      @see MTGNumericColumns.YEAR
+   */
+   private static String toYearTerms( String leftOvers, List<String> terms ) {
+      if( leftOvers == null ) return null;
+      
+      StringBuilder rest = new StringBuilder();
+      for( String word : leftOvers.split(" ") ) {
+         if( isYear( word ) ) {
+            String term = MTGNumericColumns.nameOf( MTGNumericColumns.YEAR ) + "=" + word;
+            if( !terms.contains( term ) ) terms.add( term );
+            continue;
+         }
+         
+         if( rest.length() > 0 ) rest.append(' ');
+         rest.append( word );
+      }
+      
+      return rest.length() > 0 ? rest.toString() : null;
+   }
+   
+   /**
+      Determines whether a leftover word is a year
+      
+      @param word The word to check
+      @return boolean True if the word is four digits, false otherwise
+   */
+   private static boolean isYear( String word ) {
+      if( word.length() != 4 ) return false;
+      
+      for( int i = 0; i < word.length(); i++ )
+         if( !Character.isDigit( word.charAt(i) ) ) return false;
+      
+      return true;
+   }
+   
+   /**
+      Get the number of cards of each color mask
+      
+      @return int[] The number of cards with each of the MTGColors.TOTAL_MASKS masks
+      @see MTGNumericColumns.countColors()
+   */
+   private int[] getColorCounts() {
+      int[] counts = colorCounts;
+      if( counts == null ) colorCounts = counts = query.getNumericColumns().countColors();
+      
+      return counts;
+   }
+   
+   /**
+      Parses a comparison term, such as 'power>=4', into the range of values it allows
+      
+      @param term The term to parse
+      @return int[] The column, min, and max of the range, or null if the term is not a comparison
+      @see MTGQuery.toRangeTerm( String keyword, String number )
+   */
+   public static int[] parseRangeTerm( String term ) {
+      int comparisonStart = -1;
+      for( int i = 0; i < term.length() && comparisonStart < 0; i++ ) {
+         char c = term.charAt(i);
+         if( c == '>' || c == '<' || c == '=' ) comparisonStart = i;
+      }
+      if( comparisonStart <= 0 || comparisonStart == term.length() - 1 ) return null;
+      
+      int column = MTGNumericColumns.columnOf( term.substring( 0, comparisonStart ) );
+      int numberStart = term.charAt( comparisonStart + 1 ) == '=' ? comparisonStart + 2 : comparisonStart + 1;
+      int number = MTGCard.toNumber( term.substring( numberStart ) );
+      if( column < 0 || number == MTGCard.VARIABLE_COST ) return null;
+      
+      String comparison = term.substring( comparisonStart, numberStart );
+      if(      comparison.equals(">=") ) return new int[]{ column, number, Integer.MAX_VALUE };
+      else if( comparison.equals(">")  ) return new int[]{ column, number + 1, Integer.MAX_VALUE };
+      else if( comparison.equals("<=") ) return new int[]{ column, 0, number };
+      else if( comparison.equals("<")  ) return new int[]{ column, 0, number - 1 };
+      else                               return new int[]{ column, number, number };
+   }
+   
+   /**
+      A condition on cards, which can either be tested card by card, or answered for every
+      card at once
+   */
+   public abstract class Predicate {
+      
+      /**
+         Returns the estimated number of cards that match this predicate
+         
+         @return int The estimated number of matching cards
+      */
+      public abstract int estimate();
+      
+      /**
+         Determines whether a single card matches this predicate
+         
+         @param ordinal The position of the card within the card file
+         @return boolean True if the card matches, false otherwise
+      */
+      public abstract boolean test( int ordinal );
+      
+      /**
+         Finds every card that matches this predicate
+         
+         @return BitSet The ordinals of the matching cards, which may be owned by an index
+                        and should not be modified
+      */
+      public abstract BitSet matches();
+      
+      /**
+         Returns the number of candidates below which testing each candidate is cheaper
+         than finding every match
+         
+         @return int The largest number of candidates to test one by one
+      */
+      public abstract int probeLimit();
+      
+      /**
+         Determines whether finding every match of this predicate needs a scan of every card,
+         in which case it should not be the first predicate evaluated
+         
+         @return boolean True if matches() scans every card, false otherwise
+      */
+      public boolean isScan() {
+         return false;
+      }
+      
+      /**
+         Get the canonical form of this predicate, which is the same for every wording of the
+         same condition
+         
+         @return String The canonical form of this predicate
+      */
+      public String getKey() {
+         return toString();
+      }
+      
+      /**
+         Removes the candidates that do not match this predicate, either by testing each
+         candidate, or by intersecting with every match, whichever is cheaper. The cards
+         tested, or the index hit, are counted in MTGMetrics
+         
+         @param candidates The ordinals of the candidate cards, which are narrowed in place
+      */
+      public void filter( BitSet candidates ) {
+         int totalCandidates = candidates.cardinality();
+         if( totalCandidates <= probeLimit() ) {
+            MTGMetrics.get().addCardsScanned( totalCandidates );
+            for( int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit( i + 1 ) )
+               if( !test(i) ) candidates.clear(i);
+         } else {
+            candidates.and( countedMatches() );
+         }
+      }
+      
+      /**
+         Finds every match, counting the cards scanned if this predicate scans every card, or
+         the index hit otherwise
+         
+         @return BitSet The ordinals of the matching cards
+         @see matches()
+      */
+      public BitSet countedMatches() {
+         if( isScan() ) MTGMetrics.get().addCardsScanned( totalCards );
+         else           MTGMetrics.get().addIndexHit();
+         
+         return matches();
+      }
+   }
+   
+   /**
+      A keyword property, such as 'flying', answered by the property index
+   */
+   public class PropertyTerm extends Predicate {
+      
+      private final String property;
+      
+      /**
+         Create a property term
+         
+         @param property The keyword property
+      */
+      public PropertyTerm( String property ) {
+         this.property = property;
+      }
+      
+      public int estimate() {
+         return propertyIndex.getCards( property ).cardinality();
+      }
+      
+      public boolean test( int ordinal ) {
+         return propertyIndex.getCards( property ).get( ordinal );
+      }
+      
+      public BitSet matches() {
+         return propertyIndex.getCards( property );
+      }
+      
+      public int probeLimit() {
+         return ( totalCards + 63 ) >>> 6;
+      }
+      
+      public String toString() {
+         return property;
+      }
+   }
+   
+   /**
+      A word that must be one of the card type, subtype, rarity, set, or artist tokens of a
+      card, answered by the posting lists of those fields in the token index
+   */
+   public class TokenTerm extends Predicate {
+      
+      private final String token;
+      private final int[] cards;
+      
+      /**
+         Create a token term, merging the posting lists of the fields searched
+         
+         @param token The uppercase token
+      */
+      public TokenTerm( String token ) {
+         this.token = token;
+         cards = tokenIndex.getPostings( token, SEARCH_FIELDS );
+      }
+      
+      public int estimate() {
+         return cards.length;
+      }
+      
+      public boolean test( int ordinal ) {
+         return Arrays.binarySearch( cards, ordinal ) >= 0;
+      }
+      
+      public BitSet matches() {
+         return MTGTokenIndex.toBitSet( cards );
+      }
+      
+      public int probeLimit() {
+         //building the matches visits every card of the posting list
+         return cards.length;
+      }
+      
+      public String toString() {
+         return "'" + token + "'";
+      }
+   }
+   
+   /**
+      A comparison on a numeric column, such as 'power>=4'
+   */
+   public class RangeTerm extends Predicate {
+      
+      private final String term;
+      private final int column, min, max;
+      
+      /**
+         Create a range term
+         
+         @param term The comparison term, such as 'power>=4'
+         @param column The numeric column, such as MTGNumericColumns.POWER
+         @param min The smallest value that matches
+         @param max The largest value that matches
+      */
+      public RangeTerm( String term, int column, int min, int max ) {
+         this.term = term;
+         this.column = column;
+         this.min = min;
+         this.max = max;
+      }
+      
+      public int estimate() {
+         MTGSortedIndex index = query.getSortedIndex( column );
+         if( index != null ) return index.count( min, max );
+         
+         return query.getNumericColumns().count( column, min, max );
+      }
+      
+      public boolean test( int ordinal ) {
+         int value = query.getNumericColumns().get( column, ordinal );
+         return value != MTGCard.VARIABLE_COST && value >= min && value <= max;
+      }
+      
+      public BitSet matches() {
+         MTGSortedIndex index = query.getSortedIndex( column );
+         if( index != null ) return index.range( min, max );
+         
+         return query.getNumericColumns().range( column, min, max );
+      }
+      
+      public int probeLimit() {
+         //building the matches visits each match in the sorted index, or every card otherwise
+         return query.getSortedIndex( column ) != null ? estimate() : totalCards;
+      }
+      
+      public String getKey() {
+         //'power>3' and 'power>=4' are the same range
+         return "column" + column + "[" + min + "," + max + "]";
+      }
+      
+      public String toString() {
+         return term;
+      }
+   }
+   
+   /**
+      A condition on the colors of a card, such as 'colors<=WUB' for the cards a commander
+      of those colors allows, answered by the color column of the numeric columns
+   */
+   public class ColorTerm extends Predicate {
+      
+      private final String term;
+      private final int condition, mask;
+      private final long table;
+      
+      /**
+         Create a color term
+         
+         @param term The color term, such as 'colors<=WUB'
+         @param condition The condition, such as MTGColors.AT_MOST
+         @param mask The colors of the condition
+      */
+      public ColorTerm( String term, int condition, int mask ) {
+         this.term = term;
+         this.condition = condition;
+         this.mask = mask;
+         this.table = MTGColors.tableOf( condition, mask );
+      }
+      
+      public int estimate() {
+         //there are only 64 masks, so the count of every mask that matches is exact
+         int[] counts = getColorCounts();
+         int total = 0;
+         for( int colors = 0; colors < counts.length; colors++ )
+            if( ( ( table >>> colors ) & 1L ) != 0 ) total += counts[ colors ];
+         
+         return total;
+      }
+      
+      public boolean test( int ordinal ) {
+         return MTGColors.matches( query.getNumericColumns().get( MTGNumericColumns.COLORS, ordinal ), condition, mask );
+      }
+      
+      public BitSet matches() {
+         return query.getNumericColumns().colorMatches( table );
+      }
+      
+      public int probeLimit() {
+         //a pass of the column costs a small part of a test per card
+         return totalCards >>> 3;
+      }
+      
+      public boolean isScan() {
+         return true;
+      }
+      
+      public String toString() {
+         return term;
+      }
+   }
+   
+   /**
+      The negation of a predicate, for the exclude part of a query
+   */
+   public class Not extends Predicate {
+      
+      private final Predicate predicate;
+      
+      /**
+         Create the negation of a predicate
+         
+         @param predicate The predicate the cards must not match
+      */
+      public Not( Predicate predicate ) {
+         this.predicate = predicate;
+      }
+      
+      public int estimate() {
+         return totalCards - predicate.estimate();
+      }
+      
+      public boolean test( int ordinal ) {
+         return !predicate.test( ordinal );
+      }
+      
+      public BitSet matches() {
+         BitSet result = new BitSet( totalCards );
+         result.set( 0, totalCards );
+         result.andNot( predicate.matches() );
+         
+         return result;
+      }
+      
+      public int probeLimit() {
+         return predicate.probeLimit();
+      }
+      
+      public boolean isScan() {
+         return true;
+      }
+      
+      public void filter( BitSet candidates ) {
+         if( candidates.cardinality() <= probeLimit() ) super.filter( candidates );
+         else                                           candidates.andNot( predicate.countedMatches() );
+      }
+      
+      public String getKey() {
+         return "NOT " + predicate.getKey();
+      }
+      
+      public String toString() {
+         return "NOT " + predicate;
+      }
+   }
+   
+   /**
+      The root of a plan, which every card must match all predicates of. The predicates are
+      ordered by increasing estimate when the plan is created
+   */
+   public class And {
+      
+      private final ArrayList<Predicate> predicates;
+      private final int[] estimates;
+      
+      /**
+         Create the root of a plan, ordering the predicates by estimate. Predicates that scan
+         every card are kept after the others, so that they only check the candidates left
+         
+         @param predicates The predicates every card must match
+      */
+      public And( ArrayList<Predicate> predicates ) {
+         this.predicates = predicates;
+         
+         HashMap<Predicate, Integer> estimateOf = new HashMap<Predicate, Integer>();
+         for( Predicate predicate : predicates )
+            estimateOf.put( predicate, predicate.estimate() );
+         
+         predicates.sort( (o1, o2) -> {
+            if( o1.isScan() != o2.isScan() ) return o1.isScan() ? 1 : -1;
+            return Integer.compare( estimateOf.get( o1 ), estimateOf.get( o2 ) );
+         });
+         
+         estimates = new int[ predicates.size() ];
+         for( int i = 0; i < estimates.length; i++ )
+            estimates[i] = estimateOf.get( predicates.get(i) );
+      }
+      
+      /**
+         Finds the cards matching every predicate, starting from the matches of the first
+         predicate, and stopping as soon as there are no candidates left
+         
+         @return BitSet The ordinals of the matching cards
+      */
+      public BitSet evaluate() {
+         BitSet candidates = new BitSet( totalCards );
+         if( predicates.isEmpty() || estimates[0] == 0 ) return candidates;
+         
+         int first = 0;
+         if( predicates.get(0).isScan() ) {
+            candidates.set( 0, totalCards );
+         } else {
+            candidates.or( predicates.get(0).countedMatches() );
+            first = 1;
+         }
+         
+         for( int i = first; i < predicates.size() && !candidates.isEmpty(); i++ )
+            predicates.get(i).filter( candidates );
+         
+         return candidates;
+      }
+      
+      /**
+         Determines whether the statistics of the indexes prove that no card matches this
+         plan: it has no predicates, or one of its predicates matches no card. The estimates
+         of the predicates are exact counts, so this never leaves out a plan that has matches
+         
+         @return boolean True if no card can match, false otherwise
+      */
+      public boolean isEmpty() {
+         for( int estimate : estimates )
+            if( estimate == 0 ) return true;
+         
+         return predicates.isEmpty();
+      }
+      
+      /**
+         Get the predicates of this plan, in evaluation order
+         
+         @return List<Predicate> The predicates
+      */
+      public List<Predicate> getPredicates() {
+         return predicates;
+      }
+      
+      /**
+         Get the canonical form of this plan: the keys of its predicates, sorted, so that
+         queries worded differently but with the same predicates have the same key
+         
+         @return String The key of this plan
+         @see MTGResultCache.java
+      */
+      public String getKey() {
+         String[] keys = new String[ predicates.size() ];
+         for( int i = 0; i < keys.length; i++ )
+            keys[i] = predicates.get(i).getKey();
+         Arrays.sort( keys );
+         
+         return String.join(" AND ", keys );
+      }
+      
+      /**
+         Returns the predicates of this plan in evaluation order, with their estimates
+         
+         @return String The plan, such as 'deathtouch (40) AND 'CREATURE' (585)'
+      */
+      public String toString() {
+         StringBuilder plan = new StringBuilder();
+         for( int i = 0; i < predicates.size(); i++ ) {
+            if( i > 0 ) plan.append(" AND ");
+            plan.append( predicates.get(i) ).append(" (").append( estimates[i] ).append(")");
+         }
+         
+         return plan.toString();
+      }
+   }
+}
@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+/**
+   MTGRanker.java
+   
+   Ranks cards by how much of a query they match, rather than requiring every part of it,
+   for long descriptive queries that no card matches in full.
+   
+   Each predicate of the include part of a plan is a term, weighted by its inverse
+   frequency: log( 1 + totalCards / cards matching ), so rare properties count for more
+   than common ones such as 'creature'. The score of a card is the sum of the weights of the
+   terms it matches. The exclude part of the plan is still required: an excluded card is
+   never ranked.
+   
+   Only the top K cards are kept, in a bounded heap, and the cards are found with WAND:
+   the terms are walked in card order, and a card is only scored if the weights of the
+   terms that could still match it add up to at least the score of the K-th best card so
+   far. The terms that cannot reach that score on their own jump straight to the next card
+   that could, so once the heap is full, most of the cards matching only common terms are
+   never scored.
+   
+   Weights are whole numbers, so that the bounds and the scores add up the same way. Cards
+   of the same score are ordered as sortByName orders them, and then by card order
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQueryPlanner.java
+   @see MTGQuery.rank( String userInput, int k )
+   @see MTGQuery.sortByName( ArrayList<MTGCard> list )
+*/
+public class MTGRanker {
+   
+   //Weights are the inverse frequencies times this, rounded
+   private static final double WEIGHT_SCALE = 1000;
+   
+   private final MTGQuery query;
+   private final int totalCards;
+   
+   /**
+      Create a ranker for the cards of a query
+      
+      @param query The query holding the cards
+   */
+   public MTGRanker( MTGQuery query ) {
+      this.query = query;
+      this.totalCards = query.totalCards();
+   }
+   
+   /**
+      Finds the K cards that best match a plan
+      
+      @param plan The plan of the query
+      @param k The most cards to return
+      @return Ranking The cards found, best first, with their scores
+   */
+   public Ranking rank( MTGQueryPlanner.And plan, int k ) {
+      ArrayList<Cursor> cursors = new ArrayList<Cursor>();
+      ArrayList<MTGQueryPlanner.Predicate> excludes = new ArrayList<MTGQueryPlanner.Predicate>();
+      for( MTGQueryPlanner.Predicate predicate : plan.getPredicates() ) {
+         if( predicate instanceof MTGQueryPlanner.Not ) {
+            excludes.add( predicate );
+            continue;
+         }
+         
+         int cards = predicate.estimate();
+         if( cards > 0 ) cursors.add( new Cursor( predicate, weightOf( cards ) ) );
+      }
+      
+      if( k <= 0 || cursors.isEmpty() ) return new Ranking( new int[0], new long[0] );
+      
+      //The worst of the best cards so far is at the head, so it is the one replaced
+      PriorityQueue<long[]> best = new PriorityQueue<long[]>( ( a, b ) -> compare( b, a ) );
+      
+      Cursor[] terms = cursors.toArray( new Cursor[0] );
+      long scored = 0;
+      while( true ) {
+         sortByCard( terms );
+         
+         //a card below the threshold cannot make the top K, but one equal to it may, if its name comes first
+         long threshold = best.size() < k ? 1 : best.peek()[0];
+         
+         //the pivot is the first card that the terms up to it could lift to the threshold
+         long bound = 0;
+         int pivot = -1;
+         for( int i = 0; i < terms.length && terms[i].card >= 0; i++ ) {
+            bound += terms[i].weight;
+            if( bound >= threshold ) {
+               pivot = i;
+               break;
+            }
+         }
+         if( pivot < 0 ) break;
+         
+         int pivotCard = terms[ pivot ].card;
+         if( terms[0].card != pivotCard ) {
+            //the terms before the pivot cannot match any card before the pivot card that could make the top K
+            for( int i = 0; i < pivot; i++ )
+               terms[i].advance( pivotCard );
+            continue;
+         }
+         
+         long score = 0;
+         for( Cursor term : terms ) {
+            if( term.card == pivotCard ) {
+               score += term.weight;
+               term.advance( pivotCard + 1 );
+            }
+         }
+         scored++;
+         
+         if( score < threshold || isExcluded( pivotCard, excludes ) ) continue;
+         
+         long[] entry = { score, pivotCard };
+         if( best.size() < k ) {
+            best.add( entry );
+         } else if( compare( entry, best.peek() ) < 0 ) {
+            best.poll();
+            best.add( entry );
+         }
+      }
+      MTGMetrics.get().addCardsScanned( scored );
+      
+      int total = best.size();
+      int[] ordinals = new int[ total ];
+      long[] scores = new long[ total ];
+      for( int i = total - 1; i >= 0; i-- ) {
+         long[] entry = best.poll();
+         scores[i] = entry[0];
+         ordinals[i] = (int) entry[1];
+      }
+      
+      return new Ranking( ordinals, scores );
+   }
+   
+   /**
+      Get the weight of a term from the number of cards it matches
+      
+      @param cards The number of cards the term matches
+      @return long The weight of the term
+   */
+   private long weightOf( int cards ) {
+      return Math.max( 1, Math.round( Math.log( 1 + totalCards / (double) cards ) * WEIGHT_SCALE ) );
+   }
+   
+   /**
+      Compares two ranked cards, the better card first: the higher score, then the card that
+      sortByName puts first, then the earlier card
+      
+      @param a One card, as { score, ordinal }
+      @param b The other card, as { score, ordinal }
+      @return int Less than 0 if a is better, more than 0 if b is better, or 0 if they are the same card
+      @see MTGQuery.sortByName( ArrayList<MTGCard> list )
+   */
+   private int compare( long[] a, long[] b ) {
+      if( a[0] != b[0] ) return Long.compare( b[0], a[0] );
+      if( a[1] == b[1] ) return 0;
+      
+      //cards that could not be read have no name, and come last
+      String aName = query.getCard( (int) a[1] ).getName(), bName = query.getCard( (int) b[1] ).getName();
+      int byName = aName == null || bName == null ? Boolean.compare( aName == null, bName == null ) : aName.compareTo( bName );
+      return byName != 0 ? byName : Long.compare( a[1], b[1] );
+   }
+   
+   /**
+      Determines whether a card matches any of the exclude part of the plan
+      
+      @param ordinal The position of the card within the card file
+      @param excludes The Not predicates of the plan
+      @return boolean True if the card is excluded, false otherwise
+   */
+   private static boolean isExcluded( int ordinal, ArrayList<MTGQueryPlanner.Predicate> excludes ) {
+      for( MTGQueryPlanner.Predicate exclude : excludes )
+         if( !exclude.test( ordinal ) ) return true;
+      
+      return false;
+   }
+   
+   /**
+      Sorts the terms by the card they are on, with the terms that have run out last. There
+      are only a few terms, so an insertion sort is the quickest
+      
+      @param terms The terms
+   */
+   private static void sortByCard( Cursor[] terms ) {
+      for( int i = 1; i < terms.length; i++ ) {
+         Cursor term = terms[i];
+         int j = i - 1;
+         while( j >= 0 && isAfter( terms[j], term ) ) {
+            terms[ j + 1 ] = terms[j];
+            j--;
+         }
+         terms[ j + 1 ] = term;
+      }
+   }
+   
+   /**
+      Determines whether one term is on a later card than another, counting a term that has
+      run out as after every card
+      
+      @param a One term
+      @param b The other term
+      @return boolean True if a comes after b, false otherwise
+   */
+   private static boolean isAfter( Cursor a, Cursor b ) {
+      if( a.card < 0 ) return b.card >= 0;
+      return b.card >= 0 && a.card > b.card;
+   }
+   
+   /**
+      The place of a term within the cards it matches
+   */
+   private static class Cursor {
+      
+      private final BitSet cards;
+      private final long weight;
+      
+      //The card the term is on, or -1 once it has run out
+      private int card;
+      
+      /**
+         Create a cursor on the first card a term matches
+         
+         @param predicate The term
+         @param weight The weight of the term
+      */
+      private Cursor( MTGQueryPlanner.Predicate predicate, long weight ) {
+         this.cards = predicate.countedMatches();
+         this.weight = weight;
+         this.card = cards.nextSetBit(0);
+      }
+      
+      /**
+         Moves to the first card the term matches at or after the given card
+         
+         @param target The card to move to
+      */
+      private void advance( int target ) {
+         if( card >= 0 && card < target ) card = cards.nextSetBit( target );
+      }
+   }
+   
+   /**
+      The cards found by a ranking, best first, and their scores
+   */
+   public static class Ranking {
+      
+      private final int[] ordinals;
+      private final long[] scores;
+      
+      /**
+         Create a ranking
+         
+         @param ordinals The cards found, best first
+         @param scores The score of each card
+      */
+      private Ranking( int[] ordinals, long[] scores ) {
+         this.ordinals = ordinals;
+         this.scores = scores;
+      }
+      
+      /**
+         Get the cards found
+         
+         @return int[] The ordinals of the cards, best first
+      */
+      public int[] getOrdinals() {
+         return ordinals;
+      }
+      
+      /**
+         Get the score of each card found: the sum of the weights of the terms it matches,
+         where a weight of 1000 is a term that about 1 card in 1.7 matches
+         
+         @return long[] The scores, in the order of getOrdinals()
+      */
+      public long[] getScores() {
+         return scores;
+      }
+   }
+}
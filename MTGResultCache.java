@@ -0,0 +1,217 @@
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+   MTGResultCache.java
+   
+   Bounded cache of search results, keyed by the canonical form of a query plan.
+   
+   Queries that translate to the same properties and leftover tokens have the same plan key,
+   whatever their word order, such as 'green creatures with trample' and 'creature that is
+   green with trample'. A repeated search is then answered from the cache without evaluating
+   any predicate. Wordings that translate to different properties, such as 'trample
+   creature', where no phrase finds 'hasTrample', still have their own keys.
+   
+   Each result is stored in whichever form is smaller: the sorted ordinals of the matching
+   cards when there are few, or the words of the bitmap when there are many. The least
+   recently used results are evicted once there are more than the maximum number of results,
+   or once the results take up more than the maximum number of bytes.
+   
+   The cache is emptied whenever the cards change, such as through
+   MTGQuery.addProperty( int ordinal, String property ). Each change starts a new generation,
+   and a result found during an older generation is not stored, since it may be stale
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.search( String userInput )
+   @see MTGQueryPlanner.And.getKey()
+*/
+public class MTGResultCache {
+   
+   public static final int DEFAULT_MAX_ENTRIES = 1024;
+   public static final long DEFAULT_MAX_BYTES  = 16L << 20;
+   
+   //Rough size of an entry besides its key and its ordinals, used to bound the total bytes
+   private static final int ENTRY_OVERHEAD = 64;
+   
+   private final int maxEntries;
+   private final long maxBytes;
+   
+   //Plan key -> result, in order of least recently used first
+   private final LinkedHashMap<String, Entry> entries;
+   private long totalBytes = 0;
+   private long generation = 0;
+   
+   private long hits = 0, misses = 0, evictions = 0, invalidations = 0;
+   
+   /**
+      Create a cache with the default bounds
+   */
+   public MTGResultCache() {
+      this( DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES );
+   }
+   
+   /**
+      Create a cache
+      
+      @param maxEntries The most results kept
+      @param maxBytes The most bytes taken by the results kept
+   */
+   public MTGResultCache( int maxEntries, long maxBytes ) {
+      this.maxEntries = maxEntries;
+      this.maxBytes = maxBytes;
+      entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true );
+   }
+   
+   /**
+      Get the cached result of a plan, marking it as the most recently used
+      
+      @param key The key of the plan
+      @return BitSet A new bitmap of the ordinals of the matching cards, or null if the plan
+                     has no cached result
+   */
+   public synchronized BitSet get( String key ) {
+      Entry entry = entries.get( key );
+      if( entry == null ) {
+         misses++;
+         return null;
+      }
+      
+      hits++;
+      return entry.toBitSet();
+   }
+   
+   /**
+      Stores the result of a plan, evicting the least recently used results if the cache is
+      over its bounds. The result is not stored if the cards have changed since the given
+      generation, or if it alone is larger than the cache
+      
+      @param key The key of the plan
+      @param matches The ordinals of the matching cards, which are copied
+      @param generation The generation when the search began
+      @see generation()
+   */
+   public synchronized void put( String key, BitSet matches, long generation ) {
+      if( generation != this.generation ) return;
+      
+      Entry entry = new Entry( matches );
+      long bytes = entry.bytes() + 2L * key.length();
+      if( bytes > maxBytes ) return;
+      
+      Entry previous = entries.put( key, entry );
+      if( previous != null ) totalBytes -= previous.bytes() + 2L * key.length();
+      totalBytes += bytes;
+      
+      Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+      while( ( entries.size() > maxEntries || totalBytes > maxBytes ) && iterator.hasNext() ) {
+         Map.Entry<String, Entry> eldest = iterator.next();
+         totalBytes -= eldest.getValue().bytes() + 2L * eldest.getKey().length();
+         iterator.remove();
+         evictions++;
+      }
+   }
+   
+   /**
+      Empties the cache and starts a new generation, since the cards have changed
+   */
+   public synchronized void invalidate() {
+      entries.clear();
+      totalBytes = 0;
+      generation++;
+      invalidations++;
+   }
+   
+   /**
+      Get the current generation, which a search reads before it begins, and gives back
+      when it stores its result
+      
+      @return long The current generation
+      @see put( String key, BitSet matches, long generation )
+   */
+   public synchronized long generation() {
+      return generation;
+   }
+   
+   /**
+      Get the fraction of look-ups that were answered from the cache
+      
+      @return double The hit ratio, from 0 to 1, or 0 if there have been no look-ups
+   */
+   public synchronized double getHitRatio() {
+      long lookUps = hits + misses;
+      return lookUps == 0 ? 0 : hits / (double) lookUps;
+   }
+   
+   /**
+      Get the counters of the cache
+      
+      @return long[] The hits, misses, evictions, invalidations, results kept, and bytes taken
+   */
+   public synchronized long[] getStats() {
+      return new long[]{ hits, misses, evictions, invalidations, entries.size(), totalBytes };
+   }
+   
+   /**
+      Returns the counters of the cache
+      
+      @return String The counters, such as 'hits 40, misses 10 (80.0% hit ratio), ...'
+   */
+   public synchronized String toString() {
+      return "hits " + hits + ", misses " + misses + " (" + String.format( "%.1f", getHitRatio() * 100 ) + "% hit ratio), " +
+             evictions + " evictions, " + invalidations + " invalidations, " + entries.size() + " results, " + totalBytes + " bytes";
+   }
+   
+   /**
+      A cached result, as either the sorted ordinals of the matching cards, or the words of
+      their bitmap, whichever is smaller
+   */
+   private static class Entry {
+      
+      private final int[] ordinals;
+      private final long[] words;
+      
+      /**
+         Create a result
+         
+         @param matches The ordinals of the matching cards
+      */
+      private Entry( BitSet matches ) {
+         int cardinality = matches.cardinality();
+         int totalWords = ( matches.length() + 63 ) >>> 6;
+         
+         if( (long) cardinality * Integer.BYTES <= (long) totalWords * Long.BYTES ) {
+            ordinals = matches.stream().toArray();
+            words = null;
+         } else {
+            ordinals = null;
+            words = matches.toLongArray();
+         }
+      }
+      
+      /**
+         Get the result as a new bitmap
+         
+         @return BitSet The ordinals of the matching cards
+      */
+      private BitSet toBitSet() {
+         if( words != null ) return BitSet.valueOf( words );
+         
+         BitSet matches = new BitSet( ordinals.length == 0 ? 0 : ordinals[ ordinals.length - 1 ] + 1 );
+         for( int i = 0; i < ordinals.length; i++ )
+            matches.set( ordinals[i] );
+         
+         return matches;
+      }
+      
+      /**
+         Get the approximate number of bytes taken by this result
+         
+         @return long The bytes taken
+      */
+      private long bytes() {
+         return ENTRY_OVERHEAD + ( words != null ? (long) words.length * Long.BYTES : (long) ordinals.length * Integer.BYTES );
+      }
+   }
+}
@@ -3,6 +3,7 @@ import java.util.Scanner;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
    MTGSearch.java
@@ -19,50 +20,156 @@ public class MTGSearch {
    private static final String TEXT_FILE = "./mtgCards.txt";
    private static final String WORD_FILE = "./mtgWordList.txt";
    
+   //Most terms printed by 'complete', and cards by 'rank'
+   private static final int TOTAL_COMPLETIONS = 10;
+   private static final int TOTAL_RANKED = 10;
+   
    private static Scanner scanner = new Scanner( System.in );
    
    /**
       Handle which program to run
       
-      @param args Not used
+      @param args Empty to search once from the console, 'server' followed by an optional
+                  port to answer searches over HTTP, 'batch' followed by a query file to
+                  run a file of searches, or 'collections' followed by card files to search
+                  all of them at once
       @see searchFromUser()
+      @see serve( int port )
+      @see MTGBatch.run( String[] args, String cardFileName )
+      @see searchCollections( String[] fileNames )
    */
    public static void main( String[] args ) {
-      searchFromUser();
+      if( args.length > 0 && args[0].equalsIgnoreCase("server") )
+         serve( args.length > 1 ? Integer.parseInt( args[1] ) : MTGSearchServer.DEFAULT_PORT );
+      else if( args.length > 0 && args[0].equalsIgnoreCase("batch") )
+         MTGBatch.run( Arrays.copyOfRange( args, 1, args.length ), TEXT_FILE );
+      else if( args.length > 0 && args[0].equalsIgnoreCase("collections") )
+         searchCollections( args.length > 1 ? Arrays.copyOfRange( args, 1, args.length ) : new String[]{ TEXT_FILE } );
+      else
+         searchFromUser();
    }
    
    /**
-      Produces a query of mtg cards from the mtg list
+      Loads the cards once, and then answers searches over HTTP until the program is stopped
+      
+      @param port The port to listen on
+      @see MTGSearchServer.java
+   */
+   private static void serve( int port ) {
+      try {
+         MTGSearchServer server = new MTGSearchServer( new MTGQuery( TEXT_FILE ), port );
+         Runtime.getRuntime().addShutdownHook( new Thread( () -> server.stop(1) ) );
+         server.start();
+      } catch( IOException e ) {
+         e.printStackTrace();
+      }
+   }
+   
+   /**
+      Loads each card file as a collection, and then searches all of them for each line
+      entered, until the input ends or 'quit' is entered. Each card found is printed with
+      the collection it was found in. Entering 'stats' prints the time taken by each phase,
+      and the number of collections searched and skipped
+      
+      @param fileNames The names of the card files
+      @see MTGCollectionRegistry.java
+   */
+   private static void searchCollections( String[] fileNames ) {
+      MTGCollectionRegistry registry;
+      try {
+         registry = new MTGCollectionRegistry( fileNames );
+      } catch( IOException e ) {
+         e.printStackTrace();
+         return;
+      }
+      SOPln("Loaded " + registry.totalCards() + " cards in " + registry.totalCollections() + " collections: " +
+            String.join( ", ", registry.getCollectionNames() ) );
+      
+      do {
+         SOPln("\nWhat properties are you searching for across the collections?\nEnter 'stats' for the time taken by each" +
+               " phase of the searches so far, or 'quit' to stop.");
+         if( !scanner.hasNextLine() ) break;
+         String line = scanner.nextLine();
+         
+         if( line.equals("quit") || line.equals("Quit") ) {
+            break;
+         } else if( line.equals("stats") || line.equals("Stats") ) {
+            SOPln( MTGMetrics.get().dump() );
+         } else {
+            ArrayList<MTGCollectionRegistry.Result> results = registry.search( line );
+            SOPln("\nCards Found: " + results.size() );
+            for( MTGCollectionRegistry.Result result : results )
+               SOPln( "#" + result.getCard().getLineNumber() + ": " + result.getCard().getName() + " (" + result.getCollection() + ")" );
+         }
+      } while( true );
+   }
+   
+   /**
+      Produces queries of mtg cards from the mtg list, one for each line entered, until the
+      input ends or 'quit' is entered. The cards are loaded for the first query, and kept for
+      the rest. Entering 'stats' prints the time taken by each phase of the queries so far, and
+      'complete' followed by the start of a word prints the most common card names, subtypes,
+      artists, and keyword phrases that begin with it. Entering 'rank' followed by a search
+      prints the cards that match the most of it, for searches no card matches in full, and
+      'refresh' reads the cards appended to the card file since it was last read
       
       @see MTGQuery.java
       @see printHelp()
       @see MTGQuery.findList( String userInput )
       @see MTGQuery.printList()
+      @see MTGMetrics.dump()
+      @see MTGQuery.complete( String prefix, int limit )
+      @see MTGQuery.rank( String userInput, int k )
+      @see MTGQuery.refresh()
    */
    private static void searchFromUser() {
-      boolean isHelping = false;
       MTGQuery query = null;
-      String line = "";
       do {
-         SOPln("\nWhat properties are you searching for?\nEnter 'help' for a list of suggestions.");
-         line = scanner.nextLine();
+         SOPln("\nWhat properties are you searching for?\nEnter 'help' for a list of suggestions, 'complete' followed by" +
+               " the start of a word to see how it can be finished, 'rank' followed by a search for the cards that" +
+               " match the most of it, 'refresh' to read cards added to the card file, 'stats' for the time taken by each" +
+               " phase of the searches so far, or 'quit' to stop.");
+         if( !scanner.hasNextLine() ) break;
+         String line = scanner.nextLine();
          
          if( line.equals("help") || line.equals("Help") ) {
             printHelp();
-            isHelping = true;
          } else if( line.equals("all") || line.equals("All") ) {
             printAllProperties();
-            isHelping = true;
+         } else if( line.equals("stats") || line.equals("Stats") ) {
+            SOPln( MTGMetrics.get().dump() );
+         } else if( line.equals("quit") || line.equals("Quit") ) {
+            break;
+         } else if( line.equals("refresh") || line.equals("Refresh") ) {
+            if( query == null ) query = new MTGQuery( TEXT_FILE );
+            
+            int added = query.refresh();
+            if( added < 0 ) SOPln("\nThe card file has changed, so every card was read again: " + query.totalCards() + " cards");
+            else            SOPln("\nCards added: " + added + ", " + query.totalCards() + " cards");
+         } else if( line.startsWith("complete ") || line.startsWith("Complete ") ) {
+            if( query == null ) query = new MTGQuery( TEXT_FILE );
+            
+            SOPln("");
+            for( String term : query.complete( line.substring( "complete ".length() ), TOTAL_COMPLETIONS ) )
+               SOPln( term );
+         } else if( line.startsWith("rank ") || line.startsWith("Rank ") ) {
+            if( query == null ) query = new MTGQuery( TEXT_FILE );
+            
+            MTGRanker.Ranking ranking = query.rank( line.substring( "rank ".length() ), TOTAL_RANKED );
+            SOPln("\nCards Ranked: " + ranking.getOrdinals().length );
+            for( int i = 0; i < ranking.getOrdinals().length; i++ ) {
+               MTGCard card = query.getCard( ranking.getOrdinals()[i] );
+               SOPln( "#" + card.getLineNumber() + ": " + card.getName() + " (" + ranking.getScores()[i] + ")" );
+            }
          } else {
-            query = new MTGQuery( TEXT_FILE );
-            isHelping = false;
+            if( query == null ) query = new MTGQuery( TEXT_FILE );
+            
+            query.findList( line );
+            
+            query.printList();
          }
       
-      } while( isHelping );
-      
-      query.findList( line );
-      
-      query.printList();
+      } while( true );
    }
    
    /**
@@ -75,7 +182,8 @@ public class MTGSearch {
             " that meet the criteria input.\n\nConsider the following suggestions for generating lists" +
             ", or enter 'all' to see the exact criteria inputs for exact searching:" +
             "\n\n\t1) Specify card type, such as 'creature', 'sorcery', 'instant', etc" +
-            "\n\t2) Specify color type, either being red, blue, green, white, black," + "\n\t    colorless, or no color" +
+            "\n\t2) Specify color type, either being red, blue, green, white, black," + "\n\t    colorless, or no color. Say 'exactly red green' for only those colors," +
+            "\n\t    'identity white blue' for a commander's colors, or 'red or green'" +
             "\n\t3) Specify abilities required, including keyword properties, " + "\n\t   such as 'trample', 'flying', etc" +
             "\n\t4) Specify any qualities you want excluded, by saying 'excludes'\n\t   followed by the desired" +
             " properties to be excluded" +
@@ -269,9 +377,10 @@ public class MTGSearch {
       
       @param str The String to edit
       @return String The String without nonletter characters
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonLetters( String str ) {
-      return str.replaceAll("[^a-zA-Z]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.LETTER );
    }
    
    /**
@@ -279,9 +388,10 @@ public class MTGSearch {
       
       @param str The String to edit
       @return String The String without nonnumber characters
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonNumbers( String str ) {
-      return str.replaceAll("[^0-9]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.DIGIT );
    }
    
    /**
@@ -289,9 +399,10 @@ public class MTGSearch {
       
       @param str The String to edit
       @return String The String without non-alphanumeric characters
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonAlphanumeric( String str ) {
-      return str.replaceAll("[^a-zA-Z0-9]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.LETTER | MTGNormalizer.DIGIT );
    }
    
    /**
@@ -300,9 +411,10 @@ public class MTGSearch {
       @param str The String to edit
       @return String The String without nonletters, nonnumbers, or non-whitespace characters,
                      or non-ampersands
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonAlphanumericWhitespace( String str ) {
-      return str.replaceAll("[^a-zA-Z0-9\\s]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.LETTER | MTGNormalizer.DIGIT | MTGNormalizer.WHITESPACE );
    }
    
    /**
@@ -311,9 +423,10 @@ public class MTGSearch {
       @param str The String to edit
       @return String The String without nonletters, nonnumbers, or non-whitespace characters,
                      or non-ampersands
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonAlphanumericWhitespaceAndAnd( String str ) {
-      return str.replaceAll("[^a-zA-Z0-9\\s&]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.LETTER | MTGNormalizer.DIGIT | MTGNormalizer.WHITESPACE | MTGNormalizer.AMPERSAND );
    }
    
    /**
@@ -321,9 +434,10 @@ public class MTGSearch {
       
       @param str The String to edit
       @return String The String without nonletter, non-whitespace characters
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonLettersWhitespace( String str ) {
-      return str.replaceAll("[^a-zA-Z\\s]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.LETTER | MTGNormalizer.WHITESPACE );
    }
    
    /**
@@ -331,9 +445,10 @@ public class MTGSearch {
       
       @param str The String to edit
       @return String The String without non-numeric, non-whitespace characters
+      @see MTGNormalizer.keep( String str, int classes )
    */
    public static String removeNonNumbersWhitespace( String str ) {
-      return str.replaceAll("[^0-9\\s]+", "");
+      return MTGNormalizer.keep( str, MTGNormalizer.DIGIT | MTGNormalizer.WHITESPACE );
    }
    
    /**
@@ -0,0 +1,374 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+   MTGSearchServer.java
+   
+   Long-running search server, which loads the card file and its indexes once, and then
+   answers searches over HTTP concurrently.
+   
+   Endpoints:
+   
+   GET /search?q=<query>[&limit=<n>]   The cards found for the query, as JSON
+   GET /rank?q=<query>[&k=<n>]          The K cards that match the most of the query, best
+                                        first, as JSON
+   GET /names?q=<name>[&limit=<n>]     The cards whose names are within a few edits of a
+                                        possibly misspelled name, closest first, as JSON
+   GET /complete?q=<prefix>[&limit=<n>] The most common card names, subtypes, artists, and
+                                        keyword phrases that begin with a prefix, as JSON
+   GET /health                          The total number of cards loaded, and the result cache
+                                        counters, as JSON
+   GET /metrics                         The time taken by each phase of the searches so far,
+                                        and the work done, as text
+   
+   Every request is handled on its own virtual thread when the JVM has them (Java 21 and
+   up), and on a pool of platform threads, one per core, otherwise. An MTGQuery is safe to
+   search from many threads at once, so no request pays the cost of loading the cards.
+   The timers and counters of MTGMetrics are also registered with JMX. A request whose
+   search fails is answered with a 500 and the error, as JSON, rather than dropped.
+   
+   Usage: java MTGSearch server [port]
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGSearch.java
+   @see MTGQuery.search( String userInput )
+   @see MTGJson.java
+*/
+public class MTGSearchServer {
+   
+   public static final int DEFAULT_PORT = 8080;
+   
+   //Most cards returned by /rank, names by /names, and terms by /complete, when no limit is given
+   private static final int DEFAULT_RANK_LIMIT = 10;
+   private static final int DEFAULT_NAME_LIMIT = 5;
+   private static final int DEFAULT_COMPLETION_LIMIT = 10;
+   
+   private final MTGQuery query;
+   private final HttpServer server;
+   private final ExecutorService executor;
+   
+   /**
+      Create a server for the cards of a query. The server is not started until start() is called
+      
+      @param query The query holding the loaded cards and indexes
+      @param port The port to listen on
+      @throws IOException If the port cannot be bound
+      @see start()
+   */
+   public MTGSearchServer( MTGQuery query, int port ) throws IOException {
+      this.query = query;
+      query.setPrintingPlan( false );
+      
+      //compile the keywords and create every card now, rather than on the first requests
+      query.getDictionary();
+      query.getCompletions();
+      query.loadAllCards();
+      MTGMetrics.register();
+      
+      executor = newExecutor();
+      server = HttpServer.create( new InetSocketAddress( port ), 0 );
+      server.setExecutor( executor );
+      server.createContext("/search", guard( this::handleSearch ) );
+      server.createContext("/rank", guard( this::handleRank ) );
+      server.createContext("/names", guard( this::handleNames ) );
+      server.createContext("/complete", guard( this::handleComplete ) );
+      server.createContext("/health", guard( this::handleHealth ) );
+      server.createContext("/metrics", guard( this::handleMetrics ) );
+   }
+   
+   /**
+      Wraps a handler so that an exception it throws is answered with a 500 and the error,
+      as JSON, the way MTGBatch reports a search that failed. Without this, HttpServer
+      closes the connection without sending a status
+      
+      @param handler The handler of an endpoint
+      @return HttpHandler The handler, answering with a 500 if it fails
+   */
+   private static HttpHandler guard( HttpHandler handler ) {
+      return exchange -> {
+         try {
+            handler.handle( exchange );
+         } catch( RuntimeException e ) {
+            e.printStackTrace();
+            StringBuilder json = new StringBuilder("{\"error\":");
+            MTGJson.quote( e.toString(), json );
+            send( exchange, 500, json.append('}').toString() );
+         }
+      };
+   }
+   
+   /**
+      Start answering requests
+   */
+   public void start() {
+      server.start();
+      SOPln("Serving " + query.totalCards() + " cards on port " + server.getAddress().getPort() );
+   }
+   
+   /**
+      Stop answering requests, waiting up to the given time for requests in progress
+      
+      @param delaySeconds The most time to wait for requests in progress, in seconds
+   */
+   public void stop( int delaySeconds ) {
+      server.stop( delaySeconds );
+      executor.shutdown();
+   }
+   
+   /**
+      Answers a search request with the cards found, as JSON
+      
+      @param exchange The request and its response
+      @throws IOException If the response cannot be sent
+      @see MTGJson.toJson( String query, List<MTGCard> cards, int limit, long nanos )
+   */
+   private void handleSearch( HttpExchange exchange ) throws IOException {
+      if( !exchange.getRequestMethod().equals("GET") ) {
+         send( exchange, 405, "{\"error\":\"Only GET is supported\"}");
+         return;
+      }
+      
+      String userInput = getParameter( exchange, "q" );
+      if( userInput == null || userInput.isBlank() ) {
+         send( exchange, 400, "{\"error\":\"Missing query parameter 'q'\"}");
+         return;
+      }
+      
+      int limit = -1;
+      String limitParameter = getParameter( exchange, "limit" );
+      if( limitParameter != null ) {
+         limit = MTGCard.toNumber( limitParameter );
+         if( limit == MTGCard.VARIABLE_COST ) {
+            send( exchange, 400, "{\"error\":\"The limit must be a number\"}");
+            return;
+         }
+      }
+      
+      long startTime = System.nanoTime();
+      ArrayList<MTGCard> cards = query.search( userInput );
+      send( exchange, 200, MTGJson.toJson( userInput, cards, limit, System.nanoTime() - startTime ) );
+   }
+   
+   /**
+      Answers a ranked search with the K cards that match the most of the query, as JSON
+      
+      @param exchange The request and its response
+      @throws IOException If the response cannot be sent
+      @see MTGQuery.rank( String userInput, int k )
+   */
+   private void handleRank( HttpExchange exchange ) throws IOException {
+      if( !exchange.getRequestMethod().equals("GET") ) {
+         send( exchange, 405, "{\"error\":\"Only GET is supported\"}");
+         return;
+      }
+      
+      String userInput = getParameter( exchange, "q" );
+      if( userInput == null || userInput.isBlank() ) {
+         send( exchange, 400, "{\"error\":\"Missing query parameter 'q'\"}");
+         return;
+      }
+      
+      int k = DEFAULT_RANK_LIMIT;
+      String kParameter = getParameter( exchange, "k" );
+      if( kParameter != null ) {
+         k = MTGCard.toNumber( kParameter );
+         if( k == MTGCard.VARIABLE_COST ) {
+            send( exchange, 400, "{\"error\":\"K must be a number\"}");
+            return;
+         }
+      }
+      
+      long startTime = System.nanoTime();
+      int[] ordinals = query.rank( userInput, k ).getOrdinals();
+      ArrayList<MTGCard> cards = new ArrayList<MTGCard>( ordinals.length );
+      for( int ordinal : ordinals )
+         cards.add( query.getCard( ordinal ) );
+      send( exchange, 200, MTGJson.toJson( userInput, cards, -1, System.nanoTime() - startTime ) );
+   }
+   
+   /**
+      Answers a name look up with the cards whose names are closest to the name given, as JSON
+      
+      @param exchange The request and its response
+      @throws IOException If the response cannot be sent
+      @see MTGQuery.findNames( String name, int limit )
+   */
+   private void handleNames( HttpExchange exchange ) throws IOException {
+      if( !exchange.getRequestMethod().equals("GET") ) {
+         send( exchange, 405, "{\"error\":\"Only GET is supported\"}");
+         return;
+      }
+      
+      String name = getParameter( exchange, "q" );
+      if( name == null || name.isBlank() ) {
+         send( exchange, 400, "{\"error\":\"Missing query parameter 'q'\"}");
+         return;
+      }
+      
+      int limit = DEFAULT_NAME_LIMIT;
+      String limitParameter = getParameter( exchange, "limit" );
+      if( limitParameter != null ) {
+         limit = MTGCard.toNumber( limitParameter );
+         if( limit == MTGCard.VARIABLE_COST ) {
+            send( exchange, 400, "{\"error\":\"The limit must be a number\"}");
+            return;
+         }
+      }
+      
+      long startTime = System.nanoTime();
+      ArrayList<MTGCard> cards = query.findNames( name, limit );
+      send( exchange, 200, MTGJson.toJson( name, cards, -1, System.nanoTime() - startTime ) );
+   }
+   
+   /**
+      Answers a prefix with the most common terms that begin with it, as JSON
+      
+      @param exchange The request and its response
+      @throws IOException If the response cannot be sent
+      @see MTGQuery.complete( String prefix, int limit )
+   */
+   private void handleComplete( HttpExchange exchange ) throws IOException {
+      if( !exchange.getRequestMethod().equals("GET") ) {
+         send( exchange, 405, "{\"error\":\"Only GET is supported\"}");
+         return;
+      }
+      
+      String prefix = getParameter( exchange, "q" );
+      if( prefix == null ) {
+         send( exchange, 400, "{\"error\":\"Missing query parameter 'q'\"}");
+         return;
+      }
+      
+      int limit = DEFAULT_COMPLETION_LIMIT;
+      String limitParameter = getParameter( exchange, "limit" );
+      if( limitParameter != null ) {
+         limit = MTGCard.toNumber( limitParameter );
+         if( limit == MTGCard.VARIABLE_COST ) {
+            send( exchange, 400, "{\"error\":\"The limit must be a number\"}");
+            return;
+         }
+      }
+      
+      StringBuilder json = new StringBuilder("{\"prefix\":");
+      MTGJson.quote( prefix, json );
+      json.append(",\"completions\":[");
+      String[] terms = query.complete( prefix, limit );
+      for( int i = 0; i < terms.length; i++ ) {
+         if( i > 0 ) json.append(',');
+         MTGJson.quote( terms[i], json );
+      }
+      send( exchange, 200, json.append("]}").toString() );
+   }
+   
+   /**
+      Answers a health check with the total number of cards loaded, and the counters of the
+      result cache
+      
+      @param exchange The request and its response
+      @throws IOException If the response cannot be sent
+      @see MTGResultCache.getStats()
+   */
+   private void handleHealth( HttpExchange exchange ) throws IOException {
+      MTGResultCache cache = query.getResultCache();
+      long[] stats = cache.getStats();
+      send( exchange, 200, "{\"status\":\"ok\",\"cards\":" + query.totalCards() + ",\"cache\":{\"hits\":" + stats[0] +
+                           ",\"misses\":" + stats[1] + ",\"hitRatio\":" + String.format( Locale.ROOT, "%.3f", cache.getHitRatio() ) +
+                           ",\"evictions\":" + stats[2] + ",\"results\":" + stats[4] + ",\"bytes\":" + stats[5] + "}}");
+   }
+   
+   /**
+      Answers with the timers and counters of every search so far, as text
+      
+      @param exchange The request and its response
+      @throws IOException If the response cannot be sent
+      @see MTGMetrics.dump()
+   */
+   private void handleMetrics( HttpExchange exchange ) throws IOException {
+      send( exchange, 200, "text/plain; charset=utf-8", MTGMetrics.get().dump() + "\n");
+   }
+   
+   /**
+      Get a parameter of the query string of a request
+      
+      @param exchange The request
+      @param name The name of the parameter
+      @return String The decoded value of the parameter, or null if it is not given
+   */
+   private static String getParameter( HttpExchange exchange, String name ) {
+      String queryString = exchange.getRequestURI().getRawQuery();
+      if( queryString == null ) return null;
+      
+      for( String pair : queryString.split("&") ) {
+         int equals = pair.indexOf('=');
+         String key = equals < 0 ? pair : pair.substring( 0, equals );
+         if( URLDecoder.decode( key, StandardCharsets.UTF_8 ).equals( name ) )
+            return equals < 0 ? "" : URLDecoder.decode( pair.substring( equals + 1 ), StandardCharsets.UTF_8 );
+      }
+      
+      return null;
+   }
+   
+   /**
+      Sends a JSON response
+      
+      @param exchange The request and its response
+      @param status The HTTP status code
+      @param json The body of the response
+      @throws IOException If the response cannot be sent
+   */
+   private static void send( HttpExchange exchange, int status, String json ) throws IOException {
+      send( exchange, status, "application/json; charset=utf-8", json );
+   }
+   
+   /**
+      Sends a response
+      
+      @param exchange The request and its response
+      @param status The HTTP status code
+      @param contentType The type of the body
+      @param text The body of the response
+      @throws IOException If the response cannot be sent
+   */
+   private static void send( HttpExchange exchange, int status, String contentType, String text ) throws IOException {
+      byte[] body = text.getBytes( StandardCharsets.UTF_8 );
+      exchange.getResponseHeaders().set("Content-Type", contentType );
+      exchange.sendResponseHeaders( status, body.length );
+      try( OutputStream out = exchange.getResponseBody() ) {
+         out.write( body );
+      }
+   }
+   
+   /**
+      Create the executor that requests are handled on: a new virtual thread per request if
+      the JVM has virtual threads, or a pool of platform threads, one per core, otherwise
+      
+      @return ExecutorService The executor for requests
+   */
+   private static ExecutorService newExecutor() {
+      try {
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke( null );
+      } catch( ReflectiveOperationException e ) {
+         return Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors() );
+      }
+   }
+   
+   /**
+      Faster method override
+      
+      @param str The String to print
+   */
+   private static void SOPln( String str ) {
+      System.out.println( str );
+   }
+}
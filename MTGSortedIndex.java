@@ -0,0 +1,157 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+   MTGSortedIndex.java
+   
+   Sorted index over one of the numeric columns, such as power or mana value.
+   
+   The ordinals of the cards with a numeric value are sorted by that value, alongside a
+   parallel array of the sorted values. A range predicate is then two binary searches
+   over the values, which give a contiguous run of ordinals, ready to be intersected
+   with property bitmaps. Cards whose value is not a number are not in the index
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGNumericColumns.java
+   @see MTGQuery.java
+*/
+public class MTGSortedIndex {
+   
+   private final int column;
+   private int totalCards;
+   
+   //Parallel arrays, sorted by value and then by ordinal
+   private int[] values;
+   private int[] ordinals;
+   
+   /**
+      Create the sorted index of a numeric column
+      
+      @param columns The numeric columns of every card
+      @param column The column to index, such as MTGNumericColumns.POWER
+   */
+   public MTGSortedIndex( MTGNumericColumns columns, int column ) {
+      this.column = column;
+      this.totalCards = columns.totalCards();
+      
+      int[] columnValues = columns.getColumn( column );
+      
+      //Pack each value with its ordinal so that a primitive sort orders both
+      long[] packed = new long[ totalCards ];
+      int total = 0;
+      for( int ordinal = 0; ordinal < totalCards; ordinal++ ) {
+         int value = columnValues[ ordinal ];
+         if( value != MTGCard.VARIABLE_COST ) packed[ total++ ] = ( (long) value << 32 ) | ordinal;
+      }
+      Arrays.sort( packed, 0, total );
+      
+      values = new int[ total ];
+      ordinals = new int[ total ];
+      for( int i = 0; i < total; i++ ) {
+         values[i] = (int) ( packed[i] >>> 32 );
+         ordinals[i] = (int) packed[i];
+      }
+   }
+   
+   /**
+      Adds the cards appended to the numeric columns since this index was built or last
+      added to. Their ordinals are after every card in the index, so they are sorted on their
+      own and merged in, rather than sorting the whole index again
+      
+      @param columns The numeric columns of every card, including the new cards
+   */
+   public void addCards( MTGNumericColumns columns ) {
+      int[] columnValues = columns.getColumn( column );
+      int newTotalCards = columns.totalCards();
+      
+      long[] packed = new long[ newTotalCards - totalCards ];
+      int total = 0;
+      for( int ordinal = totalCards; ordinal < newTotalCards; ordinal++ ) {
+         int value = columnValues[ ordinal ];
+         if( value != MTGCard.VARIABLE_COST ) packed[ total++ ] = ( (long) value << 32 ) | ordinal;
+      }
+      Arrays.sort( packed, 0, total );
+      
+      //merge, keeping the older card first for equal values, since its ordinal is smaller
+      int[] mergedValues = new int[ values.length + total ];
+      int[] mergedOrdinals = new int[ mergedValues.length ];
+      int i = 0, j = 0;
+      for( int k = 0; k < mergedValues.length; k++ ) {
+         if( j == total || ( i < values.length && values[i] <= (int) ( packed[j] >>> 32 ) ) ) {
+            mergedValues[k] = values[i];
+            mergedOrdinals[k] = ordinals[ i++ ];
+         } else {
+            mergedValues[k] = (int) ( packed[j] >>> 32 );
+            mergedOrdinals[k] = (int) packed[ j++ ];
+         }
+      }
+      
+      values = mergedValues;
+      ordinals = mergedOrdinals;
+      totalCards = newTotalCards;
+   }
+   
+   /**
+      Finds the cards whose value is between min and max, inclusive
+      
+      @param min The smallest value that matches
+      @param max The largest value that matches
+      @return BitSet The ordinals of the cards that match
+      @see lowerBound( long value )
+   */
+   public BitSet range( int min, int max ) {
+      BitSet result = new BitSet( totalCards );
+      int end = lowerBound( max + 1L );
+      for( int i = lowerBound( min ); i < end; i++ )
+         result.set( ordinals[i] );
+      
+      return result;
+   }
+   
+   /**
+      Counts the cards whose value is between min and max, inclusive, without visiting them
+      
+      @param min The smallest value that matches
+      @param max The largest value that matches
+      @return int The total number of cards that match
+   */
+   public int count( int min, int max ) {
+      return Math.max( 0, lowerBound( max + 1L ) - lowerBound( min ) );
+   }
+   
+   /**
+      Finds the position of the first value that is at least the given value
+      
+      @param value The value to search for
+      @return int The position of the first value not less than the given value
+   */
+   private int lowerBound( long value ) {
+      int low = 0, high = values.length;
+      while( low < high ) {
+         int middle = ( low + high ) >>> 1;
+         if( values[ middle ] < value ) low = middle + 1;
+         else                           high = middle;
+      }
+      
+      return low;
+   }
+   
+   /**
+      Get the column this index is over
+      
+      @return int The column, such as MTGNumericColumns.POWER
+   */
+   public int getColumn() {
+      return column;
+   }
+   
+   /**
+      Returns the total number of cards with a numeric value in this index
+      
+      @return int The total number of cards indexed
+   */
+   public int size() {
+      return values.length;
+   }
+}
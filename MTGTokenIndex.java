@@ -0,0 +1,273 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+   MTGTokenIndex.java
+   
+   Inverted index from the tokens of the base properties of the cards to the cards that
+   have them.
+   
+   The tokens are those of MTGCard.getBaseTokens( String[] baseList ): the words of the
+   name, card type, subtype, and artist, the subtext characters, the rarity, the set name,
+   and the year, all in uppercase. Each token is kept apart for each field it was found in,
+   so that 'GOBLIN' as a subtype can be told apart from 'GOBLIN' in the name of a card.
+   
+   The cards of a token and field are a posting list: the ordinals of the cards, sorted.
+   Most tokens are rare, so a posting list takes far less memory than a bitmap over every
+   card. The leftover words of a query are answered by merging the posting lists of the
+   fields searched, and intersecting them with the other terms of the query, rather than by
+   checking the base tokens of every card
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCard.getBaseTokens( String[] baseList )
+   @see MTGQueryPlanner.TokenTerm
+*/
+public class MTGTokenIndex {
+   
+   //Fields, in the order of FIELD_COLUMNS
+   public static final int NAME      = 0;
+   public static final int CARD_TYPE = 1;
+   public static final int SUBTYPE   = 2;
+   public static final int ARTIST    = 3;
+   public static final int SUBTEXT   = 4;
+   public static final int RARITY    = 5;
+   public static final int SET_NAME  = 6;
+   public static final int YEAR      = 7;
+   public static final int TOTAL_FIELDS = 8;
+   
+   //The base property of each field, how its tokens are separated, and whether only its letters are kept
+   private static final int[] FIELD_COLUMNS        = { 1, 2, 3, 8, 12, 5, 7, 9 };
+   private static final char[] FIELD_SEPARATORS    = { ' ', ' ', ' ', ' ', '@', '\0', '\0', '\0' };
+   private static final boolean[] IS_LETTERS_ONLY  = { true, false, false, true, false, false, false, false };
+   
+   //Base property value used when a property does not apply to a card
+   private static final String NOT_APPLICABLE = "NA";
+   
+   private static final int[] NO_CARDS = new int[0];
+   
+   //Token -> posting list of each field, or null for the fields the token is not in
+   private final HashMap<String, int[][]> postings;
+   private int totalCards;
+   
+   /**
+      Create the index from the base properties of every card of a snapshot, without
+      creating any MTGCards
+      
+      @param snapshot The snapshot of the card file, or null if there are no cards
+      @param totalCards The total number of cards
+   */
+   public MTGTokenIndex( MTGCatalogSnapshot snapshot, int totalCards ) {
+      this.totalCards = totalCards;
+      
+      HashMap<String, Postings[]> builders = new HashMap<String, Postings[]>();
+      ArrayList<String> tokens = new ArrayList<String>();
+      for( int ordinal = 0; ordinal < totalCards; ordinal++ )
+         addTokens( builders, snapshot.getBaseProperties( ordinal ), ordinal, tokens );
+      
+      postings = new HashMap<String, int[][]>( builders.size() * 2 );
+      for( HashMap.Entry<String, Postings[]> entry : builders.entrySet() ) {
+         int[][] fields = new int[ TOTAL_FIELDS ][];
+         for( int field = 0; field < TOTAL_FIELDS; field++ ) {
+            Postings builder = entry.getValue()[ field ];
+            if( builder != null ) fields[ field ] = builder.toArray();
+         }
+         postings.put( entry.getKey(), fields );
+      }
+   }
+   
+   /**
+      Adds cards after the last card indexed, such as cards appended to the card file. Each
+      posting list the new cards are in is copied once, with the new ordinals on the end
+      
+      @param baseLists The base properties of each new card, in card order
+      @param first The ordinal of the first new card, which is the total number of cards indexed so far
+   */
+   public void addCards( List<String[]> baseLists, int first ) {
+      HashMap<String, Postings[]> builders = new HashMap<String, Postings[]>();
+      ArrayList<String> tokens = new ArrayList<String>();
+      for( int i = 0; i < baseLists.size(); i++ )
+         addTokens( builders, baseLists.get(i), first + i, tokens );
+      
+      for( HashMap.Entry<String, Postings[]> entry : builders.entrySet() ) {
+         int[][] fields = postings.computeIfAbsent( entry.getKey(), key -> new int[ TOTAL_FIELDS ][] );
+         for( int field = 0; field < TOTAL_FIELDS; field++ ) {
+            Postings builder = entry.getValue()[ field ];
+            if( builder == null ) continue;
+            
+            int[] added = builder.toArray();
+            int[] cards = fields[ field ] == null ? NO_CARDS : fields[ field ];
+            int[] appended = Arrays.copyOf( cards, cards.length + added.length );
+            System.arraycopy( added, 0, appended, cards.length, added.length );
+            fields[ field ] = appended;
+         }
+      }
+      
+      totalCards = first + baseLists.size();
+   }
+   
+   /**
+      Adds the tokens of one card to the posting lists being built
+      
+      @param builders Token -> growing posting list of each field
+      @param baseList The base properties of the card, starting with the line number
+      @param ordinal The position of the card within the card file
+      @param tokens A list to split the fields into, which is reused from card to card
+   */
+   private static void addTokens( HashMap<String, Postings[]> builders, String[] baseList, int ordinal, ArrayList<String> tokens ) {
+      if( baseList.length != MTGCard.BASE_PROPERTIES_SIZE ) return;
+      
+      for( int field = 0; field < TOTAL_FIELDS; field++ ) {
+         tokens.clear();
+         String value = baseList[ FIELD_COLUMNS[ field ] ];
+         if( FIELD_SEPARATORS[ field ] == '\0' ) tokens.add( value.toUpperCase() );
+         else MTGCard.addTokens( value, FIELD_SEPARATORS[ field ], IS_LETTERS_ONLY[ field ], tokens );
+         
+         for( String token : tokens ) {
+            if( token.isEmpty() || token.equals( NOT_APPLICABLE ) ) continue;
+            
+            Postings[] fields = builders.computeIfAbsent( token, key -> new Postings[ TOTAL_FIELDS ] );
+            if( fields[ field ] == null ) fields[ field ] = new Postings();
+            fields[ field ].add( ordinal );
+         }
+      }
+   }
+   
+   /**
+      Get the cards that have a token in a field
+      
+      @param field The field, such as SUBTYPE
+      @param token The uppercase token
+      @return int[] The sorted ordinals of the cards, which should not be modified
+   */
+   public int[] getPostings( int field, String token ) {
+      int[][] fields = postings.get( token );
+      if( fields == null || fields[ field ] == null ) return NO_CARDS;
+      
+      return fields[ field ];
+   }
+   
+   /**
+      Get the cards that have a token in any of the given fields
+      
+      @param token The uppercase token
+      @param fields The fields to look in, such as CARD_TYPE and SUBTYPE
+      @return int[] The sorted ordinals of the cards, without duplicates
+   */
+   public int[] getPostings( String token, int[] fields ) {
+      int[] merged = NO_CARDS;
+      for( int field : fields ) {
+         int[] cards = getPostings( field, token );
+         if( cards.length > 0 ) merged = merged.length == 0 ? cards : union( merged, cards );
+      }
+      
+      return merged;
+   }
+   
+   /**
+      Determines whether any card has a token in any of the given fields
+      
+      @param token The uppercase token
+      @param fields The fields to look in
+      @return boolean True if some card has the token in one of the fields, false otherwise
+   */
+   public boolean contains( String token, int[] fields ) {
+      int[][] tokenPostings = postings.get( token );
+      if( tokenPostings == null ) return false;
+      
+      for( int field : fields )
+         if( tokenPostings[ field ] != null ) return true;
+      
+      return false;
+   }
+   
+   /**
+      Returns the total number of distinct tokens
+      
+      @return int The total number of tokens
+   */
+   public int totalTokens() {
+      return postings.size();
+   }
+   
+   /**
+      Returns the total number of cards indexed
+      
+      @return int The total number of cards
+   */
+   public int totalCards() {
+      return totalCards;
+   }
+   
+   /**
+      Get a bitmap of the cards of a posting list
+      
+      @param cards The sorted ordinals of the cards
+      @return BitSet The bitmap of the cards
+   */
+   public static BitSet toBitSet( int[] cards ) {
+      BitSet bitmap = new BitSet( cards.length == 0 ? 0 : cards[ cards.length - 1 ] + 1 );
+      for( int i = 0; i < cards.length; i++ )
+         bitmap.set( cards[i] );
+      
+      return bitmap;
+   }
+   
+   /**
+      Merges two posting lists
+      
+      @param a The sorted ordinals of some cards
+      @param b The sorted ordinals of other cards
+      @return int[] The sorted ordinals of the cards in either list, without duplicates
+   */
+   public static int[] union( int[] a, int[] b ) {
+      int[] merged = new int[ a.length + b.length ];
+      int i = 0, j = 0, size = 0;
+      while( i < a.length && j < b.length ) {
+         if(      a[i] < b[j] ) merged[ size++ ] = a[ i++ ];
+         else if( a[i] > b[j] ) merged[ size++ ] = b[ j++ ];
+         else {
+            merged[ size++ ] = a[ i++ ];
+            j++;
+         }
+      }
+      while( i < a.length ) merged[ size++ ] = a[ i++ ];
+      while( j < b.length ) merged[ size++ ] = b[ j++ ];
+      
+      return size == merged.length ? merged : Arrays.copyOf( merged, size );
+   }
+   
+   /**
+      A growing posting list, used while the index is built
+   */
+   private static class Postings {
+      
+      private int[] cards = new int[4];
+      private int size = 0;
+      
+      /**
+         Adds a card, unless it is already the last card added, since the ordinals are added
+         in increasing order
+         
+         @param ordinal The position of the card within the card file
+      */
+      private void add( int ordinal ) {
+         if( size > 0 && cards[ size - 1 ] == ordinal ) return;
+         if( size == cards.length ) cards = Arrays.copyOf( cards, size * 2 );
+         
+         cards[ size++ ] = ordinal;
+      }
+      
+      /**
+         Get the posting list, trimmed to its size
+         
+         @return int[] The sorted ordinals of the cards
+      */
+      private int[] toArray() {
+         return Arrays.copyOf( cards, size );
+      }
+   }
+}
@@ -0,0 +1,48 @@
+package mtgsearch.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+   BenchmarkMain.java
+   
+   Runs the benchmarks with the JMH command line options given, adding the GC profiler
+   when no profiler is given, so that the allocation rate of every benchmark is reported.
+   
+   Usage: java -jar jmh/target/benchmarks.jar [JMH options], from the root of the repository
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see LoadBenchmark.java
+   @see SearchBenchmark.java
+*/
+public class BenchmarkMain {
+   
+   /**
+      Run the benchmarks
+      
+      @param args The JMH command line options, such as a benchmark name or '-p scale=1,10'
+      @throws Exception If the options are not valid, or the benchmarks cannot be run
+   */
+   public static void main( String[] args ) throws Exception {
+      CommandLineOptions commandLine = new CommandLineOptions( args );
+      if( commandLine.shouldHelp() ) {
+         commandLine.showHelp();
+         return;
+      }
+      if( commandLine.shouldList() ) {
+         new Runner( commandLine ).list();
+         return;
+      }
+      
+      ScaledCatalog.checkWorkingDirectory();
+      
+      ChainedOptionsBuilder options = new OptionsBuilder().parent( commandLine );
+      if( commandLine.getProfilers().isEmpty() ) options.addProfiler( GCProfiler.class );
+      
+      new Runner( options.build() ).run();
+   }
+}
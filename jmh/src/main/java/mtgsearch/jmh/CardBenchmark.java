@@ -0,0 +1,75 @@
+package mtgsearch.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+   CardBenchmark.java
+   
+   Time taken to create an MTGCard for every card of mtgCards.txt, from base properties and
+   properties that are already split. This is the part of loading that sets the base
+   properties, finds the base tokens and the cost, and fills the property set of each card
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGCard( String[] baseList, String imageName, String[] properties )
+*/
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class CardBenchmark {
+   
+   private static final MethodHandle NEW_CARD_LOADER     = MTGHandles.constructor("MTGCardLoader", String.class );
+   private static final MethodHandle GET_BASE_PROPERTIES = MTGHandles.method("MTGCardLoader", "getBaseProperties");
+   private static final MethodHandle GET_PROPERTIES      = MTGHandles.method("MTGCardLoader", "getProperties");
+   private static final MethodHandle NEW_CARD            = MTGHandles.constructor("MTGCard", String[].class, String.class, String[].class );
+   
+   private String[][] baseLists, propertyLists;
+   private String[] imageNames;
+   
+   /**
+      Splits every card of mtgCards.txt into its base properties and properties
+      
+      @throws Throwable If the card file cannot be read
+   */
+   @Setup
+   @SuppressWarnings("unchecked")
+   public void setUp() throws Throwable {
+      Object loader = NEW_CARD_LOADER.invoke( ScaledCatalog.get(1) );
+      List<String[]> baseProperties = (List<String[]>) GET_BASE_PROPERTIES.invoke( loader );
+      List<String[]> properties = (List<String[]>) GET_PROPERTIES.invoke( loader );
+      
+      baseLists = baseProperties.toArray( new String[0][] );
+      propertyLists = properties.toArray( new String[0][] );
+      imageNames = new String[ baseLists.length ];
+      for( int i = 0; i < baseLists.length; i++ )
+         imageNames[i] = baseLists[i][1] + ".jpg";
+   }
+   
+   /**
+      Creates every card
+      
+      @param blackhole Consumes the cards
+      @throws Throwable If a card cannot be created
+   */
+   @Benchmark
+   public void createCards( Blackhole blackhole ) throws Throwable {
+      for( int i = 0; i < baseLists.length; i++ )
+         blackhole.consume( NEW_CARD.invoke( baseLists[i], imageNames[i], propertyLists[i] ) );
+   }
+}
@@ -0,0 +1,82 @@
+package mtgsearch.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+   LoadBenchmark.java
+   
+   Time taken to load the catalog, at 1, 10, and 100 times the size of mtgCards.txt.
+   
+   loadQuery() measures the MTGQuery constructor, which opens the binary snapshot of the
+   card file and builds the property index, the numeric columns, the sorted indexes, and
+   the planner statistics from it. The snapshot is compiled in the setup, so this is the
+   load of every run after the first. parseCardFile() measures MTGCardLoader, which parses
+   the card file itself and creates every card, as is done when the snapshot is compiled
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery( String fileName )
+   @see MTGCardLoader.java
+   @see ScaledCatalog.java
+*/
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+public class LoadBenchmark {
+   
+   private static final MethodHandle NEW_QUERY       = MTGHandles.constructor("MTGQuery", String.class );
+   private static final MethodHandle NEW_CARD_LOADER = MTGHandles.constructor("MTGCardLoader", String.class );
+   
+   @Param({ "1", "10", "100" })
+   public int scale;
+   
+   private String fileName;
+   
+   /**
+      Writes the card file of this scale, and compiles its snapshot
+      
+      @throws Throwable If the card file cannot be written or loaded
+   */
+   @Setup
+   public void setUp() throws Throwable {
+      fileName = ScaledCatalog.get( scale );
+      NEW_QUERY.invoke( fileName ); //compiles the snapshot
+   }
+   
+   /**
+      Loads the catalog through its snapshot
+      
+      @return Object The MTGQuery
+      @throws Throwable If the catalog cannot be loaded
+   */
+   @Benchmark
+   public Object loadQuery() throws Throwable {
+      return NEW_QUERY.invoke( fileName );
+   }
+   
+   /**
+      Parses the card file and creates every card
+      
+      @return Object The MTGCardLoader
+      @throws Throwable If the card file cannot be read
+   */
+   @Benchmark
+   public Object parseCardFile() throws Throwable {
+      return NEW_CARD_LOADER.invoke( fileName );
+   }
+}
@@ -0,0 +1,68 @@
+package mtgsearch.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+   MTGHandles.java
+   
+   Method handles to the classes of the card search program.
+   
+   The program is in the default package, which a class in a named package cannot refer to,
+   and JMH does not allow benchmarks in the default package. The benchmarks therefore call
+   the program through method handles. A handle kept in a static final field is a constant
+   to the JIT compiler, so a call through it is inlined like a direct call, and adds nothing
+   to the time measured. Private methods, such as MTGQuery.translateUserInput( String userInput ),
+   are reached the same way
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.java
+*/
+final class MTGHandles {
+   
+   private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+   
+   /**
+      Not to be created
+   */
+   private MTGHandles() {}
+   
+   /**
+      Get a handle to a constructor
+      
+      @param className The name of the class, such as 'MTGQuery'
+      @param parameterTypes The types of the parameters of the constructor
+      @return MethodHandle The handle to the constructor
+   */
+   static MethodHandle constructor( String className, Class<?>... parameterTypes ) {
+      try {
+         Constructor<?> constructor = Class.forName( className ).getDeclaredConstructor( parameterTypes );
+         constructor.setAccessible( true );
+         return LOOKUP.unreflectConstructor( constructor );
+      } catch( ReflectiveOperationException e ) {
+         throw new IllegalStateException("No constructor of " + className + " found", e );
+      }
+   }
+   
+   /**
+      Get a handle to a method, which may be private. The handle to an instance method takes
+      the instance as its first argument
+      
+      @param className The name of the class, such as 'MTGQuery'
+      @param methodName The name of the method
+      @param parameterTypes The types of the parameters of the method
+      @return MethodHandle The handle to the method
+   */
+   static MethodHandle method( String className, String methodName, Class<?>... parameterTypes ) {
+      try {
+         Method method = Class.forName( className ).getDeclaredMethod( methodName, parameterTypes );
+         method.setAccessible( true );
+         return LOOKUP.unreflect( method );
+      } catch( ReflectiveOperationException e ) {
+         throw new IllegalStateException("No method " + className + "." + methodName + " found", e );
+      }
+   }
+}
@@ -0,0 +1,166 @@
+package mtgsearch.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+   NormalizerBenchmark.java
+   
+   Time taken by each of the MTGSearch.removeNon* normalizers over a corpus of real text: the
+   base properties of every card of mtgCards.txt, such as names, types, set names, and
+   artists, along with the searches of the query corpus. Each benchmark normalizes the whole
+   corpus once
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGSearch.removeNonLetters( String str )
+   @see MTGNormalizer.java
+*/
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class NormalizerBenchmark {
+   
+   private static final MethodHandle NEW_CARD_LOADER     = MTGHandles.constructor("MTGCardLoader", String.class );
+   private static final MethodHandle GET_BASE_PROPERTIES = MTGHandles.method("MTGCardLoader", "getBaseProperties");
+   
+   private static final MethodHandle REMOVE_NON_LETTERS                    = normalizer("removeNonLetters");
+   private static final MethodHandle REMOVE_NON_NUMBERS                    = normalizer("removeNonNumbers");
+   private static final MethodHandle REMOVE_NON_ALPHANUMERIC               = normalizer("removeNonAlphanumeric");
+   private static final MethodHandle REMOVE_NON_ALPHANUMERIC_WHITESPACE    = normalizer("removeNonAlphanumericWhitespace");
+   private static final MethodHandle REMOVE_NON_ALPHANUMERIC_WHITESPACE_AND_AND = normalizer("removeNonAlphanumericWhitespaceAndAnd");
+   private static final MethodHandle REMOVE_NON_LETTERS_WHITESPACE         = normalizer("removeNonLettersWhitespace");
+   private static final MethodHandle REMOVE_NON_NUMBERS_WHITESPACE         = normalizer("removeNonNumbersWhitespace");
+   
+   private String[] texts;
+   
+   /**
+      Gathers the base properties of every card, and the searches of the query corpus
+      
+      @throws Throwable If the card file cannot be read
+   */
+   @Setup
+   @SuppressWarnings("unchecked")
+   public void setUp() throws Throwable {
+      Object loader = NEW_CARD_LOADER.invoke( ScaledCatalog.get(1) );
+      ArrayList<String> corpus = new ArrayList<String>();
+      for( String[] baseList : (List<String[]>) GET_BASE_PROPERTIES.invoke( loader ) )
+         for( String field : baseList )
+            corpus.add( field );
+      
+      for( String query : QueryCorpus.get() )
+         corpus.add( query );
+      
+      texts = corpus.toArray( new String[0] );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonLetters( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonLetters( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_LETTERS.invokeExact( text ) );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonNumbers( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonNumbers( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_NUMBERS.invokeExact( text ) );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonAlphanumeric( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonAlphanumeric( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_ALPHANUMERIC.invokeExact( text ) );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonAlphanumericWhitespace( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonAlphanumericWhitespace( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_ALPHANUMERIC_WHITESPACE.invokeExact( text ) );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonAlphanumericWhitespaceAndAnd( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonAlphanumericWhitespaceAndAnd( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_ALPHANUMERIC_WHITESPACE_AND_AND.invokeExact( text ) );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonLettersWhitespace( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonLettersWhitespace( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_LETTERS_WHITESPACE.invokeExact( text ) );
+   }
+   
+   /**
+      Normalizes the corpus with MTGSearch.removeNonNumbersWhitespace( String str )
+      
+      @param blackhole Consumes the normalized text
+      @throws Throwable If the normalizer fails
+   */
+   @Benchmark
+   public void removeNonNumbersWhitespace( Blackhole blackhole ) throws Throwable {
+      for( String text : texts )
+         blackhole.consume( (String) REMOVE_NON_NUMBERS_WHITESPACE.invokeExact( text ) );
+   }
+   
+   /**
+      Get a handle to one of the normalizers of MTGSearch
+      
+      @param name The name of the normalizer, such as 'removeNonLetters'
+      @return MethodHandle The handle, taking a String and returning a String
+   */
+   private static MethodHandle normalizer( String name ) {
+      return MTGHandles.method("MTGSearch", name, String.class );
+   }
+}
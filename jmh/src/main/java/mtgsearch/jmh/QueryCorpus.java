@@ -0,0 +1,52 @@
+package mtgsearch.jmh;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+   QueryCorpus.java
+   
+   The searches the benchmarks translate and evaluate, read from queries.txt. Blank lines
+   and lines starting with '#' are skipped
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see queries.txt
+*/
+final class QueryCorpus {
+   
+   private static final String QUERY_FILE = "/queries.txt";
+   
+   /**
+      Not to be created
+   */
+   private QueryCorpus() {}
+   
+   /**
+      Get the searches of the corpus
+      
+      @return String[] The searches, in file order
+   */
+   static String[] get() {
+      ArrayList<String> queries = new ArrayList<String>();
+      try( InputStream in = QueryCorpus.class.getResourceAsStream( QUERY_FILE ) ) {
+         if( in == null ) throw new IllegalStateException( QUERY_FILE + " was not found");
+         
+         BufferedReader reader = new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) );
+         String line;
+         while( ( line = reader.readLine() ) != null ) {
+            line = line.trim();
+            if( !line.isEmpty() && !line.startsWith("#") ) queries.add( line );
+         }
+      } catch( IOException e ) {
+         throw new UncheckedIOException( e );
+      }
+      
+      return queries.toArray( new String[0] );
+   }
+}
@@ -0,0 +1,95 @@
+package mtgsearch.jmh;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+   ScaledCatalog.java
+   
+   Card files that are a whole number of times the size of mtgCards.txt, for measuring how
+   the load and the searches scale with the size of the catalog.
+   
+   A scaled card file holds the header line of mtgCards.txt, followed by every well formed
+   card of mtgCards.txt repeated the given number of times. Cards without every base
+   property are left out, so that the benchmarks do not print a parse error for each copy.
+   The files are written to the temporary directory the first time they are needed, and
+   written again only when mtgCards.txt changes
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see mtgCards.txt
+*/
+final class ScaledCatalog {
+   
+   static final String TEXT_FILE = "./mtgCards.txt";
+   
+   private static final int BASE_PROPERTIES_SIZE = 16;
+   private static final Path DIRECTORY = Path.of( System.getProperty("java.io.tmpdir"), "mtg-search-jmh" );
+   
+   /**
+      Not to be created
+   */
+   private ScaledCatalog() {}
+   
+   /**
+      Get the card file of the given scale, writing it if it does not exist or is out of date
+      
+      @param scale The number of copies of each card
+      @return String The name of the card file
+      @throws IOException If mtgCards.txt cannot be read, or the scaled file cannot be written
+   */
+   static synchronized String get( int scale ) throws IOException {
+      Path source = checkWorkingDirectory();
+      Path scaled = DIRECTORY.resolve("mtgCards-x" + scale + ".txt");
+      if( Files.exists( scaled ) && Files.getLastModifiedTime( scaled ).compareTo( Files.getLastModifiedTime( source ) ) > 0 )
+         return scaled.toString();
+      
+      List<String> lines = Files.readAllLines( source, StandardCharsets.UTF_8 );
+      Files.createDirectories( DIRECTORY );
+      Path temporary = Files.createTempFile( DIRECTORY, "mtgCards", ".tmp");
+      try( BufferedWriter writer = Files.newBufferedWriter( temporary, StandardCharsets.UTF_8 ) ) {
+         writer.write( lines.get(0) ); //header
+         writer.newLine();
+         
+         for( int copy = 0; copy < scale; copy++ ) {
+            for( int i = 1; i + 1 < lines.size(); i++ ) {
+               String baseLine = lines.get(i);
+               if( baseLine.indexOf('|') < 0 ) continue;
+               
+               i++; //the properties line belongs to this card
+               if( baseLine.trim().split("\\|").length != BASE_PROPERTIES_SIZE ) continue;
+               
+               writer.write( baseLine );
+               writer.newLine();
+               writer.write( lines.get(i) );
+               writer.newLine();
+            }
+         }
+      }
+      
+      Files.move( temporary, scaled, StandardCopyOption.REPLACE_EXISTING );
+      return scaled.toString();
+   }
+   
+   /**
+      Makes sure the benchmarks are run from the root of the repository, where the card file
+      and the keyword files are read from
+      
+      @return Path The path of mtgCards.txt
+      @throws IllegalStateException If mtgCards.txt is not in the working directory
+   */
+   static Path checkWorkingDirectory() {
+      Path source = Path.of( TEXT_FILE );
+      if( !Files.exists( source ) )
+         throw new IllegalStateException("mtgCards.txt was not found in " + new File(".").getAbsolutePath() +
+                                         ". Run the benchmarks from the root of the repository");
+      
+      return source;
+   }
+}
@@ -0,0 +1,98 @@
+package mtgsearch.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+   SearchBenchmark.java
+   
+   Time taken to search the catalog for every search of the query corpus, at 1, 10, and 100
+   times the size of mtgCards.txt.
+   
+   Both benchmarks call MTGQuery.search( String userInput ), which findList( String userInput )
+   stores the result of. findList() empties the result cache before each pass over the
+   corpus, so every plan is evaluated, and measures translation, planning, and evaluation
+   together. findListCached()
+   keeps the cache, so it measures a server answering searches it has seen before. Every
+   card is created in the setup, so neither pays for creating cards
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGQuery.search( String userInput )
+   @see MTGResultCache.java
+   @see QueryCorpus.java
+*/
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = "-Xmx4g" )
+public class SearchBenchmark {
+   
+   private static final MethodHandle NEW_QUERY          = MTGHandles.constructor("MTGQuery", String.class );
+   private static final MethodHandle SET_PRINTING_PLAN  = MTGHandles.method("MTGQuery", "setPrintingPlan", boolean.class );
+   private static final MethodHandle GET_DICTIONARY     = MTGHandles.method("MTGQuery", "getDictionary");
+   private static final MethodHandle LOAD_ALL_CARDS     = MTGHandles.method("MTGQuery", "loadAllCards");
+   private static final MethodHandle GET_RESULT_CACHE   = MTGHandles.method("MTGQuery", "getResultCache");
+   private static final MethodHandle INVALIDATE         = MTGHandles.method("MTGResultCache", "invalidate");
+   private static final MethodHandle SEARCH             = MTGHandles.method("MTGQuery", "search", String.class );
+   
+   @Param({ "1", "10", "100" })
+   public int scale;
+   
+   private Object query, resultCache;
+   private String[] queries;
+   
+   /**
+      Loads the catalog of this scale, the keyword dictionary, and every card
+      
+      @throws Throwable If the catalog cannot be loaded
+   */
+   @Setup
+   public void setUp() throws Throwable {
+      query = NEW_QUERY.invoke( ScaledCatalog.get( scale ) );
+      SET_PRINTING_PLAN.invoke( query, false );
+      GET_DICTIONARY.invoke( query );
+      LOAD_ALL_CARDS.invoke( query );
+      resultCache = GET_RESULT_CACHE.invoke( query );
+      queries = QueryCorpus.get();
+   }
+   
+   /**
+      Searches for every search of the corpus, evaluating every plan
+      
+      @param blackhole Consumes the cards found
+      @throws Throwable If a search fails
+   */
+   @Benchmark
+   public void findList( Blackhole blackhole ) throws Throwable {
+      INVALIDATE.invoke( resultCache );
+      for( String userInput : queries )
+         blackhole.consume( SEARCH.invoke( query, userInput ) );
+   }
+   
+   /**
+      Searches for every search of the corpus, answering repeated plans from the result cache
+      
+      @param blackhole Consumes the cards found
+      @throws Throwable If a search fails
+   */
+   @Benchmark
+   public void findListCached( Blackhole blackhole ) throws Throwable {
+      for( String userInput : queries )
+         blackhole.consume( SEARCH.invoke( query, userInput ) );
+   }
+}
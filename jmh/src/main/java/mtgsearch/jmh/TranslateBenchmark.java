@@ -0,0 +1,86 @@
+package mtgsearch.jmh;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+   TranslateBenchmark.java
+   
+   Time taken to compile the keyword dictionary, and to translate the searches of the query
+   corpus into properties.
+   
+   compileDictionary() measures MTGKeywordDictionary.compile( String fileName ), which reads
+   mtgKeywordSearchList.txt and builds the phrase matcher; it replaced consolidateKeyLists.
+   translateUserInput() translates every search of the corpus once, so its time is for the
+   whole corpus. Translation does not depend on the size of the catalog
+   
+   @author Peter Olson
+   @version 1/2/22
+   @see MTGKeywordDictionary.compile( String fileName )
+   @see MTGQuery.translateUserInput( String userInput )
+   @see QueryCorpus.java
+*/
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TranslateBenchmark {
+   
+   private static final String KEYWORD_FILE = "./mtgKeywordSearchList.txt";
+   
+   private static final MethodHandle NEW_QUERY          = MTGHandles.constructor("MTGQuery", String.class );
+   private static final MethodHandle COMPILE_DICTIONARY = MTGHandles.method("MTGKeywordDictionary", "compile", String.class );
+   private static final MethodHandle TRANSLATE          = MTGHandles.method("MTGQuery", "translateUserInput", String.class );
+   private static final MethodHandle GET_DICTIONARY     = MTGHandles.method("MTGQuery", "getDictionary");
+   
+   private Object query;
+   private String[] queries;
+   
+   /**
+      Loads the catalog and the keyword dictionary
+      
+      @throws Throwable If the catalog cannot be loaded
+   */
+   @Setup
+   public void setUp() throws Throwable {
+      query = NEW_QUERY.invoke( ScaledCatalog.get(1) );
+      GET_DICTIONARY.invoke( query );
+      queries = QueryCorpus.get();
+   }
+   
+   /**
+      Compiles the keyword dictionary from the keyword file
+      
+      @return Object The MTGKeywordDictionary
+      @throws Throwable If the keyword file cannot be compiled
+   */
+   @Benchmark
+   public Object compileDictionary() throws Throwable {
+      return COMPILE_DICTIONARY.invoke( KEYWORD_FILE );
+   }
+   
+   /**
+      Translates every search of the corpus
+      
+      @param blackhole Consumes the translations
+      @throws Throwable If a search cannot be translated
+   */
+   @Benchmark
+   public void translateUserInput( Blackhole blackhole ) throws Throwable {
+      for( String userInput : queries )
+         blackhole.consume( TRANSLATE.invoke( query, userInput ) );
+   }
+}